@@ -79,10 +79,14 @@ public class DatabaseManager {
     private static void dropTables() throws DataAccessException {
         try (Connection conn = getConnection()) {
             // Drop tables in reverse order of dependencies
+            String dropMovesTable = "DROP TABLE IF EXISTS game_moves";
             String dropGamesTable = "DROP TABLE IF EXISTS games";
             String dropAuthTable = "DROP TABLE IF EXISTS auth_tokens";
             String dropUsersTable = "DROP TABLE IF EXISTS users";
 
+            try (var statement = conn.prepareStatement(dropMovesTable)) {
+                statement.executeUpdate();
+            }
             try (var statement = conn.prepareStatement(dropGamesTable)) {
                 statement.executeUpdate();
             }
@@ -130,11 +134,24 @@ public class DatabaseManager {
                     white_username VARCHAR(255),
                     black_username VARCHAR(255),
                     game_name VARCHAR(255) NOT NULL,
-                    game_data TEXT NOT NULL,
+                    game_data BLOB NOT NULL,
+                    snapshot BLOB,
+                    snapshot_ply INT NOT NULL DEFAULT 0,
                     PRIMARY KEY (game_id)
                 )
             """;
 
+            // Create game_moves table, one row per move (ChessMove.encode() fits in a SMALLINT)
+            String createMovesTable = """
+                CREATE TABLE IF NOT EXISTS game_moves (
+                    game_id INT NOT NULL,
+                    ply INT NOT NULL,
+                    move SMALLINT NOT NULL,
+                    PRIMARY KEY (game_id, ply),
+                    FOREIGN KEY (game_id) REFERENCES games(game_id) ON DELETE CASCADE
+                )
+            """;
+
             // Execute the create table statements
             try (var statement = conn.prepareStatement(createUsersTable)) {
                 statement.executeUpdate();
@@ -147,6 +164,10 @@ public class DatabaseManager {
             try (var statement = conn.prepareStatement(createGamesTable)) {
                 statement.executeUpdate();
             }
+
+            try (var statement = conn.prepareStatement(createMovesTable)) {
+                statement.executeUpdate();
+            }
         } catch (SQLException e) {
             throw new DataAccessException("Error creating tables: " + e.getMessage());
         }
@@ -1,6 +1,10 @@
 package dataaccess;
 
+import chess.ChessGame;
+import chess.ChessMove;
 import model.GameData;
+
+import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
 
@@ -37,6 +41,28 @@ public interface GameDAO {
      */
     List<GameData> listGames() throws DataAccessException;
 
+    /**
+     * Receives games one at a time from forEachGame
+     */
+    @FunctionalInterface
+    interface GameCallback {
+        void accept(GameData game) throws IOException;
+    }
+
+    /**
+     * Hands every game to a callback in turn, so a caller writing them out doesn't
+     * need them all in memory at once. Implementations that can read games one by
+     * one should override this; the default just walks listGames().
+     * @param callback called once per game
+     * @throws DataAccessException if an error occurs reading the games
+     * @throws IOException if the callback fails
+     */
+    default void forEachGame(GameCallback callback) throws DataAccessException, IOException {
+        for (GameData game : listGames()) {
+            callback.accept(game);
+        }
+    }
+
     /**
      * Updates a game in the database
      * @param gameID the ID of the game to update
@@ -45,4 +71,23 @@ public interface GameDAO {
      * @throws DataAccessException if an error occurs
      */
     void updateGame(int gameID, String username, String playerColor) throws DataAccessException;
-} 
\ No newline at end of file
+
+    /**
+     * Records one move of a game. Moves are only ever added, so this doesn't
+     * rewrite the stored game. Nothing is recorded unless the move is the next
+     * ply and legal, so the recorded moves always replay.
+     * @param gameID the ID of the game
+     * @param ply how many moves were played before this one, counting from 0
+     * @param move the move
+     * @throws DataAccessException if ply isn't the next one, the move is illegal, or the game doesn't exist
+     */
+    void appendMove(int gameID, int ply, ChessMove move) throws DataAccessException;
+
+    /**
+     * Rebuilds a game's current position from its stored start and recorded moves
+     * @param gameID the ID of the game to load
+     * @return the game with every recorded move played, or null if not found
+     * @throws DataAccessException if the recorded moves have a gap or an illegal move
+     */
+    ChessGame loadGame(int gameID) throws DataAccessException;
+}
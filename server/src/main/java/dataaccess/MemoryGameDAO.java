@@ -2,6 +2,8 @@ package dataaccess;
 
 import model.GameData;
 import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -14,6 +16,8 @@ import java.util.List;
 public class MemoryGameDAO implements GameDAO {
     private static MemoryGameDAO instance;
     private final Map<Integer, GameData> games = new HashMap<>();
+    // Every move recorded for each game, in order
+    private final Map<Integer, List<ChessMove>> moves = new HashMap<>();
     private int nextGameID = 1;
     
     private MemoryGameDAO() {}
@@ -28,6 +32,7 @@ public class MemoryGameDAO implements GameDAO {
     @Override
     public void clear() throws DataAccessException {
         games.clear();
+        moves.clear();
         nextGameID = 1;
     }
 
@@ -43,6 +48,7 @@ public class MemoryGameDAO implements GameDAO {
             
             GameData gameData = new GameData(gameID, whiteUsername, blackUsername, gameName, game);
             games.put(gameID, gameData);
+            moves.put(gameID, new ArrayList<>());
             
             return gameID;
         } catch (Exception e) {
@@ -90,4 +96,35 @@ public class MemoryGameDAO implements GameDAO {
             throw new DataAccessException("Color must be WHITE or BLACK");
         }
     }
-} 
\ No newline at end of file
+
+    @Override
+    public void appendMove(int gameID, int ply, ChessMove move) throws DataAccessException {
+        GameData game = games.get(gameID);
+        if (game == null) {
+            throw new DataAccessException("Can't find that game");
+        }
+        List<ChessMove> gameMoves = moves.get(gameID);
+        if (ply != gameMoves.size()) {
+            throw new DataAccessException("Expected move " + gameMoves.size() + " of game " + gameID + ", not " + ply);
+        }
+        try {
+            game.game().makeMove(move);
+        } catch (InvalidMoveException e) {
+            throw new DataAccessException("Move " + ply + " of game " + gameID + " is illegal");
+        }
+        gameMoves.add(move);
+    }
+
+    @Override
+    public ChessGame loadGame(int gameID) throws DataAccessException {
+        if (!games.containsKey(gameID)) {
+            return null;
+        }
+        // Replayed from the start so the caller gets its own copy
+        ChessGame game = new ChessGame();
+        if (game.applyAll(moves.get(gameID)) >= 0) {
+            throw new DataAccessException("Recorded moves of game " + gameID + " don't replay");
+        }
+        return game;
+    }
+}
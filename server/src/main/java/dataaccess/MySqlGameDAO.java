@@ -1,33 +1,44 @@
 package dataaccess;
 
 import chess.ChessGame;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
+import chess.ChessMove;
+import chess.GameCodec;
 import model.GameData;
 
+import java.io.IOException;
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.lang.reflect.Type;
 
 /**
  * MySQL implementation of GameDAO
+ * <p>
+ * game_data holds each game's starting position. Moves go one row each into
+ * game_moves, and every SNAPSHOT_INTERVAL plies the position is saved in the
+ * snapshot column, so loading a game replays at most that many moves.
  */
 public class MySqlGameDAO implements GameDAO {
+    /**
+     * How many plies apart the saved snapshots are
+     */
+    static final int SNAPSHOT_INTERVAL = 32;
+
+    private static final String GAME_COLUMNS =
+            "game_id, white_username, black_username, game_name, game_data, snapshot, snapshot_ply";
+    // Every game with its moves since the snapshot, one row per move (or one with a null
+    // move if there are none), in game_id then ply order so they can be read as a stream
+    private static final String GAMES_WITH_MOVES_SQL = "SELECT g.game_id, g.white_username, g.black_username, "
+            + "g.game_name, g.game_data, g.snapshot, g.snapshot_ply, m.ply, m.move FROM games g "
+            + "LEFT JOIN game_moves m ON m.game_id = g.game_id AND m.ply >= g.snapshot_ply "
+            + "ORDER BY g.game_id, m.ply";
+
     private static MySqlGameDAO instance;
-    private final Gson gson;
 
     private MySqlGameDAO() {
-        // Create a simple Gson instance without custom adapters
-        gson = new GsonBuilder().create();
     }
 
     /**
@@ -44,8 +55,10 @@ public class MySqlGameDAO implements GameDAO {
     @Override
     public void clear() throws DataAccessException {
         try (Connection conn = DatabaseManager.getConnection()) {
-            String sql = "DELETE FROM games";
-            try (var preparedStatement = conn.prepareStatement(sql)) {
+            try (var preparedStatement = conn.prepareStatement("DELETE FROM game_moves")) {
+                preparedStatement.executeUpdate();
+            }
+            try (var preparedStatement = conn.prepareStatement("DELETE FROM games")) {
                 preparedStatement.executeUpdate();
             }
         } catch (SQLException e) {
@@ -58,13 +71,13 @@ public class MySqlGameDAO implements GameDAO {
         try (Connection conn = DatabaseManager.getConnection()) {
             // Make a new game with default board setup
             ChessGame game = new ChessGame();
-            String gameJson = gson.toJson(game);
+            byte[] gameData = GameCodec.encode(game);
 
             // Maybe add validation for game name?
             String sql = "INSERT INTO games (game_name, white_username, black_username, game_data) VALUES (?, NULL, NULL, ?)";
             try (var preparedStatement = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
                 preparedStatement.setString(1, gameName);
-                preparedStatement.setString(2, gameJson);
+                preparedStatement.setBytes(2, gameData);
                 preparedStatement.executeUpdate();
 
                 try (var resultSet = preparedStatement.getGeneratedKeys()) {
@@ -83,21 +96,17 @@ public class MySqlGameDAO implements GameDAO {
     @Override
     public GameData getGame(int gameID) throws DataAccessException {
         try (Connection conn = DatabaseManager.getConnection()) {
-            String sql = "SELECT game_id, white_username, black_username, game_name, game_data FROM games WHERE game_id = ?";
+            String sql = "SELECT " + GAME_COLUMNS + " FROM games WHERE game_id = ?";
             try (var preparedStatement = conn.prepareStatement(sql)) {
                 preparedStatement.setInt(1, gameID);
                 try (var resultSet = preparedStatement.executeQuery()) {
                     if (resultSet.next()) {
-                        String gameJson = resultSet.getString("game_data");
-                        ChessGame game = gson.fromJson(gameJson, ChessGame.class);
-                        
-                        return new GameData(
-                            resultSet.getInt("game_id"),
-                            resultSet.getString("white_username"),
-                            resultSet.getString("black_username"),
-                            resultSet.getString("game_name"),
-                            game
-                        );
+                        GameRow row = GameRow.read(resultSet);
+                        byte[] upgraded = upgradedStart(row);
+                        if (upgraded != null) {
+                            saveStart(conn, gameID, upgraded);
+                        }
+                        return readGame(row, readMoves(conn, gameID, row.snapshotPly()));
                     }
                 }
             }
@@ -110,28 +119,71 @@ public class MySqlGameDAO implements GameDAO {
     @Override
     public List<GameData> listGames() throws DataAccessException {
         List<GameData> games = new ArrayList<>();
-        try (Connection conn = DatabaseManager.getConnection()) {
-            String sql = "SELECT game_id, white_username, black_username, game_name, game_data FROM games";
-            try (var preparedStatement = conn.prepareStatement(sql)) {
-                try (var resultSet = preparedStatement.executeQuery()) {
-                    while (resultSet.next()) {
-                        String gameJson = resultSet.getString("game_data");
-                        ChessGame game = gson.fromJson(gameJson, ChessGame.class);
-                        
-                        games.add(new GameData(
-                            resultSet.getInt("game_id"),
-                            resultSet.getString("white_username"),
-                            resultSet.getString("black_username"),
-                            resultSet.getString("game_name"),
-                            game
-                        ));
+        try {
+            forEachGame(games::add);
+        } catch (IOException e) {
+            // Adding to a list can't fail
+            throw new DataAccessException("Error listing games: " + e.getMessage());
+        }
+        return games;
+    }
+
+    /**
+     * Streams games and their moves from one query ordered by game, so only the
+     * game being read is ever held in memory. A streaming result set ties up its
+     * connection until it's read, so old JSON rows are rewritten as they're met
+     * on a second connection, opened only if one turns up.
+     */
+    @Override
+    public void forEachGame(GameCallback callback) throws DataAccessException, IOException {
+        Connection upgradeConn = null;
+        try (Connection conn = DatabaseManager.getConnection();
+             var preparedStatement = conn.prepareStatement(GAMES_WITH_MOVES_SQL,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // Tells the MySQL driver to hand over rows as they arrive
+            preparedStatement.setFetchSize(Integer.MIN_VALUE);
+            try (var resultSet = preparedStatement.executeQuery()) {
+                GameRow row = null;
+                MoveLog log = null;
+                while (resultSet.next()) {
+                    if (row == null || resultSet.getInt("game_id") != row.gameID()) {
+                        if (row != null) {
+                            callback.accept(readGame(row, log));
+                        }
+                        row = GameRow.read(resultSet);
+                        log = new MoveLog();
+                        byte[] upgraded = upgradedStart(row);
+                        if (upgraded != null) {
+                            if (upgradeConn == null) {
+                                upgradeConn = DatabaseManager.getConnection();
+                            }
+                            saveStart(upgradeConn, row.gameID(), upgraded);
+                        }
                     }
+                    int ply = resultSet.getInt("ply");
+                    if (!resultSet.wasNull()) {
+                        log.add(ply, resultSet.getShort("move"));
+                    }
+                }
+                if (row != null) {
+                    callback.accept(readGame(row, log));
                 }
             }
         } catch (SQLException e) {
             throw new DataAccessException("Error listing games: " + e.getMessage());
+        } finally {
+            closeQuietly(upgradeConn);
+        }
+    }
+
+    private static void closeQuietly(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.close();
+            } catch (SQLException ignored) {
+                // Nothing left to do with it either way
+            }
         }
-        return games;
     }
 
     @Override
@@ -162,16 +214,184 @@ public class MySqlGameDAO implements GameDAO {
         }
     }
 
-    // Type adapter for ChessGame
-    private static class ChessGameAdapter implements JsonSerializer<ChessGame>, JsonDeserializer<ChessGame> {
-        @Override
-        public JsonElement serialize(ChessGame src, Type typeOfSrc, JsonSerializationContext context) {
-            return context.serialize(src);
+    /**
+     * Checks and records a move in one transaction. The game's row is locked first,
+     * so two moves for the same ply can't both pass the check, and the move is
+     * only written if it's the next ply and legal in the replayed position.
+     */
+    @Override
+    public void appendMove(int gameID, int ply, ChessMove move) throws DataAccessException {
+        try (Connection conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                appendMove(conn, gameID, ply, move);
+                conn.commit();
+            } catch (SQLException | DataAccessException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error recording move: " + e.getMessage());
+        }
+    }
+
+    private void appendMove(Connection conn, int gameID, int ply, ChessMove move) throws SQLException, DataAccessException {
+        String selectSql = "SELECT " + GAME_COLUMNS + " FROM games WHERE game_id = ? FOR UPDATE";
+        ChessGame game;
+        try (var preparedStatement = conn.prepareStatement(selectSql)) {
+            preparedStatement.setInt(1, gameID);
+            try (var resultSet = preparedStatement.executeQuery()) {
+                if (!resultSet.next()) {
+                    throw new DataAccessException("Can't find that game");
+                }
+                GameRow row = GameRow.read(resultSet);
+                MoveLog log = readMoves(conn, gameID, row.snapshotPly());
+                int nextPly = log.size > 0 ? log.nextPly() : row.snapshotPly();
+                if (ply != nextPly) {
+                    throw new DataAccessException("Expected move " + nextPly + " of game " + gameID + ", not " + ply);
+                }
+                game = readGame(row, log).game();
+            }
+        }
+        if (game.applyAll(new int[]{move.encode()}) >= 0) {
+            throw new DataAccessException("Move " + ply + " of game " + gameID + " is illegal");
+        }
+
+        String sql = "INSERT INTO game_moves (game_id, ply, move) VALUES (?, ?, ?)";
+        try (var preparedStatement = conn.prepareStatement(sql)) {
+            preparedStatement.setInt(1, gameID);
+            preparedStatement.setInt(2, ply);
+            preparedStatement.setShort(3, (short) move.encode());
+            preparedStatement.executeUpdate();
+        }
+        if ((ply + 1) % SNAPSHOT_INTERVAL == 0) {
+            saveSnapshot(conn, gameID, ply + 1, game);
+        }
+    }
+
+    @Override
+    public ChessGame loadGame(int gameID) throws DataAccessException {
+        GameData game = getGame(gameID);
+        return game == null ? null : game.game();
+    }
+
+    // Saves the position after the given number of plies, so later loads replay from there
+    private static void saveSnapshot(Connection conn, int gameID, int ply, ChessGame game) throws SQLException {
+        String sql = "UPDATE games SET snapshot = ?, snapshot_ply = ? WHERE game_id = ?";
+        try (var preparedStatement = conn.prepareStatement(sql)) {
+            preparedStatement.setBytes(1, GameCodec.encode(game));
+            preparedStatement.setInt(2, ply);
+            preparedStatement.setInt(3, gameID);
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    private static MoveLog readMoves(Connection conn, int gameID, int fromPly) throws SQLException, DataAccessException {
+        MoveLog log = new MoveLog();
+        String sql = "SELECT ply, move FROM game_moves WHERE game_id = ? AND ply >= ? ORDER BY ply";
+        try (var preparedStatement = conn.prepareStatement(sql)) {
+            preparedStatement.setInt(1, gameID);
+            preparedStatement.setInt(2, fromPly);
+            try (var resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    log.add(resultSet.getInt("ply"), resultSet.getShort("move"));
+                }
+            }
+        }
+        return log;
+    }
+
+    // The games columns of one row, read before the result set moves on
+    private record GameRow(int gameID, String whiteUsername, String blackUsername, String gameName,
+                           byte[] gameData, byte[] snapshot, int snapshotPly) {
+
+        static GameRow read(ResultSet resultSet) throws SQLException {
+            byte[] snapshot = resultSet.getBytes("snapshot");
+            return new GameRow(
+                resultSet.getInt("game_id"),
+                resultSet.getString("white_username"),
+                resultSet.getString("black_username"),
+                resultSet.getString("game_name"),
+                resultSet.getBytes("game_data"),
+                snapshot,
+                snapshot == null ? 0 : resultSet.getInt("snapshot_ply")
+            );
+        }
+    }
+
+    /**
+     * Builds a GameData from a row: the snapshot (or starting position if there
+     * isn't one yet) with the moves since played on it
+     *
+     * @param moves the game's moves from snapshot_ply on
+     */
+    private static GameData readGame(GameRow row, MoveLog moves) throws DataAccessException {
+        int gameID = row.gameID();
+        int snapshotPly = row.snapshotPly();
+        ChessGame game;
+        try {
+            game = GameCodec.decode(row.snapshot() != null ? row.snapshot() : row.gameData());
+        } catch (IllegalArgumentException e) {
+            throw new DataAccessException("Error reading game " + gameID + ": " + e.getMessage());
+        }
+        if (moves.size > 0) {
+            if (moves.firstPly != snapshotPly) {
+                throw new DataAccessException("Game " + gameID + " is missing move " + snapshotPly);
+            }
+            // The log's array has room to spare on the end
+            int illegal = game.applyAll(Arrays.copyOf(moves.moves, moves.size));
+            if (illegal >= 0) {
+                throw new DataAccessException("Move " + (snapshotPly + illegal) + " of game " + gameID + " is illegal");
+            }
+        }
+        return new GameData(gameID, row.whiteUsername(), row.blackUsername(), row.gameName(), game);
+    }
+
+    // game_data rewritten in the binary form if it's still old JSON, or null if it's current
+    private static byte[] upgradedStart(GameRow row) throws DataAccessException {
+        if (GameCodec.isCurrent(row.gameData())) {
+            return null;
+        }
+        return GameCodec.encode(decodeStart(row.gameID(), row.gameData()));
+    }
+
+    private static void saveStart(Connection conn, int gameID, byte[] gameData) throws SQLException {
+        String sql = "UPDATE games SET game_data = ? WHERE game_id = ?";
+        try (var preparedStatement = conn.prepareStatement(sql)) {
+            preparedStatement.setBytes(1, gameData);
+            preparedStatement.setInt(2, gameID);
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    private static ChessGame decodeStart(int gameID, byte[] gameData) throws DataAccessException {
+        try {
+            return GameCodec.decode(gameData);
+        } catch (IllegalArgumentException e) {
+            throw new DataAccessException("Error reading game " + gameID + ": " + e.getMessage());
+        }
+    }
+
+    // One game's moves in ply order, which have to follow on from each other
+    private static final class MoveLog {
+        private int firstPly;
+        private int[] moves = new int[16];
+        private int size;
+
+        void add(int ply, short move) throws DataAccessException {
+            if (size == 0) {
+                firstPly = ply;
+            } else if (ply != firstPly + size) {
+                throw new DataAccessException("Missing move " + (firstPly + size) + " before move " + ply);
+            }
+            if (size == moves.length) {
+                moves = Arrays.copyOf(moves, size * 2);
+            }
+            moves[size++] = move & 0xFFFF;
         }
 
-        @Override
-        public ChessGame deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) {
-            return context.deserialize(json, ChessGame.class);
+        int nextPly() {
+            return firstPly + size;
         }
     }
-} 
\ No newline at end of file
+}
@@ -1,9 +1,13 @@
 package server;
 
+import chess.ChessJson;
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import dataaccess.GameDAO;
 import exception.AlreadyTakenException;
 import exception.BadRequestException;
 import exception.UnauthorizedException;
+import model.GameData;
 import request.*;
 import result.*;
 import service.ClearService;
@@ -12,6 +16,10 @@ import service.UserService;
 import spark.Request;
 import spark.Response;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 /**
@@ -36,8 +44,8 @@ public class Handler {
         gameService = new GameService();
         clearService = new ClearService();
         
-        // Set up Gson for JSON conversion
-        gson = new Gson();
+        // Set up Gson for JSON conversion, with games sent as FEN
+        gson = ChessJson.gson();
     }
     
     /**
@@ -128,33 +136,90 @@ public class Handler {
     }
     
     /**
-     * Gets a list of all games
+     * Gets a list of all games, writing each one to the response as it's read
+     * instead of building the whole list and then one big string of it
      */
     public Object listGames(Request req, Response res) {
         res.type("application/json");
         
+        // Need the auth token from the header
+        String authToken = req.headers("Authorization");
+        
+        // Create the request
+        ListGamesRequest request = new ListGamesRequest(authToken);
+        GameListWriter out = new GameListWriter(res);
+        
         try {
-            // Need the auth token from the header
-            String authToken = req.headers("Authorization");
-            
-            // Create the request
-            ListGamesRequest request = new ListGamesRequest(authToken);
-            
-            // Get the games from the service
-            ListGamesResult result = gameService.listGames(request);
-            
-            // Return the list as JSON
-            return gson.toJson(result);
+            // The service checks the token before handing over any games
+            gameService.listGames(request, out);
+            out.finish();
+            return "";
         } catch (UnauthorizedException e) {
-            // Not logged in
+            // Not logged in, so nothing has been written yet
             res.status(401);
             return gson.toJson(Map.of("message", "Error: " + e.getMessage()));
         } catch (Exception e) {
+            if (out.started()) {
+                // Part of the list is already sent, too late for an error status, so drop
+                // the connection rather than end the response as if the list were whole
+                abort(req, e);
+                return "";
+            }
             // Other error
             res.status(500);
             return gson.toJson(Map.of("message", "Error: " + e.getMessage()));
         }
     }
+
+    // Breaks off a response that's already under way, so the client sees a failed transfer
+    private static void abort(Request req, Exception cause) {
+        org.eclipse.jetty.server.Request base = org.eclipse.jetty.server.Request.getBaseRequest(req.raw());
+        if (base == null) {
+            throw new IllegalStateException("Response broke off partway", cause);
+        }
+        base.getHttpChannel().abort(cause);
+    }
+
+    /**
+     * Writes {"games": [...]} straight to the response, only starting when the
+     * first game arrives (or at the end if there are none) so errors before
+     * then can still get a normal error response
+     */
+    private final class GameListWriter implements GameDAO.GameCallback {
+        private final Response res;
+        private JsonWriter writer;
+
+        GameListWriter(Response res) {
+            this.res = res;
+        }
+
+        @Override
+        public void accept(GameData game) throws IOException {
+            start();
+            gson.toJson(game, GameData.class, writer);
+        }
+
+        boolean started() {
+            return writer != null;
+        }
+
+        void finish() throws IOException {
+            start();
+            writer.endArray();
+            writer.endObject();
+            writer.flush();
+        }
+
+        private void start() throws IOException {
+            if (writer == null) {
+                writer = gson.newJsonWriter(new BufferedWriter(
+                        new OutputStreamWriter(res.raw().getOutputStream(), StandardCharsets.UTF_8)));
+                writer.beginObject();
+                writer.name("games");
+                writer.beginArray();
+            }
+        }
+    }
     
     /**
      * Creates a new game
@@ -13,6 +13,7 @@ import result.CreateGameResult;
 import result.JoinGameResult;
 import result.ListGamesResult;
 
+import java.io.IOException;
 import java.util.Collection;
 
 /**
@@ -50,6 +51,21 @@ public class GameService {
         return new ListGamesResult(games);
     }
 
+    /**
+     * Lists all available games by handing them to a callback one at a time, so they
+     * can be written out as they're read. The user is checked before the first one.
+     */
+    public void listGames(ListGamesRequest request, GameDAO.GameCallback callback)
+            throws DataAccessException, UnauthorizedException, IOException {
+        // Nothing gets passed on unless the user is authenticated
+        AuthData authData = authDAO.getAuth(request.authToken());
+        if (authData == null) {
+            throw new UnauthorizedException("Please log in first");
+        }
+
+        gameDAO.forEachGame(callback);
+    }
+
     /**
      * Creates a new chess game
      */
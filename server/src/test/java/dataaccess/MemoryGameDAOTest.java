@@ -0,0 +1,71 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MemoryGameDAOTest {
+    private MemoryGameDAO gameDAO;
+
+    @BeforeEach
+    public void setUp() throws DataAccessException {
+        gameDAO = MemoryGameDAO.getInstance();
+        gameDAO.clear();
+    }
+
+    @Test
+    public void testAppendMove_Success() throws DataAccessException {
+        // Arrange
+        int gameID = gameDAO.createGame("Test Game");
+        ChessMove e4 = move(2, 5, 4, 5);
+        ChessMove e5 = move(7, 5, 5, 5);
+
+        // Act
+        gameDAO.appendMove(gameID, 0, e4);
+        gameDAO.appendMove(gameID, 1, e5);
+
+        // Assert
+        ChessGame expected = new ChessGame();
+        expected.applyAll(List.of(e4, e5));
+        assertEquals(expected.getBoard(), gameDAO.loadGame(gameID).getBoard());
+        assertEquals(expected.getBoard(), gameDAO.getGame(gameID).game().getBoard());
+        assertEquals(ChessGame.TeamColor.WHITE, gameDAO.loadGame(gameID).getTeamTurn());
+    }
+
+    @Test
+    public void testAppendMove_OutOfOrder() throws DataAccessException {
+        // Arrange
+        int gameID = gameDAO.createGame("Test Game");
+        gameDAO.appendMove(gameID, 0, move(2, 5, 4, 5));
+
+        // Act & Assert
+        assertThrows(DataAccessException.class, () -> gameDAO.appendMove(gameID, 0, move(7, 5, 5, 5)));
+        assertThrows(DataAccessException.class, () -> gameDAO.appendMove(gameID, 2, move(7, 5, 5, 5)));
+    }
+
+    @Test
+    public void testAppendMove_Illegal() throws DataAccessException {
+        // Arrange
+        int gameID = gameDAO.createGame("Test Game");
+
+        // Act & Assert: white can't move three squares, and nothing gets recorded
+        assertThrows(DataAccessException.class, () -> gameDAO.appendMove(gameID, 0, move(2, 5, 5, 5)));
+        assertThrows(DataAccessException.class, () -> gameDAO.appendMove(999, 0, move(2, 5, 4, 5)));
+        assertEquals(new ChessGame().getBoard(), gameDAO.loadGame(gameID).getBoard());
+    }
+
+    @Test
+    public void testLoadGame_GameDoesNotExist() throws DataAccessException {
+        assertNull(gameDAO.loadGame(999));
+    }
+
+    private static ChessMove move(int fromRow, int fromCol, int toRow, int toCol) {
+        return new ChessMove(new ChessPosition(fromRow, fromCol), new ChessPosition(toRow, toCol), null);
+    }
+}
@@ -1,12 +1,19 @@
 package dataaccess;
 
 import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.GameCodec;
+import com.google.gson.Gson;
 import model.GameData;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -20,7 +27,10 @@ public class MySqlGameDAOTest {
         
         // Drop and recreate the games table directly
         try (Connection conn = DatabaseManager.getConnection()) {
-            // Drop the table
+            // Drop the tables, moves first as they refer to games
+            try (var statement = conn.prepareStatement("DROP TABLE IF EXISTS game_moves")) {
+                statement.executeUpdate();
+            }
             try (var statement = conn.prepareStatement("DROP TABLE IF EXISTS games")) {
                 statement.executeUpdate();
             }
@@ -32,14 +42,28 @@ public class MySqlGameDAOTest {
                     white_username VARCHAR(255),
                     black_username VARCHAR(255),
                     game_name VARCHAR(255) NOT NULL,
-                    game_data TEXT NOT NULL,
+                    game_data BLOB NOT NULL,
+                    snapshot BLOB,
+                    snapshot_ply INT NOT NULL DEFAULT 0,
                     PRIMARY KEY (game_id)
                 )
             """;
+            String createMovesTable = """
+                CREATE TABLE IF NOT EXISTS game_moves (
+                    game_id INT NOT NULL,
+                    ply INT NOT NULL,
+                    move SMALLINT NOT NULL,
+                    PRIMARY KEY (game_id, ply),
+                    FOREIGN KEY (game_id) REFERENCES games(game_id) ON DELETE CASCADE
+                )
+            """;
             
             try (var statement = conn.prepareStatement(createGamesTable)) {
                 statement.executeUpdate();
             }
+            try (var statement = conn.prepareStatement(createMovesTable)) {
+                statement.executeUpdate();
+            }
         } catch (SQLException e) {
             throw new DataAccessException("Error setting up test: " + e.getMessage());
         }
@@ -164,4 +188,139 @@ public class MySqlGameDAOTest {
         List<GameData> games = gameDAO.listGames();
         assertTrue(games.isEmpty());
     }
-} 
\ No newline at end of file
+
+    @Test
+    public void testGetGame_UpgradesJsonRow() throws DataAccessException, SQLException {
+        // Arrange: a row saved as JSON before game_data was binary
+        try (Connection conn = DatabaseManager.getConnection();
+             var statement = conn.prepareStatement(
+                     "INSERT INTO games (game_id, game_name, game_data) VALUES (42, 'Old Game', ?)")) {
+            statement.setBytes(1, new Gson().toJson(new ChessGame()).getBytes(StandardCharsets.UTF_8));
+            statement.executeUpdate();
+        }
+
+        // Act
+        GameData game = gameDAO.getGame(42);
+
+        // Assert
+        assertEquals(new ChessGame().getBoard(), game.game().getBoard());
+        try (Connection conn = DatabaseManager.getConnection();
+             var statement = conn.prepareStatement("SELECT game_data FROM games WHERE game_id = 42");
+             var resultSet = statement.executeQuery()) {
+            assertTrue(resultSet.next());
+            assertTrue(GameCodec.isCurrent(resultSet.getBytes("game_data")));
+        }
+    }
+
+    @Test
+    public void testGetGame_CorruptRow() throws SQLException, DataAccessException {
+        // Arrange
+        try (Connection conn = DatabaseManager.getConnection();
+             var statement = conn.prepareStatement(
+                     "INSERT INTO games (game_id, game_name, game_data) VALUES (43, 'Bad Game', ?)")) {
+            statement.setBytes(1, new byte[]{0, 99});
+            statement.executeUpdate();
+        }
+
+        // Act & Assert
+        assertThrows(DataAccessException.class, () -> gameDAO.getGame(43));
+    }
+
+    @Test
+    public void testAppendMove_LoadGameReplays() throws DataAccessException {
+        // Arrange: enough moves to pass a snapshot, shuffling knights out and back
+        int gameID = gameDAO.createGame("Long Game");
+        ChessMove[] cycle = {
+            move(1, 7, 3, 6), move(8, 7, 6, 6), move(3, 6, 1, 7), move(6, 6, 8, 7)
+        };
+        int plies = MySqlGameDAO.SNAPSHOT_INTERVAL + 2;
+
+        // Act
+        for (int ply = 0; ply < plies; ply++) {
+            gameDAO.appendMove(gameID, ply, cycle[ply % cycle.length]);
+        }
+        ChessGame loaded = gameDAO.loadGame(gameID);
+
+        // Assert: 34 plies is eight whole cycles plus Nf3 Nf6
+        ChessGame expected = new ChessGame();
+        expected.applyAll(List.of(cycle[0], cycle[1]));
+        assertEquals(expected.getBoard(), loaded.getBoard());
+        assertEquals(ChessGame.TeamColor.WHITE, loaded.getTeamTurn());
+        assertEquals(expected.getBoard(), gameDAO.getGame(gameID).game().getBoard());
+        assertEquals(expected.getBoard(), gameDAO.listGames().get(0).game().getBoard());
+    }
+
+    @Test
+    public void testAppendMove_DuplicatePly() throws DataAccessException {
+        // Arrange
+        int gameID = gameDAO.createGame("Test Game");
+        gameDAO.appendMove(gameID, 0, move(2, 5, 4, 5));
+
+        // Act & Assert
+        assertThrows(DataAccessException.class, () -> gameDAO.appendMove(gameID, 0, move(2, 4, 4, 4)));
+        assertThrows(DataAccessException.class, () -> gameDAO.appendMove(999, 0, move(2, 4, 4, 4)));
+    }
+
+    @Test
+    public void testAppendMove_GapOrIllegal() throws DataAccessException {
+        // Arrange
+        int gameID = gameDAO.createGame("Test Game");
+        gameDAO.appendMove(gameID, 0, move(2, 5, 4, 5));
+
+        // Act & Assert: skipping ply 1, or black moving three squares, is refused
+        assertThrows(DataAccessException.class, () -> gameDAO.appendMove(gameID, 2, move(2, 4, 4, 4)));
+        assertThrows(DataAccessException.class, () -> gameDAO.appendMove(gameID, 1, move(7, 5, 4, 5)));
+
+        // Nothing was recorded, so the game still loads and takes the real next move
+        ChessGame expected = new ChessGame();
+        expected.applyAll(List.of(move(2, 5, 4, 5)));
+        assertEquals(expected.getBoard(), gameDAO.loadGame(gameID).getBoard());
+        gameDAO.appendMove(gameID, 1, move(7, 5, 5, 5));
+        assertEquals(ChessGame.TeamColor.WHITE, gameDAO.loadGame(gameID).getTeamTurn());
+    }
+
+    @Test
+    public void testForEachGame_MovesAndOldRows() throws DataAccessException, SQLException, IOException {
+        // Arrange: two games with their moves interleaved, and an old JSON row with none
+        int gameID1 = gameDAO.createGame("Game 1");
+        int gameID2 = gameDAO.createGame("Game 2");
+        gameDAO.appendMove(gameID1, 0, move(2, 5, 4, 5));
+        gameDAO.appendMove(gameID2, 0, move(2, 4, 4, 4));
+        gameDAO.appendMove(gameID1, 1, move(7, 5, 5, 5));
+        try (Connection conn = DatabaseManager.getConnection();
+             var statement = conn.prepareStatement(
+                     "INSERT INTO games (game_id, game_name, game_data) VALUES (99, 'Old Game', ?)")) {
+            statement.setBytes(1, new Gson().toJson(new ChessGame()).getBytes(StandardCharsets.UTF_8));
+            statement.executeUpdate();
+        }
+
+        // Act
+        List<GameData> games = new ArrayList<>();
+        gameDAO.forEachGame(games::add);
+
+        // Assert: in game_id order, each with only its own moves, and the old row rewritten
+        assertEquals(List.of(gameID1, gameID2, 99), games.stream().map(GameData::gameID).toList());
+        ChessGame expected1 = new ChessGame();
+        expected1.applyAll(List.of(move(2, 5, 4, 5), move(7, 5, 5, 5)));
+        ChessGame expected2 = new ChessGame();
+        expected2.applyAll(List.of(move(2, 4, 4, 4)));
+        assertEquals(expected1.getBoard(), games.get(0).game().getBoard());
+        assertEquals(expected2.getBoard(), games.get(1).game().getBoard());
+        assertEquals(new ChessGame().getBoard(), games.get(2).game().getBoard());
+        try (Connection conn = DatabaseManager.getConnection();
+             var statement = conn.prepareStatement("SELECT game_data FROM games WHERE game_id = 99");
+             var resultSet = statement.executeQuery()) {
+            assertTrue(resultSet.next());
+            assertTrue(GameCodec.isCurrent(resultSet.getBytes("game_data")));
+        }
+    }
+
+    @Test
+    public void testLoadGame_GameDoesNotExist() throws DataAccessException {
+        assertNull(gameDAO.loadGame(999));
+    }
+
+    private static ChessMove move(int fromRow, int fromCol, int toRow, int toCol) {
+        return new ChessMove(new ChessPosition(fromRow, fromCol), new ChessPosition(toRow, toCol), null);
+    }
+}
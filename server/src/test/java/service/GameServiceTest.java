@@ -18,7 +18,9 @@ import result.RegisterResult;
 import dataaccess.*;
 import chess.ChessGame;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -81,6 +83,30 @@ public class GameServiceTest {
         assertTrue(foundPawnStars, "Couldn't find the Pawn Stars game!");
     }
     
+    @Test
+    public void listGamesStreamingPositive() throws Exception {
+        // Same games as the list, just handed over one at a time
+        gameService.createGame(new CreateGameRequest(authToken, "Chess Ninjas"));
+        gameService.createGame(new CreateGameRequest(authToken, "Pawn Stars"));
+        
+        List<String> names = new ArrayList<>();
+        gameService.listGames(new ListGamesRequest(authToken), game -> names.add(game.gameName()));
+        
+        assertEquals(2, names.size(), "Should have seen exactly 2 games");
+        assertTrue(names.containsAll(List.of("Chess Ninjas", "Pawn Stars")), "Missing a game: " + names);
+    }
+    
+    @Test
+    public void listGamesStreamingNegativeInvalidAuth() throws Exception {
+        // A bad token has to fail before a single game gets out
+        gameService.createGame(new CreateGameRequest(authToken, "Top Secret"));
+        List<GameData> seen = new ArrayList<>();
+        
+        assertThrows(UnauthorizedException.class,
+            () -> gameService.listGames(new ListGamesRequest("bogus-token"), seen::add));
+        assertTrue(seen.isEmpty(), "Games were handed over without a valid login");
+    }
+    
     @Test
     public void listGamesNegativeInvalidAuth() {
         // Try with a made-up auth token
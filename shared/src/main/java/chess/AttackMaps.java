@@ -0,0 +1,232 @@
+package chess;
+
+/**
+ * Computes board-wide attack maps and mobility counts from a board's bitboards,
+ * and per-square attacker counts for when it matters how many pieces hit a square
+ * and which is the cheapest.
+ * <p>
+ * get() returns an implementation built on the incubating Vector API when the JVM
+ * was started with {@code --add-modules jdk.incubator.vector} on hardware with
+ * 256-bit vectors, and a plain scalar one otherwise. Both give identical results;
+ * counts and attackCount are the same code in both.
+ */
+public abstract class AttackMaps {
+    private static final AttackMaps BEST = load();
+
+    /**
+     * @return the fastest implementation available in this JVM
+     */
+    public static AttackMaps get() {
+        return BEST;
+    }
+
+    /**
+     * @return the implementation that doesn't use the Vector API
+     */
+    public static AttackMaps scalar() {
+        return ScalarAttackMaps.INSTANCE;
+    }
+
+    /**
+     * @return every square attacked by at least one piece of the given color
+     */
+    public long attacks(ChessBoard board, ChessGame.TeamColor color) {
+        return attacks(board, color, board.occupied());
+    }
+
+    /**
+     * Same as attacks(board, color), with sliders blocked only by the squares in
+     * occupied, e.g. with a king taken off so its own moves can't hide behind it
+     */
+    public abstract long attacks(ChessBoard board, ChessGame.TeamColor color, long occupied);
+
+    /**
+     * Counts the squares each knight, bishop, rook, queen and king of the given color
+     * could move to, ignoring checks. Pawns are not counted.
+     *
+     * @return the total number of reachable squares summed over pieces
+     */
+    public abstract int mobility(ChessBoard board, ChessGame.TeamColor color);
+
+    /**
+     * Counts, for every square, how many of one side's pieces attack it and which
+     * is the cheapest, in one sweep over the pieces
+     */
+    public final Counts counts(ChessBoard board, ChessGame.TeamColor color) {
+        Counts counts = new Counts();
+        long occupied = board.occupied();
+
+        // Each pawn attacks at most one square per side, so each side is one whole-board add
+        long pawns = board.pieces(color, ChessPiece.PieceType.PAWN);
+        long west = color == ChessGame.TeamColor.WHITE ? pawns << 7 & Bitboards.NOT_FILE_H : pawns >>> 9 & Bitboards.NOT_FILE_H;
+        long east = color == ChessGame.TeamColor.WHITE ? pawns << 9 & Bitboards.NOT_FILE_A : pawns >>> 7 & Bitboards.NOT_FILE_A;
+        counts.add(0, west);
+        counts.add(0, east);
+
+        for (int type = 1; type < Counts.BY_VALUE.length; type++) {
+            for (long bits = board.pieces(color, Counts.BY_VALUE[type]); bits != 0; bits &= bits - 1) {
+                int square = Long.numberOfTrailingZeros(bits);
+                counts.add(type, switch (Counts.BY_VALUE[type]) {
+                    case KNIGHT -> Bitboards.knightAttacks(square);
+                    case BISHOP -> Bitboards.bishopAttacks(square, occupied);
+                    case ROOK -> Bitboards.rookAttacks(square, occupied);
+                    case QUEEN -> Bitboards.queenAttacks(square, occupied);
+                    default -> Bitboards.kingAttacks(square);
+                });
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Same as counts(board, color).count(squares), without building the counts:
+     * each piece's attacks are checked against the squares straight away, so
+     * nothing is allocated
+     *
+     * @return the total number of attacks on the squares, so a square hit twice counts twice
+     */
+    public final int attackCount(ChessBoard board, ChessGame.TeamColor color, long squares) {
+        long occupied = board.occupied();
+        long pawns = board.pieces(color, ChessPiece.PieceType.PAWN);
+        long west = color == ChessGame.TeamColor.WHITE ? pawns << 7 & Bitboards.NOT_FILE_H : pawns >>> 9 & Bitboards.NOT_FILE_H;
+        long east = color == ChessGame.TeamColor.WHITE ? pawns << 9 & Bitboards.NOT_FILE_A : pawns >>> 7 & Bitboards.NOT_FILE_A;
+        int total = Long.bitCount(west & squares) + Long.bitCount(east & squares);
+
+        for (long bits = board.pieces(color, ChessPiece.PieceType.KNIGHT); bits != 0; bits &= bits - 1) {
+            total += Long.bitCount(Bitboards.knightAttacks(Long.numberOfTrailingZeros(bits)) & squares);
+        }
+        for (long bits = board.pieces(color, ChessPiece.PieceType.BISHOP); bits != 0; bits &= bits - 1) {
+            total += Long.bitCount(Bitboards.bishopAttacks(Long.numberOfTrailingZeros(bits), occupied) & squares);
+        }
+        for (long bits = board.pieces(color, ChessPiece.PieceType.ROOK); bits != 0; bits &= bits - 1) {
+            total += Long.bitCount(Bitboards.rookAttacks(Long.numberOfTrailingZeros(bits), occupied) & squares);
+        }
+        for (long bits = board.pieces(color, ChessPiece.PieceType.QUEEN); bits != 0; bits &= bits - 1) {
+            total += Long.bitCount(Bitboards.queenAttacks(Long.numberOfTrailingZeros(bits), occupied) & squares);
+        }
+        for (long bits = board.pieces(color, ChessPiece.PieceType.KING); bits != 0; bits &= bits - 1) {
+            total += Long.bitCount(Bitboards.kingAttacks(Long.numberOfTrailingZeros(bits)) & squares);
+        }
+        return total;
+    }
+
+    /**
+     * @return true if this implementation uses the Vector API
+     */
+    public boolean isVectorized() {
+        return false;
+    }
+
+    // The vector class can only be loaded when the incubator module is present
+    private static AttackMaps load() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return scalar();
+        }
+        try {
+            if (VectorAttackMaps.isEfficient()) {
+                return new VectorAttackMaps();
+            }
+        } catch (LinkageError e) {
+            // Fall through to the scalar version
+        }
+        return scalar();
+    }
+
+    /**
+     * How hard one side hits every square: the number of its pieces attacking each
+     * square and the cheapest of them. Pieces standing in the way block sliders as
+     * usual, whichever side they belong to, and a piece defending one of its own
+     * side counts as attacking that square.
+     * <p>
+     * Counts are kept bit-sliced: plane i holds bit i of every square's count, so
+     * adding a piece's attacks to all 64 counters at once is a few ANDs and XORs
+     * rippling a carry up the planes.
+     * Pieces are swept cheapest first, so the first type to reach a square is its
+     * least valuable attacker. Counts are a snapshot and never change.
+     */
+    public static final class Counts {
+        // Enough for 31 attackers on a square, more than any legal position can have
+        private static final int PLANES = 5;
+
+        // Piece types from least to most valuable
+        private static final ChessPiece.PieceType[] BY_VALUE = {
+            ChessPiece.PieceType.PAWN, ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.ROOK, ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.KING
+        };
+
+        private final long[] counts = new long[PLANES];
+        // Squares attacked by each type, in BY_VALUE order
+        private final long[] byType = new long[BY_VALUE.length];
+        private long attacked;
+
+        private Counts() {
+        }
+
+        // Adds one to the count of every square in attacks
+        private void add(int type, long attacks) {
+            byType[type] |= attacks;
+            attacked |= attacks;
+            long carry = attacks;
+            for (int plane = 0; plane < PLANES && carry != 0; plane++) {
+                long next = counts[plane] & carry;
+                counts[plane] ^= carry;
+                carry = next;
+            }
+        }
+
+        /**
+         * @return how many pieces attack the square
+         */
+        public int count(ChessPosition position) {
+            return count(PositionCodec.square(position));
+        }
+
+        int count(int square) {
+            int count = 0;
+            for (int plane = 0; plane < PLANES; plane++) {
+                count |= (int) (counts[plane] >>> square & 1) << plane;
+            }
+            return count;
+        }
+
+        /**
+         * @return the total number of attacks on a set of squares, so a square hit
+         * twice counts twice
+         */
+        int count(long squares) {
+            int total = 0;
+            for (int plane = 0; plane < PLANES; plane++) {
+                total += Long.bitCount(counts[plane] & squares) << plane;
+            }
+            return total;
+        }
+
+        /**
+         * @return the type of the cheapest piece attacking the square, or null if
+         * nothing attacks it
+         */
+        public ChessPiece.PieceType leastValuableAttacker(ChessPosition position) {
+            return leastValuableAttacker(PositionCodec.square(position));
+        }
+
+        ChessPiece.PieceType leastValuableAttacker(int square) {
+            for (int type = 0; type < BY_VALUE.length; type++) {
+                if ((byType[type] >>> square & 1) != 0) {
+                    return BY_VALUE[type];
+                }
+            }
+            return null;
+        }
+
+        public boolean isAttacked(ChessPosition position) {
+            return (attacked >>> PositionCodec.square(position) & 1) != 0;
+        }
+
+        /**
+         * @return every attacked square as a bitboard (bit 0 = a1)
+         */
+        public long attacked() {
+            return attacked;
+        }
+    }
+}
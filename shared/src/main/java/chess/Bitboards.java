@@ -0,0 +1,181 @@
+package chess;
+
+/**
+ * Precomputed attack tables and helpers for 64-bit bitboards, where bit 0 is a1,
+ * bit 7 is h1 and bit 63 is h8 (the same square numbering as PositionCodec).
+ */
+public final class Bitboards {
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long NOT_FILE_A = ~FILE_A;
+    public static final long NOT_FILE_H = ~FILE_H;
+    public static final long RANK_1 = 0xFFL;
+    public static final long RANK_8 = RANK_1 << 56;
+
+    // Ray directions as {row step, column step}; the first four point towards higher squares
+    static final int[][] DIRECTIONS = {
+        {1, 0}, {0, 1}, {1, 1}, {1, -1},
+        {-1, 0}, {0, -1}, {-1, -1}, {-1, 1}
+    };
+
+    static final long[] KNIGHT_ATTACKS = new long[64];
+    static final long[] KING_ATTACKS = new long[64];
+    // Squares a pawn of each color (white = 0) attacks from each square
+    static final long[][] PAWN_ATTACKS = new long[2][64];
+    // Squares reached in each direction from each square on an empty board
+    static final long[][] RAYS = new long[8][64];
+    // Squares strictly between two squares on a shared line, and the whole line through both
+    static final long[][] BETWEEN = new long[64][64];
+    static final long[][] LINE = new long[64][64];
+    // Each file, the files either side of it, and the squares a pawn of each color
+    // must find free of enemy pawns to be passed
+    static final long[] FILES = new long[8];
+    static final long[] ADJACENT_FILES = new long[8];
+    static final long[][] PASSED_SPAN = new long[2][64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            int row = square / 8;
+            int col = square % 8;
+            for (int[] step : new int[][]{{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}}) {
+                KNIGHT_ATTACKS[square] |= bit(row + step[0], col + step[1]);
+            }
+            for (int[] step : DIRECTIONS) {
+                KING_ATTACKS[square] |= bit(row + step[0], col + step[1]);
+            }
+            PAWN_ATTACKS[0][square] = bit(row + 1, col - 1) | bit(row + 1, col + 1);
+            PAWN_ATTACKS[1][square] = bit(row - 1, col - 1) | bit(row - 1, col + 1);
+            for (int d = 0; d < 8; d++) {
+                for (int r = row + DIRECTIONS[d][0], c = col + DIRECTIONS[d][1]; bit(r, c) != 0;
+                     r += DIRECTIONS[d][0], c += DIRECTIONS[d][1]) {
+                    RAYS[d][square] |= bit(r, c);
+                }
+            }
+        }
+        for (int file = 0; file < 8; file++) {
+            FILES[file] = FILE_A << file;
+        }
+        for (int file = 0; file < 8; file++) {
+            ADJACENT_FILES[file] = (file > 0 ? FILES[file - 1] : 0L) | (file < 7 ? FILES[file + 1] : 0L);
+        }
+        for (int square = 0; square < 64; square++) {
+            long span = FILES[square & 7] | ADJACENT_FILES[square & 7];
+            int rank = square >> 3;
+            PASSED_SPAN[0][square] = rank == 7 ? 0L : span & -1L << (rank + 1) * 8;
+            PASSED_SPAN[1][square] = rank == 0 ? 0L : span & -1L >>> (8 - rank) * 8;
+        }
+        for (int square = 0; square < 64; square++) {
+            for (int d = 0; d < 8; d++) {
+                for (long ray = RAYS[d][square]; ray != 0; ray &= ray - 1) {
+                    int other = Long.numberOfTrailingZeros(ray);
+                    BETWEEN[square][other] = RAYS[d][square] & ~RAYS[d][other] & ~(1L << other);
+                    LINE[square][other] = RAYS[d][square] | RAYS[(d + 4) % 8][square] | 1L << square;
+                }
+            }
+        }
+    }
+
+    private Bitboards() {
+    }
+
+    // Single bit for a zero-based row and column, or 0 if off the board
+    private static long bit(int row, int col) {
+        return row >= 0 && row < 8 && col >= 0 && col < 8 ? 1L << (row * 8 + col) : 0L;
+    }
+
+    /**
+     * @return 0 for white and 1 for black, for indexing per-color tables
+     */
+    public static int colorIndex(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? 0 : 1;
+    }
+
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * @return the squares a pawn of the given color (0 = white) on square attacks
+     */
+    public static long pawnAttacks(int color, int square) {
+        return PAWN_ATTACKS[color][square];
+    }
+
+    /**
+     * @return the squares strictly between two squares on the same rank, file or
+     * diagonal, or 0 if they don't share one
+     */
+    public static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    /**
+     * @return every square on the rank, file or diagonal through both squares,
+     * or 0 if they don't share one
+     */
+    public static long line(int from, int to) {
+        return LINE[from][to];
+    }
+
+    public static long rookAttacks(int square, long occupied) {
+        return rayAttacks(0, square, occupied) | rayAttacks(1, square, occupied)
+                | rayAttacks(4, square, occupied) | rayAttacks(5, square, occupied);
+    }
+
+    public static long bishopAttacks(int square, long occupied) {
+        return rayAttacks(2, square, occupied) | rayAttacks(3, square, occupied)
+                | rayAttacks(6, square, occupied) | rayAttacks(7, square, occupied);
+    }
+
+    public static long queenAttacks(int square, long occupied) {
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+
+    // Ray up to and including the first blocker
+    static long rayAttacks(int direction, int square, long occupied) {
+        long ray = RAYS[direction][square];
+        long blockers = ray & occupied;
+        if (blockers == 0) {
+            return ray;
+        }
+        int first = direction < 4 ? Long.numberOfTrailingZeros(blockers) : 63 - Long.numberOfLeadingZeros(blockers);
+        return ray ^ RAYS[direction][first];
+    }
+
+    /**
+     * @return all squares attacked by a set of white (color 0) or black pawns
+     */
+    public static long pawnAttacksAll(int color, long pawns) {
+        if (color == 0) {
+            return (pawns << 7 & NOT_FILE_H) | (pawns << 9 & NOT_FILE_A);
+        }
+        return (pawns >>> 9 & NOT_FILE_H) | (pawns >>> 7 & NOT_FILE_A);
+    }
+
+    /**
+     * @return all squares attacked by a set of kings
+     */
+    public static long kingAttacksAll(long kings) {
+        long east = kings << 1 & NOT_FILE_A;
+        long west = kings >>> 1 & NOT_FILE_H;
+        long row = kings | east | west;
+        return east | west | row << 8 | row >>> 8;
+    }
+
+    /**
+     * @return all squares attacked by a set of knights
+     */
+    public static long knightAttacksAll(long knights) {
+        long l1 = knights >>> 1 & 0x7F7F7F7F7F7F7F7FL;
+        long l2 = knights >>> 2 & 0x3F3F3F3F3F3F3F3FL;
+        long r1 = knights << 1 & 0xFEFEFEFEFEFEFEFEL;
+        long r2 = knights << 2 & 0xFCFCFCFCFCFCFCFCL;
+        long h1 = l1 | r1;
+        long h2 = l2 | r2;
+        return h1 << 16 | h1 >>> 16 | h2 << 8 | h2 >>> 8;
+    }
+}
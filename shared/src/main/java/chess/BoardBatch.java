@@ -0,0 +1,272 @@
+package chess;
+
+/**
+ * Many positions at once in a structure-of-arrays layout: one long[] per piece
+ * code holding that piece's bitboard for every position, plus the side to move.
+ * analyze() then works out each position's legal move count, check and game-over
+ * status in one pass over the arrays, without building boards, moves or games.
+ * <p>
+ * Legal moves are counted from the checking pieces and pinned pieces, so nothing
+ * is played on a board. Like ChessGame, castling and en passant are not included,
+ * and a side without a king is never in check.
+ */
+public final class BoardBatch {
+    /**
+     * Game status codes returned by status()
+     */
+    public static final byte ONGOING = 0;
+    public static final byte CHECKMATE = 1;
+    public static final byte STALEMATE = 2;
+
+    private static final int PAWN = ChessPiece.PieceType.PAWN.ordinal() + 1;
+    private static final int KNIGHT = ChessPiece.PieceType.KNIGHT.ordinal() + 1;
+    private static final int BISHOP = ChessPiece.PieceType.BISHOP.ordinal() + 1;
+    private static final int ROOK = ChessPiece.PieceType.ROOK.ordinal() + 1;
+    private static final int QUEEN = ChessPiece.PieceType.QUEEN.ordinal() + 1;
+    private static final int KING = ChessPiece.PieceType.KING.ordinal() + 1;
+
+    // Indexed by PositionCodec piece code, then position
+    private final long[][] pieces = new long[16][];
+    private final boolean[] blackToMove;
+    private final int[] legalMoves;
+    private final boolean[] inCheck;
+    private final byte[] status;
+    private int size;
+
+    /**
+     * @param capacity the most positions the batch can hold
+     */
+    public BoardBatch(int capacity) {
+        for (int code = 0; code < 16; code++) {
+            if ((code & 7) >= KING && (code & 7) <= PAWN) {
+                pieces[code] = new long[capacity];
+            }
+        }
+        blackToMove = new boolean[capacity];
+        legalMoves = new int[capacity];
+        inCheck = new boolean[capacity];
+        status = new byte[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return blackToMove.length;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Adds a game's current position
+     *
+     * @return the position's index
+     * @throws IllegalStateException if the batch is full
+     */
+    public int add(ChessGame game) {
+        return add(game.getBoard(), game.getTeamTurn());
+    }
+
+    public int add(ChessBoard board, ChessGame.TeamColor turn) {
+        if (size == capacity()) {
+            throw new IllegalStateException("Batch is full");
+        }
+        int index = size++;
+        for (int code = 0; code < 16; code++) {
+            if (pieces[code] != null) {
+                pieces[code][index] = board.pieces(code);
+            }
+        }
+        blackToMove[index] = turn == ChessGame.TeamColor.BLACK;
+        return index;
+    }
+
+    /**
+     * Adds a position packed with PositionCodec, without building a board
+     *
+     * @return the position's index
+     */
+    public int add(byte[] encoded, int offset) {
+        if (size == capacity()) {
+            throw new IllegalStateException("Batch is full");
+        }
+        int index = size++;
+        for (int code = 0; code < 16; code++) {
+            if (pieces[code] != null) {
+                pieces[code][index] = 0L;
+            }
+        }
+        for (int square = 0; square < 64; square++) {
+            int code = PositionCodec.pieceCodeAt(encoded, offset, square);
+            if (code != 0) {
+                pieces[code][index] |= 1L << square;
+            }
+        }
+        blackToMove[index] = PositionCodec.decodeTurn(encoded, offset) == ChessGame.TeamColor.BLACK;
+        return index;
+    }
+
+    /**
+     * Analyzes every position in the batch
+     */
+    public void analyze() {
+        analyze(0, size);
+    }
+
+    /**
+     * Analyzes positions from index from up to (not including) to, so separate
+     * ranges can be handed to separate threads
+     */
+    public void analyze(int from, int to) {
+        for (int i = from; i < to; i++) {
+            analyzeOne(i);
+        }
+    }
+
+    /**
+     * @return how many legal moves the side to move had, as of the last analyze
+     */
+    public int legalMoveCount(int index) {
+        return legalMoves[index];
+    }
+
+    public boolean isInCheck(int index) {
+        return inCheck[index];
+    }
+
+    /**
+     * @return ONGOING, CHECKMATE or STALEMATE
+     */
+    public byte status(int index) {
+        return status[index];
+    }
+
+    private void analyzeOne(int i) {
+        int us = blackToMove[i] ? 8 : 0;
+        int them = us ^ 8;
+        long ownPawns = pieces[us | PAWN][i];
+        long ownKnights = pieces[us | KNIGHT][i];
+        long ownBishops = pieces[us | BISHOP][i];
+        long ownRooks = pieces[us | ROOK][i];
+        long ownQueens = pieces[us | QUEEN][i];
+        long ownKing = pieces[us | KING][i];
+        long enemyPawns = pieces[them | PAWN][i];
+        long enemyKnights = pieces[them | KNIGHT][i];
+        long enemyDiagonal = pieces[them | BISHOP][i] | pieces[them | QUEEN][i];
+        long enemyStraight = pieces[them | ROOK][i] | pieces[them | QUEEN][i];
+        long enemyKing = pieces[them | KING][i];
+        long own = ownPawns | ownKnights | ownBishops | ownRooks | ownQueens | ownKing;
+        long enemy = enemyPawns | enemyKnights | enemyDiagonal | enemyStraight | enemyKing;
+        long occupied = own | enemy;
+        int color = us == 0 ? 0 : 1;
+
+        // Pieces giving check, and our pieces pinned to the king
+        long checkers = 0;
+        long pinned = 0;
+        int king = ownKing == 0 ? -1 : Long.numberOfTrailingZeros(ownKing);
+        if (king >= 0) {
+            checkers = (Bitboards.pawnAttacks(color, king) & enemyPawns)
+                    | (Bitboards.knightAttacks(king) & enemyKnights)
+                    | (Bitboards.bishopAttacks(king, occupied) & enemyDiagonal)
+                    | (Bitboards.rookAttacks(king, occupied) & enemyStraight);
+            long snipers = (Bitboards.bishopAttacks(king, 0L) & enemyDiagonal)
+                    | (Bitboards.rookAttacks(king, 0L) & enemyStraight);
+            for (; snipers != 0; snipers &= snipers - 1) {
+                long between = Bitboards.between(king, Long.numberOfTrailingZeros(snipers)) & occupied;
+                if (between != 0 && (between & between - 1) == 0) {
+                    pinned |= between & own;
+                }
+            }
+        }
+
+        // King moves: to squares the enemy doesn't attack once the king has left its square
+        int count = 0;
+        if (king >= 0) {
+            long enemyAttacks = enemyAttacks(them, color ^ 1, i, occupied & ~ownKing);
+            count += Long.bitCount(Bitboards.kingAttacks(king) & ~own & ~enemyAttacks);
+        }
+
+        // Everything else: none in double check, and only blocks or captures of a single checker
+        int checkCount = Long.bitCount(checkers);
+        if (checkCount < 2) {
+            long targets = checkCount == 0 ? ~own
+                    : checkers | Bitboards.between(king, Long.numberOfTrailingZeros(checkers));
+            count += pieceMoves(ownKnights, KNIGHT, king, pinned, occupied, targets)
+                    + pieceMoves(ownBishops, BISHOP, king, pinned, occupied, targets)
+                    + pieceMoves(ownRooks, ROOK, king, pinned, occupied, targets)
+                    + pieceMoves(ownQueens, QUEEN, king, pinned, occupied, targets)
+                    + pawnMoves(ownPawns, color, king, pinned, occupied, enemy, targets);
+        }
+
+        legalMoves[i] = count;
+        inCheck[i] = checkCount > 0;
+        status[i] = count > 0 ? ONGOING : checkCount > 0 ? CHECKMATE : STALEMATE;
+    }
+
+    private long enemyAttacks(int them, int enemyColor, int i, long occupied) {
+        long attacks = Bitboards.pawnAttacksAll(enemyColor, pieces[them | PAWN][i])
+                | Bitboards.knightAttacksAll(pieces[them | KNIGHT][i])
+                | Bitboards.kingAttacksAll(pieces[them | KING][i]);
+        for (long bits = pieces[them | BISHOP][i] | pieces[them | QUEEN][i]; bits != 0; bits &= bits - 1) {
+            attacks |= Bitboards.bishopAttacks(Long.numberOfTrailingZeros(bits), occupied);
+        }
+        for (long bits = pieces[them | ROOK][i] | pieces[them | QUEEN][i]; bits != 0; bits &= bits - 1) {
+            attacks |= Bitboards.rookAttacks(Long.numberOfTrailingZeros(bits), occupied);
+        }
+        return attacks;
+    }
+
+    // A pinned piece can only move along the line through it and its king
+    private static long pinMask(int square, int king, long pinned) {
+        return (pinned & 1L << square) == 0 ? -1L : Bitboards.line(king, square);
+    }
+
+    private static int pieceMoves(long bits, int type, int king, long pinned, long occupied, long targets) {
+        int count = 0;
+        for (; bits != 0; bits &= bits - 1) {
+            int square = Long.numberOfTrailingZeros(bits);
+            long attacks;
+            if (type == KNIGHT) {
+                attacks = Bitboards.knightAttacks(square);
+            } else if (type == BISHOP) {
+                attacks = Bitboards.bishopAttacks(square, occupied);
+            } else if (type == ROOK) {
+                attacks = Bitboards.rookAttacks(square, occupied);
+            } else {
+                attacks = Bitboards.queenAttacks(square, occupied);
+            }
+            count += Long.bitCount(attacks & targets & pinMask(square, king, pinned));
+        }
+        return count;
+    }
+
+    private static int pawnMoves(long pawns, int color, int king, long pinned, long occupied, long enemy, long targets) {
+        int forward = color == 0 ? 8 : -8;
+        int startRank = color == 0 ? 1 : 6;
+        int lastRank = color == 0 ? 7 : 0;
+        int count = 0;
+        for (; pawns != 0; pawns &= pawns - 1) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            int push = from + forward;
+            if (push < 0 || push > 63) {
+                continue;
+            }
+            long allowed = targets & pinMask(from, king, pinned);
+            long destinations = Bitboards.pawnAttacks(color, from) & enemy;
+            if ((occupied & 1L << push) == 0) {
+                destinations |= 1L << push;
+                int doublePush = push + forward;
+                if (from >> 3 == startRank && (occupied & 1L << doublePush) == 0) {
+                    destinations |= 1L << doublePush;
+                }
+            }
+            int moves = Long.bitCount(destinations & allowed);
+            // Each move onto the last rank is four moves, one per promotion piece
+            count += push >> 3 == lastRank ? moves * 4 : moves;
+        }
+        return count;
+    }
+}
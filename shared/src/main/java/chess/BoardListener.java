@@ -0,0 +1,22 @@
+package chess;
+
+/**
+ * Told about every change to a ChessBoard's squares, for state that has to
+ * follow the board one piece at a time, like a neural network's accumulator
+ */
+interface BoardListener {
+
+    /**
+     * A square's piece changed
+     *
+     * @param square  0 = a1 to 63 = h8
+     * @param oldCode PositionCodec code of the piece that was there, or 0
+     * @param newCode PositionCodec code of the piece there now, or 0
+     */
+    void pieceChanged(int square, int oldCode, int newCode);
+
+    /**
+     * The whole board was replaced at once, as by resetBoard
+     */
+    void boardReset(ChessBoard board);
+}
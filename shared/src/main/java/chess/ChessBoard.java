@@ -9,6 +9,20 @@ package chess;
 public class ChessBoard {
 
     private ChessPiece[][] squares = new ChessPiece[8][8];
+
+    // Bitboards kept in step with squares, indexed by PositionCodec piece code,
+    // plus one per color. Built on first use so boards made by Gson work too.
+    private transient long[] pieceBits;
+    private transient long[] colorBits;
+    // Zobrist key of the pieces, kept with the bitboards
+    private transient long zobrist;
+    // The same, counting only pawns
+    private transient long pawnZobrist;
+    // Told about every change, if set
+    private transient BoardListener listener;
+    // Bumped on every change, so cached facts about the position know when they are stale
+    private transient int modCount;
+
     /**
      * Adds a chess piece to the chessboard
      *
@@ -16,7 +30,40 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        squares[position.getRow() - 1][position.getColumn() - 1] = piece;
+        setPiece((position.getRow() - 1) * 8 + position.getColumn() - 1, piece);
+    }
+
+    /**
+     * Gets the piece on a square numbered 0 = a1 to 63 = h8
+     */
+    ChessPiece getPiece(int square) {
+        return squares[square >> 3][square & 7];
+    }
+
+    /**
+     * Puts a piece (or null) on a square numbered 0 = a1 to 63 = h8
+     */
+    void setPiece(int square, ChessPiece piece) {
+        ChessPiece old = squares[square >> 3][square & 7];
+        squares[square >> 3][square & 7] = piece;
+        modCount++;
+        if (listener != null) {
+            listener.pieceChanged(square, PositionCodec.pieceCode(old), PositionCodec.pieceCode(piece));
+        }
+        if (pieceBits != null) {
+            long bit = 1L << square;
+            zobrist ^= Zobrist.PIECES[PositionCodec.pieceCode(old)][square]
+                    ^ Zobrist.PIECES[PositionCodec.pieceCode(piece)][square];
+            pawnZobrist ^= Zobrist.PIECES[pawnCode(old)][square] ^ Zobrist.PIECES[pawnCode(piece)][square];
+            if (old != null) {
+                pieceBits[PositionCodec.pieceCode(old)] &= ~bit;
+                colorBits[Bitboards.colorIndex(old.getTeamColor())] &= ~bit;
+            }
+            if (piece != null) {
+                pieceBits[PositionCodec.pieceCode(piece)] |= bit;
+                colorBits[Bitboards.colorIndex(piece.getTeamColor())] |= bit;
+            }
+        }
     }
 
     /**
@@ -38,6 +85,9 @@ public class ChessBoard {
     public void resetBoard() {
         // Clear the board
         squares = new ChessPiece[8][8];
+        pieceBits = null;
+        colorBits = null;
+        modCount++;
         
         // Set up Blwack pieces
         squares[7][0] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);  
@@ -68,6 +118,10 @@ public class ChessBoard {
         squares[0][5] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP); // b
         squares[0][6] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT); // n
         squares[0][7] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);   // r
+
+        if (listener != null) {
+            listener.boardReset(this);
+        }
     }
 
     public ChessBoard copyBoard() {
@@ -88,7 +142,101 @@ public class ChessBoard {
      * Removes a piece from the position.
      */
     public void removePiece(ChessPosition position) {
-        squares[position.getRow() - 1][position.getColumn() - 1] = null;
+        addPiece(position, null);
+    }
+
+    /**
+     * @return the squares holding pieces with the given PositionCodec code
+     */
+    long pieces(int pieceCode) {
+        ensureBitboards();
+        return pieceBits[pieceCode];
+    }
+
+    long pieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return pieces(PositionCodec.pieceCode(color, type));
+    }
+
+    /**
+     * @return the squares holding pieces of one color
+     */
+    long occupied(ChessGame.TeamColor color) {
+        ensureBitboards();
+        return colorBits[Bitboards.colorIndex(color)];
+    }
+
+    long occupied() {
+        ensureBitboards();
+        return colorBits[0] | colorBits[1];
+    }
+
+    /**
+     * @return the Zobrist key of the pieces on the board, without the side to move
+     */
+    long zobristKey() {
+        ensureBitboards();
+        return zobrist;
+    }
+
+    BoardListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Sets the one listener told about changes to this board, replacing any other
+     */
+    void setListener(BoardListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @return the Zobrist key of just the pawns, for caching pawn structure
+     */
+    long pawnKey() {
+        ensureBitboards();
+        return pawnZobrist;
+    }
+
+    private static boolean isPawn(ChessPiece piece) {
+        return piece != null && piece.getPieceType() == ChessPiece.PieceType.PAWN;
+    }
+
+    // Piece code if it's a pawn, otherwise 0 (whose Zobrist keys are all 0)
+    private static int pawnCode(ChessPiece piece) {
+        return isPawn(piece) ? PositionCodec.pieceCode(piece) : 0;
+    }
+
+    /**
+     * @return a counter that changes whenever a piece is added, removed or moved
+     */
+    int modCount() {
+        return modCount;
+    }
+
+    private void ensureBitboards() {
+        if (pieceBits != null) {
+            return;
+        }
+        long[] pieces = new long[16];
+        long[] colors = new long[2];
+        long key = 0;
+        long pawnKey = 0;
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                ChessPiece piece = squares[row][col];
+                if (piece != null) {
+                    long bit = 1L << (row * 8 + col);
+                    pieces[PositionCodec.pieceCode(piece)] |= bit;
+                    colors[Bitboards.colorIndex(piece.getTeamColor())] |= bit;
+                    key ^= Zobrist.PIECES[PositionCodec.pieceCode(piece)][row * 8 + col];
+                    pawnKey ^= Zobrist.PIECES[pawnCode(piece)][row * 8 + col];
+                }
+            }
+        }
+        zobrist = key;
+        pawnZobrist = pawnKey;
+        colorBits = colors;
+        pieceBits = pieces;
     }
 
     @Override
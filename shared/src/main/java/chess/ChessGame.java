@@ -2,6 +2,7 @@ package chess;
 
 import java.util.Collection;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -14,11 +15,28 @@ public class ChessGame {
     private ChessBoard board;
     private TeamColor teamTurn;
 
+    // Latest published position and the board it was taken from, for readers that
+    // shouldn't touch the live board
+    private transient volatile Published published;
+    // What givesCheck needs to know about the enemy king, cached until the board changes
+    private transient CheckInfo checkInfo;
+
     // constructor
     public ChessGame() {
         board = new ChessBoard();
         board.resetBoard();
         teamTurn = TeamColor.WHITE;
+        publishSnapshot();
+    }
+
+    /**
+     * Starts from a given position, publishing its snapshot once, for code that
+     * builds games from stored or copied positions
+     */
+    ChessGame(ChessBoard board, TeamColor teamTurn) {
+        this.board = board;
+        this.teamTurn = teamTurn;
+        publishSnapshot();
     }
     
     /**
@@ -37,6 +55,7 @@ public class ChessGame {
     public void setTeamTurn(TeamColor team) {
         // set the team turn
         this.teamTurn = team;
+        publishSnapshot();
     }
     
     /**
@@ -61,44 +80,13 @@ public class ChessGame {
             return null;
         }
 
-        // Get the raw moves this piece could make
+        // Every legal move for the piece's side comes from the shared cache, generated on a miss
+        short[] sideMoves = LegalMoveCache.shared().get(this, movingPiece.getTeamColor());
+        int from = PositionCodec.square(startPosition);
         Collection<ChessMove> legalMoves = new ArrayList<>();
-        Collection<ChessMove> rawMoves = movingPiece.pieceMoves(board, startPosition);
-
-        // Test each move to make sure it doesn't put us in check
-        for (ChessMove candidateMove : rawMoves) {
-            // Create a "what-if" board to test this move
-            ChessBoard whatIfBoard = new ChessBoard();
-            
-            // Copy over all the pieces except where we're moving from/to
-            for (int r = 1; r <= 8; r++) {
-                for (int c = 1; c <= 8; c++) {
-                    ChessPosition spot = new ChessPosition(r, c);
-                    ChessPiece pieceAtSpot = board.getPiece(spot);
-                    
-                    if (pieceAtSpot != null) {
-                        whatIfBoard.addPiece(spot, pieceAtSpot);
-                    }
-                }
-            }
-            
-            // Make our hypothetical move
-            whatIfBoard.addPiece(startPosition, null);  // clear starting spot
-            
-            // Handle pawn promotions specially
-            if (candidateMove.getPromotionPiece() != null) {
-                whatIfBoard.addPiece(candidateMove.getEndPosition(), 
-                    new ChessPiece(movingPiece.getTeamColor(), candidateMove.getPromotionPiece()));
-            } else {
-                whatIfBoard.addPiece(candidateMove.getEndPosition(), movingPiece);
-            }
-            
-            // See if this move would leave us in check
-            ChessGame whatIfGame = new ChessGame();
-            whatIfGame.setBoard(whatIfBoard);
-            
-            if (!whatIfGame.isInCheck(movingPiece.getTeamColor())) {
-                legalMoves.add(candidateMove);
+        for (short move : sideMoves) {
+            if ((move & 63) == from) {
+                legalMoves.add(ChessMove.decode(move));
             }
         }
 
@@ -124,31 +112,152 @@ public class ChessGame {
             throw new InvalidMoveException("Wrong team");
         }
 
-        // check if the move is valid
-        if (!validMoves(move.getStartPosition()).contains(move)) {
+        // check if the move is valid, and play it if so
+        if (!tryMove(PositionCodec.square(move.getStartPosition()), PositionCodec.square(move.getEndPosition()),
+                promotionCode(move.getPromotionPiece()))) {
             throw new InvalidMoveException("Invalid move");
         }
+        publishSnapshot();
+    }
 
-        // is it a promotion?
-        if (move.getPromotionPiece() != null) {
-            // check if the promotion is valid
-            if (!validMoves(move.getStartPosition()).contains(move)) {
-                throw new InvalidMoveException("Invalid promotion");
+    /**
+     * Validates and plays a whole sequence of moves, for replaying imported or
+     * stored games. Moves are checked in place on the board without allocating,
+     * and a snapshot is published once at the end rather than after every move.
+     * <p>
+     * If a move is illegal the moves before it stay played and the rest are ignored.
+     *
+     * @param moves the moves to play, in order
+     * @return the index of the first illegal move, or -1 if every move was played
+     */
+    public int applyAll(List<ChessMove> moves) {
+        int played = 0;
+        for (ChessMove move : moves) {
+            if (!tryMove(PositionCodec.square(move.getStartPosition()), PositionCodec.square(move.getEndPosition()),
+                    promotionCode(move.getPromotionPiece()))) {
+                break;
             }
-            // make the promotion
-            board.addPiece(move.getEndPosition(), new ChessPiece(piece.getTeamColor(), move.getPromotionPiece()));
-            board.addPiece(move.getStartPosition(), null);
-            // switch the team turn
-            teamTurn = teamTurn == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
-            return;
+            played++;
         }
-        else {
-            // make the move
-            board.addPiece(move.getEndPosition(), board.getPiece(move.getStartPosition()));
-            board.addPiece(move.getStartPosition(), null);
-            // switch the team turn
-            teamTurn = teamTurn == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+        publishSnapshot();
+        return played == moves.size() ? -1 : played;
+    }
+
+    /**
+     * Same as applyAll(List), for moves packed with ChessMove.encode()
+     *
+     * @return the index of the first illegal move, or -1 if every move was played
+     */
+    public int applyAll(int[] moves) {
+        int played = 0;
+        while (played < moves.length && tryMove(moves[played] & 63, moves[played] >>> 6 & 63, moves[played] >>> 12 & 7)) {
+            played++;
         }
+        publishSnapshot();
+        return played == moves.length ? -1 : played;
+    }
+
+    // Promotion as the piece type's ordinal plus one, or 0 for none (the ChessMove.encode() format)
+    private static int promotionCode(ChessPiece.PieceType promotion) {
+        return promotion == null ? 0 : promotion.ordinal() + 1;
+    }
+
+    /**
+     * Plays a move for the side to move if it is legal, switching the turn.
+     * Squares are 0 = a1 to 63 = h8 and promotion is a type ordinal plus one.
+     *
+     * @return false (leaving everything as it was) if the move is illegal
+     */
+    private boolean tryMove(int from, int to, int promotion) {
+        ChessPiece piece = board.getPiece(from);
+        if (piece == null || piece.getTeamColor() != teamTurn || !isPseudoLegal(piece, from, to, promotion)) {
+            return false;
+        }
+
+        // Play it, then take it back if it leaves our own king attacked
+        ChessPiece captured = board.getPiece(to);
+        ChessPiece placed = promotion == 0 ? piece : PositionCodec.piece(promotion | (teamTurn == TeamColor.BLACK ? 8 : 0));
+        board.setPiece(to, placed);
+        board.setPiece(from, null);
+        long king = board.pieces(teamTurn, ChessPiece.PieceType.KING);
+        if (king != 0 && isSquareAttacked(Long.numberOfTrailingZeros(king), opponent(teamTurn))) {
+            board.setPiece(from, piece);
+            board.setPiece(to, captured);
+            return false;
+        }
+
+        teamTurn = opponent(teamTurn);
+        return true;
+    }
+
+    // Whether the piece's own movement rules allow the move, the same as pieceMoves would
+    private boolean isPseudoLegal(ChessPiece piece, int from, int to, int promotion) {
+        ChessPiece target = board.getPiece(to);
+        if (from == to || target != null && target.getTeamColor() == piece.getTeamColor()) {
+            return false;
+        }
+        long toBit = 1L << to;
+        long occupied = board.occupied();
+        return switch (piece.getPieceType()) {
+            case KING -> promotion == 0 && (Bitboards.kingAttacks(from) & toBit) != 0;
+            case KNIGHT -> promotion == 0 && (Bitboards.knightAttacks(from) & toBit) != 0;
+            case BISHOP -> promotion == 0 && (Bitboards.bishopAttacks(from, occupied) & toBit) != 0;
+            case ROOK -> promotion == 0 && (Bitboards.rookAttacks(from, occupied) & toBit) != 0;
+            case QUEEN -> promotion == 0 && (Bitboards.queenAttacks(from, occupied) & toBit) != 0;
+            case PAWN -> isPseudoLegalPawn(piece.getTeamColor(), from, to, promotion, target != null);
+        };
+    }
+
+    private boolean isPseudoLegalPawn(TeamColor color, int from, int to, int promotion, boolean capture) {
+        // Pawns must promote on the last rank (to anything but a king or pawn) and nowhere else
+        int lastRank = color == TeamColor.WHITE ? 7 : 0;
+        boolean promotes = to >> 3 == lastRank;
+        boolean promotionOk = promotes
+                ? promotion >= ChessPiece.PieceType.QUEEN.ordinal() + 1 && promotion <= ChessPiece.PieceType.ROOK.ordinal() + 1
+                : promotion == 0;
+        if (!promotionOk) {
+            return false;
+        }
+        if (capture) {
+            return (Bitboards.pawnAttacks(Bitboards.colorIndex(color), from) & 1L << to) != 0;
+        }
+        int forward = color == TeamColor.WHITE ? 8 : -8;
+        int startRank = color == TeamColor.WHITE ? 1 : 6;
+        return to == from + forward
+                || to == from + 2 * forward && from >> 3 == startRank && board.getPiece(from + forward) == null;
+    }
+
+    /**
+     * Gets an immutable copy of the position as of the last move, which can be
+     * read from any thread without locking while moves are being made.
+     * <p>
+     * Snapshots are published only on the mover's side: by the constructor, makeMove,
+     * applyAll, setBoard and setTeamTurn (which ChessJson uses when reading a game).
+     * Changes made directly to the board returned by getBoard show up after the next
+     * of those. Reading never writes the field, so readers can't race the mover.
+     * <p>
+     * The one exception is a board put in place without setBoard, as reflective Gson
+     * does when it fills in a game made by the constructor: the published snapshot
+     * is then of the start position, so the position is read from the board instead.
+     *
+     * @return the latest published position
+     */
+    public PositionSnapshot snapshot() {
+        Published latest = published;
+        if (latest != null && latest.board() == board) {
+            return latest.position();
+        }
+        return PositionSnapshot.of(this);
+    }
+
+    // Called by the thread changing the game, after each change
+    private void publishSnapshot() {
+        if (board != null && teamTurn != null) {
+            published = new Published(board, PositionSnapshot.of(this));
+        }
+    }
+
+    private record Published(ChessBoard board, PositionSnapshot position) {
     }
 
     /**
@@ -156,43 +265,146 @@ public class ChessGame {
      */
     public boolean isInCheck(TeamColor teamColor) {
         // Find the king's position
-        ChessPosition kingPosition = findKingPosition(board, teamColor);
-        
+        ChessPosition kingPosition = findKingPosition(teamColor);
+
         // Check if any enemy piece can capture the king
-        return canAnyEnemyPieceCaptureKing(kingPosition, teamColor);
+        return isSquareAttacked(kingPosition, opponent(teamColor));
     }
 
-    // Helper method to reduce nesting depth
-    private boolean canAnyEnemyPieceCaptureKing(ChessPosition kingPosition, TeamColor teamColor) {
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition currentPosition = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(currentPosition);
-                
-                boolean isEnemyPiece = piece != null && piece.getTeamColor() != teamColor;
-                if (isEnemyPiece) {
-                    if (canPieceCaptureKing(piece, currentPosition, kingPosition)) {
-                        return true;  // king is in check
-                    }
-                }
-            }
+    /**
+     * Tells whether a move would put the opponent in check, either directly or by
+     * uncovering an attack from a rook, bishop or queen behind the moving piece.
+     * The board isn't touched: the squares checking the enemy king and the pieces
+     * that would discover a check are worked out once per position and reused for
+     * every move asked about, so this is cheap enough to call on every generated move.
+     * <p>
+     * The move is assumed to be legal.
+     *
+     * @param move the move to look at
+     * @return true if the move gives check
+     */
+    public boolean givesCheck(ChessMove move) {
+        int from = PositionCodec.square(move.getStartPosition());
+        int to = PositionCodec.square(move.getEndPosition());
+        ChessPiece piece = board.getPiece(from);
+        if (piece == null) {
+            return false;
         }
-        
-        return false;  // king is not in check
+        CheckInfo info = checkInfo(piece.getTeamColor());
+        if (info.kingSquare < 0) {
+            return false;
+        }
+
+        // Discovered: the piece was the only thing between a slider and the king, and leaves the line
+        if ((info.discoverers & 1L << from) != 0 && (Bitboards.line(info.kingSquare, from) & 1L << to) == 0) {
+            return true;
+        }
+
+        // Direct: the piece lands on a square that attacks the king
+        ChessPiece.PieceType type = move.getPromotionPiece() != null ? move.getPromotionPiece() : piece.getPieceType();
+        if ((info.checkSquares[type.ordinal()] & 1L << to) != 0) {
+            return true;
+        }
+        // A slider moving straight away from the king can't be seen through its own start square
+        if ((Bitboards.between(to, info.kingSquare) & 1L << from) == 0) {
+            return false;
+        }
+        long occupied = board.occupied() & ~(1L << from);
+        long attacks = switch (type) {
+            case BISHOP -> Bitboards.bishopAttacks(to, occupied);
+            case ROOK -> Bitboards.rookAttacks(to, occupied);
+            case QUEEN -> Bitboards.queenAttacks(to, occupied);
+            default -> 0L;
+        };
+        return (attacks & 1L << info.kingSquare) != 0;
     }
 
-    // Further helper to reduce nesting
-    private boolean canPieceCaptureKing(ChessPiece piece, ChessPosition piecePosition, ChessPosition kingPosition) {
-        Collection<ChessMove> possibleMoves = piece.pieceMoves(board, piecePosition);
-        
-        // Check if any move can capture the king
-        for (ChessMove move : possibleMoves) {
-            if (move.getEndPosition().equals(kingPosition)) {
-                return true;
+    // Check info for moves by the given team, rebuilt only when the board has changed
+    private CheckInfo checkInfo(TeamColor mover) {
+        CheckInfo info = checkInfo;
+        if (info == null) {
+            info = new CheckInfo();
+            checkInfo = info;
+        }
+        if (info.board == board && info.modCount == board.modCount() && info.mover == mover) {
+            return info;
+        }
+        info.board = board;
+        info.modCount = board.modCount();
+        info.mover = mover;
+        Arrays.fill(info.checkSquares, 0L);
+        info.discoverers = 0;
+
+        long king = board.pieces(opponent(mover), ChessPiece.PieceType.KING);
+        info.kingSquare = king == 0 ? -1 : Long.numberOfTrailingZeros(king);
+        if (info.kingSquare < 0) {
+            return info;
+        }
+        int k = info.kingSquare;
+        long occupied = board.occupied();
+        long diagonal = Bitboards.bishopAttacks(k, occupied);
+        long straight = Bitboards.rookAttacks(k, occupied);
+        info.checkSquares[ChessPiece.PieceType.PAWN.ordinal()] =
+                Bitboards.pawnAttacks(Bitboards.colorIndex(opponent(mover)), k);
+        info.checkSquares[ChessPiece.PieceType.KNIGHT.ordinal()] = Bitboards.knightAttacks(k);
+        info.checkSquares[ChessPiece.PieceType.BISHOP.ordinal()] = diagonal;
+        info.checkSquares[ChessPiece.PieceType.ROOK.ordinal()] = straight;
+        info.checkSquares[ChessPiece.PieceType.QUEEN.ordinal()] = diagonal | straight;
+
+        // Our sliders lined up on the king with exactly one of our own pieces in the way
+        long queens = board.pieces(mover, ChessPiece.PieceType.QUEEN);
+        long snipers = (Bitboards.bishopAttacks(k, 0L) & (board.pieces(mover, ChessPiece.PieceType.BISHOP) | queens))
+                | (Bitboards.rookAttacks(k, 0L) & (board.pieces(mover, ChessPiece.PieceType.ROOK) | queens));
+        long own = board.occupied(mover);
+        for (; snipers != 0; snipers &= snipers - 1) {
+            long blockers = Bitboards.between(k, Long.numberOfTrailingZeros(snipers)) & occupied;
+            if (blockers != 0 && (blockers & blockers - 1) == 0 && (blockers & own) != 0) {
+                info.discoverers |= blockers;
             }
         }
-        
-        return false;
+        return info;
+    }
+
+    private static final class CheckInfo {
+        private ChessBoard board;
+        private int modCount;
+        private TeamColor mover;
+        private int kingSquare;
+        // Squares from which each piece type (by ordinal) would attack the king
+        private final long[] checkSquares = new long[ChessPiece.PieceType.values().length];
+        // The mover's pieces whose leaving the line uncovers a check
+        private long discoverers;
+    }
+
+    /**
+     * Looks outward from a square for pieces of the given team that attack it,
+     * using the board's bitboards instead of generating every enemy move
+     */
+    boolean isSquareAttacked(ChessPosition square, TeamColor attacker) {
+        return isSquareAttacked(PositionCodec.square(square), attacker);
+    }
+
+    boolean isSquareAttacked(int square, TeamColor attacker) {
+        return isSquareAttacked(square, attacker, board.occupied());
+    }
+
+    /**
+     * Same as isSquareAttacked(int, TeamColor), with sliders blocked only by the
+     * given squares, so a king can be looked at as if it had already left its square
+     */
+    boolean isSquareAttacked(int square, TeamColor attacker, long occupied) {
+        // A pawn attacks this square from where a pawn of the other color here would attack
+        int defender = attacker == TeamColor.WHITE ? 1 : 0;
+        if ((Bitboards.pawnAttacks(defender, square) & board.pieces(attacker, ChessPiece.PieceType.PAWN)) != 0
+                || (Bitboards.knightAttacks(square) & board.pieces(attacker, ChessPiece.PieceType.KNIGHT)) != 0
+                || (Bitboards.kingAttacks(square) & board.pieces(attacker, ChessPiece.PieceType.KING)) != 0) {
+            return true;
+        }
+        long queens = board.pieces(attacker, ChessPiece.PieceType.QUEEN);
+        long diagonal = board.pieces(attacker, ChessPiece.PieceType.BISHOP) | queens;
+        long straight = board.pieces(attacker, ChessPiece.PieceType.ROOK) | queens;
+        return (Bitboards.bishopAttacks(square, occupied) & diagonal) != 0
+                || (Bitboards.rookAttacks(square, occupied) & straight) != 0;
     }
 
     /**
@@ -208,7 +420,7 @@ public class ChessGame {
         }
 
         // Check if any move can get the king out of check
-        return !canTeamEscapeCheck(teamColor);
+        return !hasAnyLegalMove(teamColor);
     }
 
     /**
@@ -226,74 +438,81 @@ public class ChessGame {
         }
 
         // Check if the team has any valid moves
-        return !canTeamEscapeCheck(teamColor);
+        return !hasAnyLegalMove(teamColor);
     }
 
-    // Helper method to check if a team can make any valid move
-    private boolean canTeamEscapeCheck(TeamColor teamColor) {
-        // get each piece of the team
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition currentPosition = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(currentPosition);
+    /**
+     * @return whether a team has at least one legal move, stopping at the first one
+     * found; like the other queries, this never changes the game
+     */
+    public boolean hasAnyLegalMove(TeamColor teamColor) {
+        short[] cached = LegalMoveCache.shared().peek(this, teamColor);
+        return cached != null ? cached.length > 0 : legalMoves(teamColor).hasNext();
+    }
 
-                if (piece != null && piece.getTeamColor() == teamColor) {
-                    if (canPieceMakeValidMove(piece, currentPosition)) {
-                        return true;
-                    }
-                }
-            }
-        }
-        
-        return false;
+    /**
+     * @return an iterator over a team's legal moves that generates them as it goes
+     */
+    public MoveIterator legalMoves(TeamColor teamColor) {
+        return new MoveIterator(this, teamColor);
     }
 
-    // Helper to reduce nesting in canTeamEscapeCheck
-    private boolean canPieceMakeValidMove(ChessPiece piece, ChessPosition position) {
-        Collection<ChessMove> possibleMoves = piece.pieceMoves(board, position);
-        for (ChessMove move : possibleMoves) {
-            if (validMoves(move.getStartPosition()).contains(move)) {
-                return true;
-            }
-        }
-        return false;
+    /**
+     * @return how many of a team's pieces attack each square, and the cheapest of them
+     */
+    public AttackMaps.Counts attackMap(TeamColor teamColor) {
+        return AttackMaps.get().counts(board, teamColor);
     }
 
-    private boolean isInCheckAfterMove(ChessBoard board, TeamColor teamColor) {
-        // Find the king's position
-        ChessPosition kingPosition = findKingPosition(board, teamColor);
-        
-        // Check if any opponent piece can attack the king
-        return canAnyPieceAttackKing(board, kingPosition, teamColor);
+    /**
+     * Plays a move packed with ChessMove.encode() without checking it and switches
+     * the turn, for search code that generates and filters its own moves.
+     *
+     * @return the PositionCodec code of the captured piece, or 0, for unplay
+     */
+    int play(int move) {
+        int from = move & 63;
+        int to = move >>> 6 & 63;
+        int promotion = move >>> 12 & 7;
+        ChessPiece captured = board.getPiece(to);
+        ChessPiece placed = promotion == 0 ? board.getPiece(from)
+                : PositionCodec.piece(promotion | (teamTurn == TeamColor.BLACK ? 8 : 0));
+        board.setPiece(to, placed);
+        board.setPiece(from, null);
+        teamTurn = opponent(teamTurn);
+        return PositionCodec.pieceCode(captured);
     }
 
-    // Helper to reduce nesting in isInCheckAfterMove
-    private boolean canAnyPieceAttackKing(ChessBoard board, ChessPosition kingPosition, TeamColor teamColor) {
-        for (int i = 1; i <= 8; i++) {
-            for (int j = 1; j <= 8; j++) {
-                ChessPosition position = new ChessPosition(i, j);
-                ChessPiece piece = board.getPiece(position);
-                
-                if (piece != null && piece.getTeamColor() != teamColor) {
-                    if (canPieceAttackPosition(board, piece, position, kingPosition)) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+    /**
+     * Takes back a move made with play
+     */
+    void unplay(int move, int captured) {
+        int from = move & 63;
+        int to = move >>> 6 & 63;
+        teamTurn = opponent(teamTurn);
+        ChessPiece moved = (move >>> 12 & 7) == 0 ? board.getPiece(to)
+                : PositionCodec.piece(PositionCodec.pieceCode(teamTurn, ChessPiece.PieceType.PAWN));
+        board.setPiece(from, moved);
+        board.setPiece(to, PositionCodec.piece(captured));
     }
 
-    // Further helper to reduce nesting
-    private boolean canPieceAttackPosition(ChessBoard board, ChessPiece piece, 
-                                          ChessPosition piecePosition, ChessPosition targetPosition) {
-        Collection<ChessMove> pieceMoves = piece.pieceMoves(board, piecePosition);
-        for (ChessMove pieceMove : pieceMoves) {
-            if (pieceMove.getEndPosition().equals(targetPosition)) {
-                return true;
-            }
-        }
-        return false;
+    /**
+     * @return the Zobrist key of the position, including the side to move
+     */
+    long positionKey() {
+        return board.zobristKey() ^ (teamTurn == TeamColor.BLACK ? Zobrist.BLACK_TO_MOVE : 0L);
+    }
+
+    /**
+     * @return whether a team's king is attacked, or false if it has no king
+     */
+    boolean isKingAttacked(TeamColor teamColor) {
+        long king = board.pieces(teamColor, ChessPiece.PieceType.KING);
+        return king != 0 && isSquareAttacked(Long.numberOfTrailingZeros(king), opponent(teamColor));
+    }
+
+    static TeamColor opponent(TeamColor teamColor) {
+        return teamColor == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
     }
 
     /**
@@ -303,6 +522,7 @@ public class ChessGame {
      */
     public void setBoard(ChessBoard board) {
         this.board = board;
+        publishSnapshot();
     }
 
     /**
@@ -326,20 +546,16 @@ public class ChessGame {
         return board.equals(chessGame.board) && teamTurn == chessGame.teamTurn;
     }
 
-    // Extract duplicated code into a helper method
-    private boolean isValidMove(ChessMove move, TeamColor teamColor) {
-        // Create a copy of the board to test the move
-        ChessBoard tempBoard = board.copyBoard();
-        
-        // Make the move on the temporary board
-        tempBoard.addPiece(move.getEndPosition(), tempBoard.getPiece(move.getStartPosition()));
-        tempBoard.addPiece(move.getStartPosition(), null);
-        
-        // Check if the king is in check after the move
-        return !isInCheckAfterMove(tempBoard, teamColor);
+    private ChessPosition findKingPosition(TeamColor teamColor) {
+        ChessPosition position = findKingOrNull(teamColor);
+        if (position == null) {
+            throw new RuntimeException("King not found on the board");
+        }
+        return position;
     }
 
-    private ChessPosition findKingPosition(ChessBoard board, TeamColor teamColor) {
+    // Returns null instead of throwing, for boards that may be missing a king
+    private ChessPosition findKingOrNull(TeamColor teamColor) {
         for (int row = 1; row <= 8; row++) {
             for (int col = 1; col <= 8; col++) {
                 ChessPosition position = new ChessPosition(row, col);
@@ -350,6 +566,6 @@ public class ChessGame {
                 }
             }
         }
-        throw new RuntimeException("King not found on the board");
+        return null;
     }
 }
\ No newline at end of file
@@ -0,0 +1,249 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Streaming Gson adapters that write the chess classes as short strings instead
+ * of letting Gson reflect over their fields:
+ * <ul>
+ *     <li>ChessGame as a FEN string</li>
+ *     <li>ChessBoard as a FEN piece placement</li>
+ *     <li>ChessPiece as its FEN letter</li>
+ *     <li>ChessMove in UCI coordinate notation, like "e7e8q"</li>
+ * </ul>
+ * Each adapter also reads the nested objects reflective Gson used to write, so
+ * JSON saved before these were registered still loads.
+ */
+public final class ChessJson {
+    private static final Gson GSON = register(new GsonBuilder()).create();
+
+    private ChessJson() {
+    }
+
+    /**
+     * Adds the chess adapters to a builder
+     *
+     * @return the same builder
+     */
+    public static GsonBuilder register(GsonBuilder builder) {
+        return builder
+                .registerTypeAdapter(ChessGame.class, new GameAdapter().nullSafe())
+                .registerTypeAdapter(ChessBoard.class, new BoardAdapter().nullSafe())
+                .registerTypeAdapter(ChessPiece.class, new PieceAdapter().nullSafe())
+                .registerTypeAdapter(ChessMove.class, new MoveAdapter().nullSafe());
+    }
+
+    /**
+     * @return a shared Gson with only the chess adapters added; Gson is thread safe
+     */
+    public static Gson gson() {
+        return GSON;
+    }
+
+    private static final class GameAdapter extends TypeAdapter<ChessGame> {
+        @Override
+        public void write(JsonWriter out, ChessGame game) throws IOException {
+            out.value(Fen.format(game));
+        }
+
+        @Override
+        public ChessGame read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.STRING) {
+                String fen = in.nextString();
+                try {
+                    return Fen.parse(fen);
+                } catch (IllegalArgumentException e) {
+                    throw new JsonParseException(e.getMessage(), e);
+                }
+            }
+
+            // {"board": {...}, "teamTurn": "WHITE"}
+            ChessBoard board = null;
+            ChessGame.TeamColor turn = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "board" -> board = readNullable(in, BoardAdapter::readObject);
+                    case "teamTurn" -> turn = readNullable(in, r -> ChessGame.TeamColor.valueOf(r.nextString()));
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            ChessGame game = new ChessGame();
+            if (board != null) {
+                game.setBoard(board);
+            }
+            if (turn != null) {
+                game.setTeamTurn(turn);
+            }
+            return game;
+        }
+    }
+
+    private static final class BoardAdapter extends TypeAdapter<ChessBoard> {
+        @Override
+        public void write(JsonWriter out, ChessBoard board) throws IOException {
+            out.value(Fen.formatBoard(board));
+        }
+
+        @Override
+        public ChessBoard read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.STRING) {
+                String placement = in.nextString();
+                try {
+                    return Fen.parseBoard(placement);
+                } catch (IllegalArgumentException e) {
+                    throw new JsonParseException(e.getMessage(), e);
+                }
+            }
+            return readObject(in);
+        }
+
+        // {"squares": [[piece or null, ...], ...]} with rank 1 first
+        static ChessBoard readObject(JsonReader in) throws IOException {
+            ChessBoard board = new ChessBoard();
+            in.beginObject();
+            while (in.hasNext()) {
+                if (!in.nextName().equals("squares") || in.peek() == JsonToken.NULL) {
+                    in.skipValue();
+                    continue;
+                }
+                in.beginArray();
+                for (int row = 1; in.hasNext(); row++) {
+                    in.beginArray();
+                    for (int col = 1; in.hasNext(); col++) {
+                        ChessPiece piece = readNullable(in, PieceAdapter::readObject);
+                        if (piece != null) {
+                            if (row > 8 || col > 8) {
+                                throw new JsonParseException("Piece off the board at row " + row + ", column " + col);
+                            }
+                            board.addPiece(new ChessPosition(row, col), piece);
+                        }
+                    }
+                    in.endArray();
+                }
+                in.endArray();
+            }
+            in.endObject();
+            return board;
+        }
+    }
+
+    private static final class PieceAdapter extends TypeAdapter<ChessPiece> {
+        @Override
+        public void write(JsonWriter out, ChessPiece piece) throws IOException {
+            out.value(String.valueOf(Fen.symbol(piece)));
+        }
+
+        @Override
+        public ChessPiece read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.STRING) {
+                String symbol = in.nextString();
+                ChessPiece piece = symbol.length() == 1 ? Fen.pieceFor(symbol.charAt(0)) : null;
+                if (piece == null) {
+                    throw new JsonParseException("Not a piece: " + symbol);
+                }
+                return piece;
+            }
+            return readObject(in);
+        }
+
+        // {"pieceColor": "WHITE", "type": "PAWN"}
+        static ChessPiece readObject(JsonReader in) throws IOException {
+            ChessGame.TeamColor color = null;
+            ChessPiece.PieceType type = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "pieceColor" -> color = readNullable(in, r -> ChessGame.TeamColor.valueOf(r.nextString()));
+                    case "type" -> type = readNullable(in, r -> ChessPiece.PieceType.valueOf(r.nextString()));
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            if (color == null || type == null) {
+                throw new JsonParseException("Piece needs a color and a type");
+            }
+            return PositionCodec.piece(PositionCodec.pieceCode(color, type));
+        }
+    }
+
+    private static final class MoveAdapter extends TypeAdapter<ChessMove> {
+        @Override
+        public void write(JsonWriter out, ChessMove move) throws IOException {
+            out.value(Uci.formatMove(move));
+        }
+
+        @Override
+        public ChessMove read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.STRING) {
+                String text = in.nextString();
+                try {
+                    return Uci.parseMove(text);
+                } catch (IllegalArgumentException e) {
+                    throw new JsonParseException(e.getMessage(), e);
+                }
+            }
+
+            // {"startPosition": {...}, "endPosition": {...}, "promotionPiece": "QUEEN"}
+            ChessPosition start = null;
+            ChessPosition end = null;
+            ChessPiece.PieceType promotion = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "startPosition" -> start = readNullable(in, MoveAdapter::readPosition);
+                    case "endPosition" -> end = readNullable(in, MoveAdapter::readPosition);
+                    case "promotionPiece" -> promotion = readNullable(in, r -> ChessPiece.PieceType.valueOf(r.nextString()));
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            if (start == null || end == null) {
+                throw new JsonParseException("Move needs a start and an end position");
+            }
+            return new ChessMove(start, end, promotion);
+        }
+
+        // {"row": 2, "col": 5}
+        private static ChessPosition readPosition(JsonReader in) throws IOException {
+            int row = 0;
+            int col = 0;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "row" -> row = in.nextInt();
+                    case "col" -> col = in.nextInt();
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new ChessPosition(row, col);
+        }
+    }
+
+    private interface ValueReader<T> {
+        T read(JsonReader in) throws IOException;
+    }
+
+    // Reads a value with the given reader, or consumes a JSON null and returns null
+    private static <T> T readNullable(JsonReader in, ValueReader<T> reader) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        try {
+            return reader.read(in);
+        } catch (IllegalArgumentException e) {
+            throw new JsonParseException(e.getMessage(), e);
+        }
+    }
+}
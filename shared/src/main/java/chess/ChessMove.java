@@ -42,6 +42,27 @@ public class ChessMove {
         return promotionPiece;
     }
 
+    /**
+     * Packs this move into an int: the start square in bits 0-5, the end square in
+     * bits 6-11 and the promotion type's ordinal plus one in bits 12-14 (0 if none).
+     * Squares are numbered 0 = a1 to 63 = h8, so the value always fits in a short.
+     *
+     * @return the packed move
+     */
+    public int encode() {
+        int promotion = promotionPiece == null ? 0 : promotionPiece.ordinal() + 1;
+        return PositionCodec.square(startPosition) | PositionCodec.square(endPosition) << 6 | promotion << 12;
+    }
+
+    /**
+     * Unpacks a move written by encode()
+     */
+    public static ChessMove decode(int encoded) {
+        int promotion = encoded >>> 12 & 7;
+        return new ChessMove(PositionCodec.position(encoded & 63), PositionCodec.position(encoded >>> 6 & 63),
+                promotion == 0 ? null : ChessPiece.PieceType.values()[promotion - 1]);
+    }
+
     // equals hashing code --> make sure we are comparing the same thing
     // this is used to compare positions --> ask the TA!!
     
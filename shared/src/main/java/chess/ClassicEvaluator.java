@@ -0,0 +1,318 @@
+package chess;
+
+/**
+ * Hand-written evaluation: material plus piece-square tables, with the king's
+ * table blended from a middlegame one towards an endgame one as pieces come off,
+ * pawn structure: doubled, isolated and passed pawns and the pawns sheltering
+ * each king, and king safety: how many enemy attacks land around each king.
+ * Pawn structure is cached per thread in a PawnHashTable.
+ * <p>
+ * Every weight lives in one flat int array so the tuner can adjust them; the
+ * offsets of each group are the constants below. Piece-square tables are from
+ * white's point of view with a8 first, the way they read on paper.
+ */
+public class ClassicEvaluator implements Evaluator {
+    /**
+     * Piece values, by piece type ordinal
+     */
+    public static final int MATERIAL = 0;
+    /**
+     * One 64 square table per piece type ordinal
+     */
+    public static final int PIECE_SQUARE = MATERIAL + 6;
+    /**
+     * The king's table once the other pieces are gone
+     */
+    public static final int KING_ENDGAME = PIECE_SQUARE + 6 * 64;
+    /**
+     * Penalty per extra pawn on a file, and per pawn with no friendly pawn on a neighbouring file
+     */
+    public static final int DOUBLED_PAWN = KING_ENDGAME + 64;
+    public static final int ISOLATED_PAWN = DOUBLED_PAWN + 1;
+    /**
+     * Passed pawn bonus by rank counted from the pawn's own side (8 values), doubled in the endgame
+     */
+    public static final int PASSED_PAWN = ISOLATED_PAWN + 1;
+    /**
+     * Middlegame bonus per pawn on the king's or a neighbouring file, one rank in
+     * front of the king's back rank, then two ranks in front
+     */
+    public static final int PAWN_SHIELD = PASSED_PAWN + 8;
+    /**
+     * Middlegame penalty by the number of enemy attacks on the king and the squares
+     * next to it (8 values, the last for that many or more)
+     */
+    public static final int KING_ATTACK = PAWN_SHIELD + 2;
+    public static final int PARAMETER_COUNT = KING_ATTACK + 8;
+
+    private static final int PAWN_TABLE_ENTRIES = 1 << 14;
+
+    // Game phase: how much each piece type counts towards a full middlegame of 24
+    private static final int[] PHASE = {0, 4, 1, 1, 2, 0};
+    private static final int FULL_PHASE = 24;
+
+    private static final int[] DEFAULT_MATERIAL = {0, 900, 330, 320, 500, 100};
+    private static final int[][] DEFAULT_TABLES = {
+        // King
+        {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+            20, 20, 0, 0, 0, 0, 20, 20,
+            20, 30, 10, 0, 0, 10, 30, 20
+        },
+        // Queen
+        {
+            -20, -10, -10, -5, -5, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 5, 5, 5, 0, -10,
+            -5, 0, 5, 5, 5, 5, 0, -5,
+            0, 0, 5, 5, 5, 5, 0, -5,
+            -10, 5, 5, 5, 5, 5, 0, -10,
+            -10, 0, 5, 0, 0, 0, 0, -10,
+            -20, -10, -10, -5, -5, -10, -10, -20
+        },
+        // Bishop
+        {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 10, 10, 5, 0, -10,
+            -10, 5, 5, 10, 10, 5, 5, -10,
+            -10, 0, 10, 10, 10, 10, 0, -10,
+            -10, 10, 10, 10, 10, 10, 10, -10,
+            -10, 5, 0, 0, 0, 0, 5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20
+        },
+        // Knight
+        {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20, 0, 0, 0, 0, -20, -40,
+            -30, 0, 10, 15, 15, 10, 0, -30,
+            -30, 5, 15, 20, 20, 15, 5, -30,
+            -30, 0, 15, 20, 20, 15, 0, -30,
+            -30, 5, 10, 15, 15, 10, 5, -30,
+            -40, -20, 0, 5, 5, 0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50
+        },
+        // Rook
+        {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            5, 10, 10, 10, 10, 10, 10, 5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            0, 0, 0, 5, 5, 0, 0, 0
+        },
+        // Pawn
+        {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+            5, 5, 10, 25, 25, 10, 5, 5,
+            0, 0, 0, 20, 20, 0, 0, 0,
+            5, -5, -10, 0, 0, -10, -5, 5,
+            5, 10, 10, -20, -20, 10, 10, 5,
+            0, 0, 0, 0, 0, 0, 0, 0
+        }
+    };
+    private static final int[] DEFAULT_KING_ENDGAME = {
+        -50, -40, -30, -20, -20, -30, -40, -50,
+        -30, -20, -10, 0, 0, -10, -20, -30,
+        -30, -10, 20, 30, 30, 20, -10, -30,
+        -30, -10, 30, 40, 40, 30, -10, -30,
+        -30, -10, 30, 40, 40, 30, -10, -30,
+        -30, -10, 20, 30, 30, 20, -10, -30,
+        -30, -30, 0, 0, 0, 0, -30, -30,
+        -50, -30, -30, -30, -30, -30, -30, -50
+    };
+
+    private static final int[] DEFAULT_PAWN_TERMS = {-15, -12, 0, 5, 10, 20, 35, 60, 100, 0, 10, 5};
+    private static final int[] DEFAULT_KING_ATTACK = {0, 0, 5, 15, 30, 50, 75, 100};
+
+    private final int[] parameters;
+    private final ThreadLocal<PawnHashTable> pawnTables;
+
+    public ClassicEvaluator() {
+        this(defaultParameters());
+    }
+
+    /**
+     * @param parameters weights laid out as described by the offset constants;
+     *                   the array is used as is, not copied
+     */
+    public ClassicEvaluator(int[] parameters) {
+        this(parameters, PAWN_TABLE_ENTRIES);
+    }
+
+    /**
+     * @param pawnTableEntries size of each thread's pawn structure cache; 1 for
+     *                         work like tuning where positions don't repeat
+     */
+    ClassicEvaluator(int[] parameters, int pawnTableEntries) {
+        if (parameters.length != PARAMETER_COUNT) {
+            throw new IllegalArgumentException("Expected " + PARAMETER_COUNT + " parameters");
+        }
+        this.parameters = parameters;
+        this.pawnTables = ThreadLocal.withInitial(() -> new PawnHashTable(pawnTableEntries));
+    }
+
+    /**
+     * @return a new array holding the built-in weights
+     */
+    public static int[] defaultParameters() {
+        int[] parameters = new int[PARAMETER_COUNT];
+        System.arraycopy(DEFAULT_MATERIAL, 0, parameters, MATERIAL, 6);
+        for (int type = 0; type < 6; type++) {
+            System.arraycopy(DEFAULT_TABLES[type], 0, parameters, PIECE_SQUARE + type * 64, 64);
+        }
+        System.arraycopy(DEFAULT_KING_ENDGAME, 0, parameters, KING_ENDGAME, 64);
+        System.arraycopy(DEFAULT_PAWN_TERMS, 0, parameters, DOUBLED_PAWN, DEFAULT_PAWN_TERMS.length);
+        System.arraycopy(DEFAULT_KING_ATTACK, 0, parameters, KING_ATTACK, DEFAULT_KING_ATTACK.length);
+        return parameters;
+    }
+
+    @Override
+    public int evaluate(ChessGame game) {
+        int score = evaluateWhite(game.getBoard());
+        return game.getTeamTurn() == ChessGame.TeamColor.WHITE ? score : -score;
+    }
+
+    /**
+     * @return the score in centipawns from white's point of view
+     */
+    public int evaluateWhite(ChessBoard board) {
+        int score = 0;
+        int phase = 0;
+        for (int type = 1; type < 6; type++) {
+            long white = board.pieces(type + 1);
+            long black = board.pieces(type + 1 | 8);
+            phase += PHASE[type] * (Long.bitCount(white) + Long.bitCount(black));
+            score += sideScore(white, type, 56) - sideScore(black, type, 0);
+        }
+        phase = Math.min(phase, FULL_PHASE);
+
+        // The king's square counts for less in the middlegame and more in the endgame as pieces come off
+        long whiteKing = board.pieces(1);
+        long blackKing = board.pieces(1 | 8);
+        int kingMiddle = sideScore(whiteKing, 0, 56) - sideScore(blackKing, 0, 0);
+        int kingEnd = tableScore(whiteKing, KING_ENDGAME, 56) - tableScore(blackKing, KING_ENDGAME, 0);
+        score += (kingMiddle * phase + kingEnd * (FULL_PHASE - phase)) / FULL_PHASE;
+        return score + pawnScore(board, phase) + kingSafety(board, phase);
+    }
+
+    /**
+     * @return how often this thread's pawn structure cache has had the structure it was asked for
+     */
+    public double pawnHitRate() {
+        return pawnTables.get().hitRate();
+    }
+
+    private int pawnScore(ChessBoard board, int phase) {
+        long whitePawns = board.pieces(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+        long blackPawns = board.pieces(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
+        PawnHashTable table = pawnTables.get();
+        long key = board.pawnKey();
+        int index = table.index(key);
+        if (!table.matches(index, key)) {
+            analysePawns(table, index, key, whitePawns, blackPawns);
+        }
+
+        int score = table.structure(index);
+
+        // Passed pawns matter more as the pieces that could stop them come off
+        long passed = table.passed(index);
+        int passedScore = 0;
+        for (long bits = passed & whitePawns; bits != 0; bits &= bits - 1) {
+            passedScore += parameters[PASSED_PAWN + (Long.numberOfTrailingZeros(bits) >> 3)];
+        }
+        for (long bits = passed & blackPawns; bits != 0; bits &= bits - 1) {
+            passedScore -= parameters[PASSED_PAWN + 7 - (Long.numberOfTrailingZeros(bits) >> 3)];
+        }
+        score += passedScore + passedScore * (FULL_PHASE - phase) / FULL_PHASE;
+
+        // Shelter only counts while there are pieces left to attack the king
+        long whiteKing = board.pieces(1);
+        long blackKing = board.pieces(1 | 8);
+        int shelter = 0;
+        if (whiteKing != 0) {
+            shelter += table.shield(index, 0, Long.numberOfTrailingZeros(whiteKing) & 7);
+        }
+        if (blackKing != 0) {
+            shelter -= table.shield(index, 1, Long.numberOfTrailingZeros(blackKing) & 7);
+        }
+        return score + shelter * phase / FULL_PHASE;
+    }
+
+    // Attacks around a king only matter while there are pieces left to make them count
+    private int kingSafety(ChessBoard board, int phase) {
+        if (phase == 0) {
+            return 0;
+        }
+        int danger = kingDanger(board, ChessGame.TeamColor.BLACK, board.pieces(1))
+                - kingDanger(board, ChessGame.TeamColor.WHITE, board.pieces(1 | 8));
+        return -danger * phase / FULL_PHASE;
+    }
+
+    private int kingDanger(ChessBoard board, ChessGame.TeamColor attacker, long king) {
+        if (king == 0) {
+            return 0;
+        }
+        long zone = king | Bitboards.kingAttacks(Long.numberOfTrailingZeros(king));
+        int attacks = AttackMaps.get().attackCount(board, attacker, zone);
+        return parameters[KING_ATTACK + Math.min(attacks, 7)];
+    }
+
+    // Works out everything about a pawn structure that doesn't depend on the other pieces
+    private void analysePawns(PawnHashTable table, int index, long key, long whitePawns, long blackPawns) {
+        long passed = 0;
+        int structure = 0;
+        for (int color = 0; color < 2; color++) {
+            long own = color == 0 ? whitePawns : blackPawns;
+            long enemy = color == 0 ? blackPawns : whitePawns;
+            int sign = color == 0 ? 1 : -1;
+            for (int file = 0; file < 8; file++) {
+                int count = Long.bitCount(own & Bitboards.FILES[file]);
+                if (count > 1) {
+                    structure += sign * (count - 1) * parameters[DOUBLED_PAWN];
+                }
+                if (count > 0 && (own & Bitboards.ADJACENT_FILES[file]) == 0) {
+                    structure += sign * count * parameters[ISOLATED_PAWN];
+                }
+            }
+            for (long bits = own; bits != 0; bits &= bits - 1) {
+                int square = Long.numberOfTrailingZeros(bits);
+                if ((Bitboards.PASSED_SPAN[color][square] & enemy) == 0) {
+                    passed |= 1L << square;
+                }
+            }
+        }
+
+        int[] shields = new int[16];
+        for (int file = 0; file < 8; file++) {
+            long files = Bitboards.FILES[file] | Bitboards.ADJACENT_FILES[file];
+            shields[file] = parameters[PAWN_SHIELD] * Long.bitCount(whitePawns & files & Bitboards.RANK_1 << 8)
+                    + parameters[PAWN_SHIELD + 1] * Long.bitCount(whitePawns & files & Bitboards.RANK_1 << 16);
+            shields[8 + file] = parameters[PAWN_SHIELD] * Long.bitCount(blackPawns & files & Bitboards.RANK_8 >>> 8)
+                    + parameters[PAWN_SHIELD + 1] * Long.bitCount(blackPawns & files & Bitboards.RANK_8 >>> 16);
+        }
+        table.store(index, key, passed, structure, shields);
+    }
+
+    // Material and table score for a set of pieces; flip 56 reads the table for white, 0 for black
+    private int sideScore(long pieces, int type, int flip) {
+        return parameters[MATERIAL + type] * Long.bitCount(pieces) + tableScore(pieces, PIECE_SQUARE + type * 64, flip);
+    }
+
+    private int tableScore(long pieces, int table, int flip) {
+        int score = 0;
+        for (; pieces != 0; pieces &= pieces - 1) {
+            score += parameters[table + (Long.numberOfTrailingZeros(pieces) ^ flip)];
+        }
+        return score;
+    }
+}
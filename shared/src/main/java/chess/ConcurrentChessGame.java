@@ -0,0 +1,179 @@
+package chess;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A ChessGame that many threads can share: one mover making moves while
+ * persistence, list endpoints and spectators read the position and status.
+ * <p>
+ * Moves and other changes take a StampedLock's write lock. Reads never touch the
+ * game itself, since even status checks try moves on its board. Instead they
+ * take an optimistic read of the latest PositionSnapshot and move count (both
+ * set under the write lock) and work from that immutable copy, so readers don't
+ * block the mover and can't see or cause a half-made move. Only a reader that
+ * keeps losing the race to moves falls back to a read lock.
+ */
+public final class ConcurrentChessGame {
+    // Optimistic attempts before a reader waits for the read lock
+    private static final int OPTIMISTIC_TRIES = 3;
+
+    /**
+     * Where the game stands for the side to move
+     */
+    public enum Status {
+        ONGOING,
+        CHECK,
+        CHECKMATE,
+        STALEMATE
+    }
+
+    /**
+     * A consistent view of the game at one moment
+     *
+     * @param position  the position and side to move
+     * @param moveCount how many moves have been made through this wrapper
+     */
+    public record View(PositionSnapshot position, int moveCount) {
+    }
+
+    private final ChessGame game;
+    private final StampedLock lock = new StampedLock();
+    // Written only under the write lock
+    private PositionSnapshot position;
+    private int moveCount;
+    // The status of the position it was worked out for, reused until the next move
+    private volatile StatusEntry status;
+
+    private record StatusEntry(PositionSnapshot position, Status status) {
+    }
+
+    /**
+     * Wraps a game. The caller must not use the game directly from now on.
+     */
+    public ConcurrentChessGame(ChessGame game) {
+        this.game = game;
+        // Not game.snapshot(): the board may have been edited directly since the last move
+        this.position = PositionSnapshot.of(game);
+    }
+
+    public ConcurrentChessGame() {
+        this(new ChessGame());
+    }
+
+    /**
+     * Makes a move for the side to move
+     *
+     * @throws InvalidMoveException if it isn't legal; the game is unchanged
+     */
+    public void makeMove(ChessMove move) throws InvalidMoveException {
+        long stamp = lock.writeLock();
+        try {
+            game.makeMove(move);
+            moveCount++;
+            position = game.snapshot();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Plays a sequence of moves, as ChessGame.applyAll does, with no reader seeing
+     * the moves in between
+     *
+     * @return the index of the first illegal move, or -1 if every move was played
+     */
+    public int applyAll(List<ChessMove> moves) {
+        long stamp = lock.writeLock();
+        try {
+            int firstIllegal = game.applyAll(moves);
+            moveCount += firstIllegal < 0 ? moves.size() : firstIllegal;
+            position = game.snapshot();
+            return firstIllegal;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Replaces the position with a copy of another game's
+     */
+    public void reset(ChessGame from) {
+        ChessBoard board = from.getBoard().copyBoard();
+        long stamp = lock.writeLock();
+        try {
+            game.setBoard(board);
+            game.setTeamTurn(from.getTeamTurn());
+            moveCount = 0;
+            position = game.snapshot();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @return the latest position and move count, read together
+     */
+    public View view() {
+        for (int i = 0; i < OPTIMISTIC_TRIES; i++) {
+            long stamp = lock.tryOptimisticRead();
+            PositionSnapshot current = position;
+            int count = moveCount;
+            if (stamp != 0 && lock.validate(stamp)) {
+                return new View(current, count);
+            }
+        }
+        long stamp = lock.readLock();
+        try {
+            return new View(position, moveCount);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public PositionSnapshot snapshot() {
+        return view().position();
+    }
+
+    public ChessGame.TeamColor getTeamTurn() {
+        return snapshot().getTeamTurn();
+    }
+
+    public ChessPiece getPiece(ChessPosition square) {
+        return snapshot().getPiece(square);
+    }
+
+    /**
+     * @return whether the side to move is in check, mated or stalemated
+     */
+    public Status status() {
+        PositionSnapshot current = snapshot();
+        StatusEntry cached = status;
+        if (cached != null && cached.position() == current) {
+            return cached.status();
+        }
+        ChessGame copy = current.toGame();
+        ChessGame.TeamColor side = copy.getTeamTurn();
+        boolean inCheck = copy.isKingAttacked(side);
+        boolean canMove = copy.hasAnyLegalMove(side);
+        Status result = canMove ? (inCheck ? Status.CHECK : Status.ONGOING)
+                : (inCheck ? Status.CHECKMATE : Status.STALEMATE);
+        status = new StatusEntry(current, result);
+        return result;
+    }
+
+    /**
+     * @return the legal moves of the piece on a square, as ChessGame.validMoves, or null if it's empty
+     */
+    public Collection<ChessMove> validMoves(ChessPosition start) {
+        return snapshot().toGame().validMoves(start);
+    }
+
+    /**
+     * @return a new, independent game with the latest position
+     */
+    public ChessGame copy() {
+        return snapshot().toGame();
+    }
+}
@@ -0,0 +1,321 @@
+package chess;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Chess engine: finds the best moves for a position with an iterative deepening
+ * alpha-beta search.
+ * <p>
+ * The transposition table belongs to the engine, not to one search, so it is
+ * shared by all the lines of a multi-PV search and by later searches of nearby
+ * positions. Reuse one engine per game rather than making a new one per move.
+ * <p>
+ * With more than one thread, search uses Lazy SMP: helper threads search the same
+ * position at staggered depths, and the main search benefits from what they put
+ * in the shared table. Ponder searches run on one thread.
+ */
+public class Engine {
+    /**
+     * Score for mating right away; a mate in n plies scores MATE - n
+     */
+    public static final int MATE = 30000;
+
+    private final Evaluator evaluator;
+    private TranspositionTable table;
+    // What stop() sets: it belongs to the search running now or, if none is, to the
+    // next one to start. Each search swaps in a fresh one as it ends, so no search
+    // ever clears a stop meant for it.
+    private volatile AtomicBoolean stopSignal = new AtomicBoolean();
+    private int threads = 1;
+    private final List<SearchListener> listeners = new CopyOnWriteArrayList<>();
+    private final EngineStatistics statistics = new EngineStatistics(this);
+
+    // The background search started by ponder, if any
+    private Searcher ponderSearcher;
+    private ChessGame ponderPosition;
+    private CompletableFuture<SearchResult> ponderResult;
+    private AtomicBoolean ponderStop;
+
+    public Engine() {
+        this(new ClassicEvaluator(), 16);
+    }
+
+    /**
+     * @param evaluator     how to score positions
+     * @param hashMegabytes how much memory the transposition table may use
+     */
+    public Engine(Evaluator evaluator, int hashMegabytes) {
+        this.evaluator = evaluator;
+        this.table = new TranspositionTable(hashMegabytes);
+    }
+
+    /**
+     * Searches a position until a limit is reached or stop is called. The game
+     * itself isn't changed; the search works on a copy.
+     *
+     * @param game   the position to search
+     * @param limits when to stop and how many lines to report
+     * @return the best lines found, best first
+     */
+    public SearchResult search(ChessGame game, SearchLimits limits) {
+        return search(game, limits, () -> false);
+    }
+
+    /**
+     * Same as search(game, limits), but also stops once stopToken is true, whether
+     * this starts a new search or picks up a ponder search
+     */
+    public synchronized SearchResult search(ChessGame game, SearchLimits limits, BooleanSupplier stopToken) {
+        if (ponderSearcher != null) {
+            if (ponderPosition.equals(game)) {
+                AtomicBoolean stop = ponderStop;
+                ponderSearcher.stopWhen(() -> stop.get() || stopToken.getAsBoolean());
+                return ponderHit(limits);
+            }
+            ponderMiss();
+        }
+        AtomicBoolean stop = stopSignal;
+        table.newSearch();
+        Searcher main = new Searcher(this, copyOf(game), limits, false);
+        main.stopWhen(() -> stop.get() || stopToken.getAsBoolean());
+        if (threads == 1) {
+            try {
+                return main.run();
+            } finally {
+                searchEnded();
+            }
+        }
+
+        Searcher[] helpers = new Searcher[threads - 1];
+        Thread[] helperThreads = new Thread[threads - 1];
+        for (int i = 0; i < helpers.length; i++) {
+            helpers[i] = new Searcher(this, copyOf(game), limits, false, i + 1);
+            helperThreads[i] = new Thread(helpers[i]::run, "engine-helper-" + (i + 1));
+            helperThreads[i].setDaemon(true);
+            helperThreads[i].start();
+        }
+        main.addHelpers(helpers);
+        try {
+            return main.run();
+        } finally {
+            for (Searcher helper : helpers) {
+                helper.abort();
+            }
+            joinAll(helperThreads);
+            searchEnded();
+        }
+    }
+
+    /**
+     * Starts searching, in the background, the position after the reply we expect
+     * from the opponent, while they think about their move. If they play it, call
+     * ponderHit (or just search the new position) and the search carries on with
+     * its tree and transposition table, usually answering almost at once. If they
+     * play something else, call ponderMiss; the table is still kept.
+     *
+     * @param game          the position with the opponent to move
+     * @param expectedReply the move we think they'll play, such as SearchResult.ponderMove()
+     * @param multiPv       how many lines the eventual result should have
+     * @throws InvalidMoveException if the expected reply isn't legal
+     */
+    public synchronized void ponder(ChessGame game, ChessMove expectedReply, int multiPv) throws InvalidMoveException {
+        if (ponderSearcher != null) {
+            ponderMiss();
+        }
+        ChessGame predicted = copyOf(game);
+        predicted.makeMove(expectedReply);
+
+        AtomicBoolean stop = stopSignal;
+        table.newSearch();
+        Searcher searcher = new Searcher(this, copyOf(predicted), new SearchLimits(0, 0, 0, multiPv), true);
+        searcher.stopWhen(stop::get);
+        CompletableFuture<SearchResult> result = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                result.complete(searcher.run());
+            } catch (RuntimeException | Error e) {
+                result.completeExceptionally(e);
+            }
+        }, "engine-ponder");
+        thread.setDaemon(true);
+        ponderSearcher = searcher;
+        ponderPosition = predicted;
+        ponderResult = result;
+        ponderStop = stop;
+        thread.start();
+    }
+
+    /**
+     * The opponent played the expected reply: keep pondering's search going under
+     * real limits, counted from now, and wait for its result
+     *
+     * @throws IllegalStateException if the engine isn't pondering
+     */
+    public synchronized SearchResult ponderHit(SearchLimits limits) {
+        if (ponderSearcher == null) {
+            throw new IllegalStateException("Not pondering");
+        }
+        ponderSearcher.ponderHit(limits);
+        CompletableFuture<SearchResult> result = ponderResult;
+        clearPonder();
+        try {
+            return result.join();
+        } finally {
+            searchEnded();
+        }
+    }
+
+    /**
+     * The opponent played something else: stop pondering and drop its result
+     */
+    public synchronized void ponderMiss() {
+        if (ponderSearcher == null) {
+            return;
+        }
+        ponderSearcher.abort();
+        CompletableFuture<SearchResult> result = ponderResult;
+        clearPonder();
+        try {
+            result.join();
+        } finally {
+            searchEnded();
+        }
+    }
+
+    public synchronized boolean isPondering() {
+        return ponderSearcher != null;
+    }
+
+    private void clearPonder() {
+        ponderSearcher = null;
+        ponderPosition = null;
+        ponderResult = null;
+        ponderStop = null;
+    }
+
+    // The search that owned stopSignal is over; stop() now means the next one
+    private void searchEnded() {
+        stopSignal = new AtomicBoolean();
+    }
+
+    /**
+     * Asks a running search (or ponder search) to finish; it returns the best
+     * result found so far. Called while no search is running, it stops the next
+     * search as soon as it starts, so a stop sent just before search() isn't lost.
+     */
+    public void stop() {
+        stopSignal.set(true);
+    }
+
+    public void addListener(SearchListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(SearchListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return the counters totalled over every search, also available over JMX
+     */
+    public EngineStatistics statistics() {
+        return statistics;
+    }
+
+    /**
+     * Publishes this engine's statistics with the platform MBean server, as
+     * chess:type=Engine,name=&lt;name&gt;, so JConsole and other JMX clients can watch them
+     *
+     * @return the name it was registered under, for unregistering
+     * @throws IllegalStateException if the name is taken or not valid
+     */
+    public ObjectName registerMBean(String name) {
+        try {
+            ObjectName objectName = new ObjectName("chess:type=Engine,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(statistics, objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register engine statistics as " + name, e);
+        }
+    }
+
+    void depthCompleted(int depth, List<PrincipalVariation> lines, SearchStats stats) {
+        for (SearchListener listener : listeners) {
+            listener.depthCompleted(depth, lines, stats);
+        }
+    }
+
+    void searchFinished(SearchResult result, SearchStats stats) {
+        statistics.add(result, stats);
+        for (SearchListener listener : listeners) {
+            listener.searchFinished(result, stats);
+        }
+    }
+
+    Evaluator evaluator() {
+        return evaluator;
+    }
+
+    TranspositionTable table() {
+        return table;
+    }
+
+    /**
+     * Sets how many threads search uses from the next search on
+     *
+     * @throws IllegalArgumentException if threads is less than one
+     */
+    public synchronized void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one search thread");
+        }
+        this.threads = threads;
+    }
+
+    public synchronized int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Replaces the transposition table with an empty one of a new size
+     */
+    public synchronized void setHashSize(int megabytes) {
+        ponderMiss();
+        table = new TranspositionTable(megabytes);
+    }
+
+    /**
+     * Forgets everything learned by earlier searches, e.g. before a new game
+     */
+    public synchronized void clearHash() {
+        table.clear();
+    }
+
+    // Waits for helper threads even if interrupted, keeping the interrupt for the caller
+    private static void joinAll(Thread[] threads) {
+        boolean interrupted = false;
+        for (Thread thread : threads) {
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static ChessGame copyOf(ChessGame game) {
+        return new ChessGame(game.getBoard().copyBoard(), game.getTeamTurn());
+    }
+}
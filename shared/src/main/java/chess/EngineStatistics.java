@@ -0,0 +1,127 @@
+package chess;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Running totals of an engine's search counters. Searches add to them when they
+ * finish, so reading them never slows a search down.
+ */
+public final class EngineStatistics implements EngineStatisticsMXBean {
+    private final Engine engine;
+    private final AtomicLong searches = new AtomicLong();
+    private final AtomicLong nodes = new AtomicLong();
+    private final AtomicLong quiescenceNodes = new AtomicLong();
+    private final AtomicLong tableProbes = new AtomicLong();
+    private final AtomicLong tableHits = new AtomicLong();
+    private final AtomicLong tableCutoffs = new AtomicLong();
+    private final AtomicLong cutoffs = new AtomicLong();
+    private final AtomicLong firstMoveCutoffs = new AtomicLong();
+    private final AtomicLong nanos = new AtomicLong();
+    private volatile int lastDepth;
+    private volatile SearchStats last;
+
+    EngineStatistics(Engine engine) {
+        this.engine = engine;
+    }
+
+    void add(SearchResult result, SearchStats stats) {
+        searches.incrementAndGet();
+        nodes.addAndGet(stats.nodes());
+        quiescenceNodes.addAndGet(stats.quiescenceNodes());
+        tableProbes.addAndGet(stats.tableProbes());
+        tableHits.addAndGet(stats.tableHits());
+        tableCutoffs.addAndGet(stats.tableCutoffs());
+        cutoffs.addAndGet(stats.cutoffs());
+        firstMoveCutoffs.addAndGet(stats.firstMoveCutoffs());
+        nanos.addAndGet(stats.nanos());
+        lastDepth = result.depth();
+        last = stats;
+    }
+
+    /**
+     * @return the counters from the latest search, or null before the first one
+     */
+    public SearchStats lastSearch() {
+        return last;
+    }
+
+    @Override
+    public long getSearches() {
+        return searches.get();
+    }
+
+    @Override
+    public long getNodes() {
+        return nodes.get();
+    }
+
+    @Override
+    public long getQuiescenceNodes() {
+        return quiescenceNodes.get();
+    }
+
+    @Override
+    public long getTableProbes() {
+        return tableProbes.get();
+    }
+
+    @Override
+    public long getTableHits() {
+        return tableHits.get();
+    }
+
+    @Override
+    public long getTableCutoffs() {
+        return tableCutoffs.get();
+    }
+
+    @Override
+    public double getTableHitRate() {
+        long probes = tableProbes.get();
+        return probes == 0 ? 0 : (double) tableHits.get() / probes;
+    }
+
+    @Override
+    public double getFirstMoveCutoffRate() {
+        long total = cutoffs.get();
+        return total == 0 ? 0 : (double) firstMoveCutoffs.get() / total;
+    }
+
+    @Override
+    public double getNodesPerSecond() {
+        long time = nanos.get();
+        return time == 0 ? 0 : nodes.get() * 1e9 / time;
+    }
+
+    @Override
+    public int getTableUsagePermille() {
+        return engine.table().usagePermille();
+    }
+
+    @Override
+    public int getLastDepth() {
+        return lastDepth;
+    }
+
+    @Override
+    public double getLastEffectiveBranchingFactor() {
+        SearchStats stats = last;
+        return stats == null ? 0 : stats.effectiveBranchingFactor();
+    }
+
+    @Override
+    public long getLastSearchMillis() {
+        SearchStats stats = last;
+        return stats == null ? 0 : stats.nanos() / 1_000_000;
+    }
+
+    @Override
+    public void reset() {
+        for (AtomicLong counter : new AtomicLong[]{searches, nodes, quiescenceNodes, tableProbes, tableHits,
+                tableCutoffs, cutoffs, firstMoveCutoffs, nanos}) {
+            counter.set(0);
+        }
+        lastDepth = 0;
+        last = null;
+    }
+}
@@ -0,0 +1,39 @@
+package chess;
+
+/**
+ * Management view of an engine's search counters, totalled over every search
+ * since the engine was made or reset. Registered by Engine.registerMBean.
+ */
+public interface EngineStatisticsMXBean {
+
+    long getSearches();
+
+    long getNodes();
+
+    long getQuiescenceNodes();
+
+    long getTableProbes();
+
+    long getTableHits();
+
+    long getTableCutoffs();
+
+    double getTableHitRate();
+
+    double getFirstMoveCutoffRate();
+
+    double getNodesPerSecond();
+
+    /**
+     * @return thousandths of the transposition table filled by the latest search
+     */
+    int getTableUsagePermille();
+
+    int getLastDepth();
+
+    double getLastEffectiveBranchingFactor();
+
+    long getLastSearchMillis();
+
+    void reset();
+}
@@ -0,0 +1,13 @@
+package chess;
+
+/**
+ * Scores a position for the engine's search
+ */
+public interface Evaluator {
+
+    /**
+     * @param game the position to score
+     * @return the score in centipawns from the point of view of the side to move
+     */
+    int evaluate(ChessGame game);
+}
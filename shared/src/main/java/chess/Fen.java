@@ -0,0 +1,155 @@
+package chess;
+
+/**
+ * Reads and writes Forsyth-Edwards Notation (FEN) position strings.
+ * <p>
+ * ChessGame only tracks piece placement and whose turn it is, so the castling,
+ * en passant and clock fields are accepted when parsing but not kept.
+ */
+public final class Fen {
+    /**
+     * FEN of the normal starting position
+     */
+    public static final String START_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1";
+
+    private Fen() {
+    }
+
+    /**
+     * Builds a game from a FEN string
+     *
+     * @param fen the FEN to parse, at least the placement and side to move fields
+     * @return a new game set up with the described position
+     * @throws IllegalArgumentException if the FEN is malformed
+     */
+    public static ChessGame parse(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 2) {
+            throw new IllegalArgumentException("FEN needs a placement and a side to move: " + fen);
+        }
+
+        ChessGame.TeamColor turn = switch (fields[1]) {
+            case "w" -> ChessGame.TeamColor.WHITE;
+            case "b" -> ChessGame.TeamColor.BLACK;
+            default -> throw new IllegalArgumentException("Bad side to move in FEN: " + fields[1]);
+        };
+        return new ChessGame(parseBoard(fields[0]), turn);
+    }
+
+    /**
+     * Builds a board from the piece placement field of a FEN string
+     *
+     * @param placement ranks 8 to 1 separated by '/'
+     * @return the board described by the placement
+     * @throws IllegalArgumentException if the placement is malformed
+     */
+    public static ChessBoard parseBoard(String placement) {
+        ChessBoard board = new ChessBoard();
+        int row = 8;
+        int col = 1;
+        for (int i = 0; i < placement.length(); i++) {
+            char c = placement.charAt(i);
+            if (c == '/') {
+                if (col != 9 || row == 1) {
+                    throw new IllegalArgumentException("Bad rank in FEN placement: " + placement);
+                }
+                row--;
+                col = 1;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+            } else {
+                ChessPiece piece = pieceFor(c);
+                if (piece == null || col > 8) {
+                    throw new IllegalArgumentException("Bad piece in FEN placement: " + placement);
+                }
+                board.addPiece(new ChessPosition(row, col), piece);
+                col++;
+            }
+            if (col > 9) {
+                throw new IllegalArgumentException("Rank too long in FEN placement: " + placement);
+            }
+        }
+        if (row != 1 || col != 9) {
+            throw new IllegalArgumentException("FEN placement must describe 8 full ranks: " + placement);
+        }
+        return board;
+    }
+
+    /**
+     * Writes a game as a FEN string
+     *
+     * @param game the game to describe
+     * @return the FEN, with empty castling and en passant fields
+     */
+    public static String format(ChessGame game) {
+        char side = game.getTeamTurn() == ChessGame.TeamColor.WHITE ? 'w' : 'b';
+        return formatBoard(game.getBoard()) + ' ' + side + " - - 0 1";
+    }
+
+    /**
+     * Writes the piece placement field for a board
+     *
+     * @param board the board to describe
+     * @return ranks 8 to 1 separated by '/'
+     */
+    public static String formatBoard(ChessBoard board) {
+        StringBuilder out = new StringBuilder(64);
+        for (int row = 8; row >= 1; row--) {
+            int empty = 0;
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = board.getPiece(new ChessPosition(row, col));
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    out.append(empty);
+                    empty = 0;
+                }
+                out.append(symbol(piece));
+            }
+            if (empty > 0) {
+                out.append(empty);
+            }
+            if (row > 1) {
+                out.append('/');
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * @return the FEN letter for a piece, upper case for white
+     */
+    public static char symbol(ChessPiece piece) {
+        char c = switch (piece.getPieceType()) {
+            case KING -> 'k';
+            case QUEEN -> 'q';
+            case BISHOP -> 'b';
+            case KNIGHT -> 'n';
+            case ROOK -> 'r';
+            case PAWN -> 'p';
+        };
+        return piece.getTeamColor() == ChessGame.TeamColor.WHITE ? Character.toUpperCase(c) : c;
+    }
+
+    /**
+     * @return the piece for a FEN letter, or null if the letter is not a piece
+     */
+    public static ChessPiece pieceFor(char c) {
+        ChessPiece.PieceType type = switch (Character.toLowerCase(c)) {
+            case 'k' -> ChessPiece.PieceType.KING;
+            case 'q' -> ChessPiece.PieceType.QUEEN;
+            case 'b' -> ChessPiece.PieceType.BISHOP;
+            case 'n' -> ChessPiece.PieceType.KNIGHT;
+            case 'r' -> ChessPiece.PieceType.ROOK;
+            case 'p' -> ChessPiece.PieceType.PAWN;
+            default -> null;
+        };
+        if (type == null) {
+            return null;
+        }
+        ChessGame.TeamColor color = Character.isUpperCase(c) ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        return new ChessPiece(color, type);
+    }
+}
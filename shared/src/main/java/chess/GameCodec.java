@@ -0,0 +1,103 @@
+package chess;
+
+import com.google.gson.JsonParseException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary form of a stored game: a two byte header, a position in PositionCodec's
+ * 33 byte form, then any moves played from that position, two bytes each as
+ * packed by ChessMove.encode() (high byte first).
+ * <p>
+ * The header is a zero byte, which can't start JSON text, followed by the format
+ * version. Anything without it is taken to be JSON written by ChessJson or plain
+ * Gson, so old rows can be read and rewritten in this form as they're loaded.
+ */
+public final class GameCodec {
+    /**
+     * Format version written by encode
+     */
+    public static final int VERSION = 1;
+
+    private static final int HEADER_LENGTH = 2;
+    private static final int MOVES_OFFSET = HEADER_LENGTH + PositionCodec.ENCODED_LENGTH;
+
+    private GameCodec() {
+    }
+
+    /**
+     * Encodes a game's position with no moves after it
+     */
+    public static byte[] encode(ChessGame game) {
+        return encode(game, new int[0]);
+    }
+
+    /**
+     * Encodes a starting position and the moves played from it
+     *
+     * @param start the position before the first move
+     * @param moves moves packed with ChessMove.encode()
+     */
+    public static byte[] encode(ChessGame start, int[] moves) {
+        byte[] out = new byte[MOVES_OFFSET + moves.length * 2];
+        out[1] = VERSION;
+        PositionCodec.encode(start.getBoard(), start.getTeamTurn(), out, HEADER_LENGTH);
+        for (int i = 0; i < moves.length; i++) {
+            out[MOVES_OFFSET + i * 2] = (byte) (moves[i] >>> 8);
+            out[MOVES_OFFSET + i * 2 + 1] = (byte) moves[i];
+        }
+        return out;
+    }
+
+    /**
+     * @return whether data is already in the current binary form, so doesn't need rewriting
+     */
+    public static boolean isCurrent(byte[] data) {
+        return data.length >= MOVES_OFFSET && data[0] == 0 && data[1] == VERSION;
+    }
+
+    /**
+     * Rebuilds a game from either the binary form or older JSON
+     *
+     * @throws IllegalArgumentException if the data is damaged, from an unknown
+     *                                  version, or holds an illegal move
+     */
+    public static ChessGame decode(byte[] data) {
+        if (data.length == 0 || data[0] != 0) {
+            try {
+                ChessGame game = ChessJson.gson().fromJson(new String(data, StandardCharsets.UTF_8), ChessGame.class);
+                if (game == null) {
+                    throw new IllegalArgumentException("Game data is empty");
+                }
+                return game;
+            } catch (JsonParseException e) {
+                throw new IllegalArgumentException("Game data is neither binary nor JSON: " + e.getMessage(), e);
+            }
+        }
+        if (data.length < 2 || data[1] != VERSION) {
+            throw new IllegalArgumentException("Unsupported game data version " + (data.length < 2 ? "?" : data[1]));
+        }
+        if (data.length < MOVES_OFFSET || (data.length - MOVES_OFFSET) % 2 != 0) {
+            throw new IllegalArgumentException("Game data is truncated (" + data.length + " bytes)");
+        }
+
+        ChessGame game = PositionCodec.decode(data, HEADER_LENGTH);
+        int[] moves = moves(data);
+        int illegal = game.applyAll(moves);
+        if (illegal >= 0) {
+            throw new IllegalArgumentException("Stored move " + (illegal + 1) + " is illegal");
+        }
+        return game;
+    }
+
+    /**
+     * @return the packed moves stored after the starting position of binary data
+     */
+    static int[] moves(byte[] data) {
+        int[] moves = new int[(data.length - MOVES_OFFSET) / 2];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = (data[MOVES_OFFSET + i * 2] & 0xFF) << 8 | data[MOVES_OFFSET + i * 2 + 1] & 0xFF;
+        }
+        return moves;
+    }
+}
@@ -0,0 +1,200 @@
+package chess;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded cache of each position's legal moves, shared by every game, so the
+ * many games that pass through the same openings only generate them once.
+ * <p>
+ * Entries are keyed by the position's Zobrist key for the side whose moves they
+ * are, and hold the moves packed as by ChessMove.encode() in a short[] (every
+ * packed move fits in 15 bits). The cache is split into sets of WAYS entries;
+ * a new entry replaces one in its set chosen by the CLOCK algorithm, which
+ * skips over (and clears) entries that have been used since it last passed.
+ * <p>
+ * Lookups don't lock: entries are immutable apart from their used flag, so a
+ * reader racing a writer sees either the old entry or the new one. Inserts lock
+ * one of STRIPES locks, and clear takes all of them.
+ */
+public final class LegalMoveCache {
+    /**
+     * Entries per set
+     */
+    public static final int WAYS = 8;
+
+    private static final int STRIPES = 64;
+    private static final LegalMoveCache SHARED = new LegalMoveCache(1 << 16);
+
+    private final Entry[] entries;
+    private final int[] hands;
+    private final int setMask;
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private static final class Entry {
+        final long key;
+        final short[] moves;
+        // Set on every hit and cleared by the clock hand; races only cost an early eviction
+        boolean used;
+
+        Entry(long key, short[] moves) {
+            this.key = key;
+            this.moves = moves;
+        }
+    }
+
+    /**
+     * @param capacity roughly how many positions to keep; rounded up to a power of two
+     */
+    public LegalMoveCache(int capacity) {
+        int sets = 1;
+        while ((long) sets * WAYS < capacity) {
+            sets <<= 1;
+        }
+        entries = new Entry[sets * WAYS];
+        hands = new int[sets];
+        setMask = sets - 1;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * @return the cache ChessGame uses
+     */
+    public static LegalMoveCache shared() {
+        return SHARED;
+    }
+
+    public int capacity() {
+        return entries.length;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the share of lookups that were hits, from 0 to 1
+     */
+    public double hitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    public void clear() {
+        // Takes every stripe lock in order, then empties the cache once with all of them held
+        int held = 0;
+        try {
+            for (; held < STRIPES; held++) {
+                locks[held].lock();
+            }
+            Arrays.fill(entries, null);
+            Arrays.fill(hands, 0);
+        } finally {
+            while (held > 0) {
+                locks[--held].unlock();
+            }
+        }
+        hits.reset();
+        misses.reset();
+    }
+
+    /**
+     * Gets a side's legal moves in a game's position, generating and storing them
+     * on a miss. The array is shared and must not be changed.
+     */
+    short[] get(ChessGame game, ChessGame.TeamColor side) {
+        long key = key(game, side);
+        short[] moves = lookup(key);
+        if (moves != null) {
+            hits.increment();
+            return moves;
+        }
+        misses.increment();
+        moves = generate(game, side);
+        put(key, moves);
+        return moves;
+    }
+
+    /**
+     * @return a side's cached legal moves, or null if they aren't cached, without generating them
+     */
+    short[] peek(ChessGame game, ChessGame.TeamColor side) {
+        short[] moves = lookup(key(game, side));
+        (moves != null ? hits : misses).increment();
+        return moves;
+    }
+
+    private short[] lookup(long key) {
+        int base = set(key) * WAYS;
+        for (int way = 0; way < WAYS; way++) {
+            Entry entry = entries[base + way];
+            if (entry != null && entry.key == key) {
+                if (!entry.used) {
+                    entry.used = true;
+                }
+                return entry.moves;
+            }
+        }
+        return null;
+    }
+
+    private void put(long key, short[] moves) {
+        int set = set(key);
+        int base = set * WAYS;
+        ReentrantLock lock = locks[set & (STRIPES - 1)];
+        lock.lock();
+        try {
+            int free = -1;
+            for (int way = 0; way < WAYS; way++) {
+                Entry entry = entries[base + way];
+                if (entry == null) {
+                    free = free < 0 ? way : free;
+                } else if (entry.key == key) {
+                    // Another thread got here first
+                    return;
+                }
+            }
+            if (free < 0) {
+                int hand = hands[set];
+                while (entries[base + hand].used) {
+                    entries[base + hand].used = false;
+                    hand = (hand + 1) % WAYS;
+                }
+                free = hand;
+                hands[set] = (hand + 1) % WAYS;
+            }
+            entries[base + free] = new Entry(key, moves);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int set(long key) {
+        return (int) (key ^ key >>> 32) & setMask;
+    }
+
+    // The position's key as if it were side's turn, since validMoves doesn't care whose turn it is
+    private static long key(ChessGame game, ChessGame.TeamColor side) {
+        return game.getBoard().zobristKey() ^ (side == ChessGame.TeamColor.BLACK ? Zobrist.BLACK_TO_MOVE : 0L);
+    }
+
+    private static short[] generate(ChessGame game, ChessGame.TeamColor side) {
+        MoveIterator iterator = game.legalMoves(side);
+        short[] moves = new short[MoveGenerator.MAX_MOVES];
+        int count = 0;
+        for (int move = iterator.nextMove(); move >= 0; move = iterator.nextMove()) {
+            moves[count++] = (short) move;
+        }
+        return Arrays.copyOf(moves, count);
+    }
+}
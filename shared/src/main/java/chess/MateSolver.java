@@ -0,0 +1,271 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Answers "can the side to move force mate in n moves?" with proof-number search.
+ * <p>
+ * The search grows a tree, always expanding the leaf that would do most to prove
+ * or disprove the mate, and counts for each node how many leaves still have to be
+ * proven (the proof number) or disproven (the disproof number). It ignores how
+ * good a position is, only whether the mate is forced, so it settles these
+ * questions far faster than a full-depth alpha-beta search.
+ * <p>
+ * Nodes are kept in parallel int arrays, NODE_BYTES each, sized by the memory cap
+ * given to the constructor; a search that fills them reports UNKNOWN. A solver
+ * reuses its arrays between searches and must be used by one thread at a time.
+ */
+public class MateSolver {
+    /**
+     * Memory one tree node takes
+     */
+    public static final int NODE_BYTES = 22;
+
+    private static final int INFINITE = 1 << 30;
+
+    /**
+     * Whether a mate was found
+     */
+    public enum Outcome {
+        /** The side to move mates in at most the given number of moves, whatever the defence */
+        MATE,
+        /** There is no forced mate that fast */
+        NO_MATE,
+        /** The node limit ran out before the search could tell */
+        UNKNOWN
+    }
+
+    /**
+     * What a search found
+     *
+     * @param outcome whether the mate is forced
+     * @param line    for a MATE, a mating line (the defence is one of the longest-lasting
+     *                the tree knows of, not necessarily the best); empty otherwise
+     * @param nodes   how many tree nodes the search used
+     */
+    public record Result(Outcome outcome, List<ChessMove> line, int nodes) {
+
+        /**
+         * @return the mating move, or null if no mate was found
+         */
+        public ChessMove firstMove() {
+            return line.isEmpty() ? null : line.get(0);
+        }
+    }
+
+    // Tree nodes: children of a node sit next to each other from firstChild
+    private final int[] parent;
+    private final int[] firstChild;
+    private final short[] childCount;
+    private final int[] move;
+    private final int[] proof;
+    private final int[] disproof;
+    private int size;
+
+    // Move buffers for expanding a node and for counting each child's replies
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+    private final int[] replies = new int[MoveGenerator.MAX_MOVES];
+
+    /**
+     * @param megabytes how much memory the tree may use
+     */
+    public MateSolver(int megabytes) {
+        this((long) megabytes * 1024 * 1024);
+    }
+
+    /**
+     * @param memoryBytes how much memory the tree may use, for tests that need a tiny cap
+     */
+    MateSolver(long memoryBytes) {
+        int nodeLimit = (int) Math.min(Integer.MAX_VALUE - 8, memoryBytes / NODE_BYTES);
+        if (nodeLimit < 1) {
+            throw new IllegalArgumentException("Need room for at least one node");
+        }
+        parent = new int[nodeLimit];
+        firstChild = new int[nodeLimit];
+        childCount = new short[nodeLimit];
+        move = new int[nodeLimit];
+        proof = new int[nodeLimit];
+        disproof = new int[nodeLimit];
+    }
+
+    /**
+     * @return how many nodes fit in the memory cap
+     */
+    public int nodeLimit() {
+        return parent.length;
+    }
+
+    /**
+     * Looks for a forced mate by the side to move. The game itself isn't changed.
+     *
+     * @param game      the position to solve
+     * @param moveCount the most moves the mating side may take, so 1 means mate in one
+     */
+    public Result solve(ChessGame game, int moveCount) {
+        if (moveCount < 1) {
+            throw new IllegalArgumentException("Mate must be in at least one move");
+        }
+        ChessGame position = Engine.copyOf(game);
+        int maxPly = 2 * moveCount - 1;
+        size = 1;
+        parent[0] = -1;
+        childCount[0] = 0;
+        proof[0] = 1;
+        disproof[0] = 1;
+
+        int[] path = new int[maxPly + 1];
+        int[] captured = new int[maxPly + 1];
+        while (proof[0] != 0 && disproof[0] != 0) {
+            // Walk down to the most proving leaf
+            int node = 0;
+            int ply = 0;
+            while (childCount[node] > 0) {
+                node = bestChild(node, ply % 2 == 0);
+                path[ply] = node;
+                captured[ply] = position.play(move[node]);
+                ply++;
+            }
+            boolean expanded = expand(node, ply, maxPly, position);
+            update(node, ply % 2 == 0);
+
+            // Back up the new numbers, taking the moves back on the way
+            for (int i = ply - 1; i >= 0; i--) {
+                position.unplay(move[path[i]], captured[i]);
+                update(i == 0 ? 0 : path[i - 1], i % 2 == 0);
+            }
+            if (!expanded) {
+                return new Result(Outcome.UNKNOWN, List.of(), size);
+            }
+        }
+        if (proof[0] != 0) {
+            return new Result(Outcome.NO_MATE, List.of(), size);
+        }
+        return new Result(Outcome.MATE, mainLine(), size);
+    }
+
+    // The child an OR node (mating side to move) or AND node should look at next
+    private int bestChild(int node, boolean or) {
+        int[] numbers = or ? proof : disproof;
+        int best = firstChild[node];
+        for (int child = best + 1; child < firstChild[node] + childCount[node]; child++) {
+            if (numbers[child] < numbers[best]) {
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Adds a node's children and scores each one
+     *
+     * @return false if the node limit ran out
+     */
+    private boolean expand(int node, int ply, int maxPly, ChessGame position) {
+        int count = legalMoves(position, moves);
+        if (count == 0) {
+            // Only the root can be a leaf with no moves; the rest were scored when created
+            proof[node] = INFINITE;
+            disproof[node] = 0;
+            return true;
+        }
+        if (size + count > parent.length) {
+            return false;
+        }
+        firstChild[node] = size;
+        childCount[node] = (short) count;
+        for (int i = 0; i < count; i++) {
+            int child = size++;
+            int childPly = ply + 1;
+            parent[child] = node;
+            childCount[child] = 0;
+            move[child] = moves[i];
+            int taken = position.play(moves[i]);
+            int replyCount = legalMoves(position, replies);
+            if (childPly % 2 == 1) {
+                // Defender to move: mated, or else the mate has run out of time
+                if (replyCount == 0 && position.isKingAttacked(position.getTeamTurn())) {
+                    setNumbers(child, 0, INFINITE);
+                } else if (replyCount == 0 || childPly == maxPly) {
+                    setNumbers(child, INFINITE, 0);
+                } else {
+                    // Every reply has to be answered, so more replies mean more to prove
+                    setNumbers(child, replyCount, 1);
+                }
+            } else if (replyCount == 0) {
+                setNumbers(child, INFINITE, 0);
+            } else {
+                setNumbers(child, 1, replyCount);
+            }
+            position.unplay(moves[i], taken);
+        }
+        return true;
+    }
+
+    private void setNumbers(int node, int proofNumber, int disproofNumber) {
+        proof[node] = proofNumber;
+        disproof[node] = disproofNumber;
+    }
+
+    // An OR node needs one child proven and all disproven, an AND node the reverse
+    private void update(int node, boolean or) {
+        if (childCount[node] == 0) {
+            return;
+        }
+        int min = INFINITE;
+        int sum = 0;
+        int[] minOf = or ? proof : disproof;
+        int[] sumOf = or ? disproof : proof;
+        for (int child = firstChild[node]; child < firstChild[node] + childCount[node]; child++) {
+            min = Math.min(min, minOf[child]);
+            // Two INFINITE children would overflow an int, so stop adding once it's reached
+            if (sum < INFINITE) {
+                sum = Math.min(INFINITE, sum + sumOf[child]);
+            }
+        }
+        if (or) {
+            setNumbers(node, min, sum);
+        } else {
+            setNumbers(node, sum, min);
+        }
+    }
+
+    // Follows a proven child at mating nodes and the biggest proven subtree at defending ones
+    private List<ChessMove> mainLine() {
+        List<ChessMove> line = new ArrayList<>();
+        int node = 0;
+        for (int ply = 0; childCount[node] > 0; ply++) {
+            int next = -1;
+            for (int child = firstChild[node]; child < firstChild[node] + childCount[node]; child++) {
+                if (proof[child] != 0) {
+                    continue;
+                }
+                if (next < 0 || ply % 2 == 1 && childCount[child] > childCount[next]) {
+                    next = child;
+                }
+                if (ply % 2 == 0) {
+                    break;
+                }
+            }
+            node = next;
+            line.add(ChessMove.decode(move[node]));
+        }
+        return line;
+    }
+
+    // Legal moves for the side to move, filtered from the pseudo-legal ones
+    private static int legalMoves(ChessGame position, int[] buffer) {
+        ChessGame.TeamColor mover = position.getTeamTurn();
+        int count = MoveGenerator.generateAll(position.getBoard(), mover, buffer, 0);
+        int legal = 0;
+        for (int i = 0; i < count; i++) {
+            int taken = position.play(buffer[i]);
+            if (!position.isKingAttacked(mover)) {
+                buffer[legal++] = buffer[i];
+            }
+            position.unplay(buffer[i], taken);
+        }
+        return legal;
+    }
+}
@@ -0,0 +1,185 @@
+package chess;
+
+/**
+ * Generates pseudo-legal moves from a board's bitboards, packed as ints in the
+ * ChessMove.encode() format, into caller-owned arrays so search loops don't
+ * allocate. Moves are the same ones pieceMoves would give; callers still have to
+ * reject the ones that leave their own king attacked.
+ * <p>
+ * Moves come in two groups: tactical moves (captures and queen promotions) and
+ * quiet moves (everything else, including under-promotions), so a search can
+ * look at the likely good moves first or only at those. generateStage splits
+ * them differently, into captures, quiet moves and promotions, for MoveIterator.
+ */
+final class MoveGenerator {
+    /**
+     * More than enough room for the moves of any position
+     */
+    static final int MAX_MOVES = 256;
+
+    /**
+     * Stages for generateStage: captures that don't promote, quiet moves that
+     * don't promote, and every promotion
+     */
+    static final int CAPTURES = 0;
+    static final int QUIETS = 1;
+    static final int PROMOTIONS = 2;
+
+    private static final int QUEEN = ChessPiece.PieceType.QUEEN.ordinal() + 1;
+    private static final int[] UNDER_PROMOTIONS = {
+        ChessPiece.PieceType.ROOK.ordinal() + 1,
+        ChessPiece.PieceType.BISHOP.ordinal() + 1,
+        ChessPiece.PieceType.KNIGHT.ordinal() + 1
+    };
+
+    private MoveGenerator() {
+    }
+
+    static int move(int from, int to, int promotion) {
+        return from | to << 6 | promotion << 12;
+    }
+
+    static int from(int move) {
+        return move & 63;
+    }
+
+    static int to(int move) {
+        return move >>> 6 & 63;
+    }
+
+    static int promotion(int move) {
+        return move >>> 12 & 7;
+    }
+
+    /**
+     * Writes one side's tactical or quiet moves into an array
+     *
+     * @param board    the position
+     * @param side     whose moves to generate
+     * @param tactical true for captures and queen promotions, false for the rest
+     * @param moves    where to write the moves
+     * @param count    the index to start writing at
+     * @return the new count, after the last move written
+     */
+    static int generate(ChessBoard board, ChessGame.TeamColor side, boolean tactical, int[] moves, int count) {
+        long own = board.occupied(side);
+        long enemy = board.occupied(ChessGame.opponent(side));
+        long occupied = own | enemy;
+        long targets = tactical ? enemy : ~occupied;
+
+        count = pawnMoves(board.pieces(side, ChessPiece.PieceType.PAWN), Bitboards.colorIndex(side), tactical,
+                enemy, occupied, moves, count);
+        return pieceMoves(board, side, targets, occupied, moves, count);
+    }
+
+    /**
+     * Writes one stage's pseudo-legal moves into an array
+     *
+     * @param stage CAPTURES, QUIETS or PROMOTIONS
+     * @return the new count, after the last move written
+     */
+    static int generateStage(ChessBoard board, ChessGame.TeamColor side, int stage, int[] moves, int count) {
+        long own = board.occupied(side);
+        long enemy = board.occupied(ChessGame.opponent(side));
+        long occupied = own | enemy;
+        int color = Bitboards.colorIndex(side);
+        long pawns = board.pieces(side, ChessPiece.PieceType.PAWN);
+        // Pawns one step from promoting
+        long promoting = pawns & (color == 0 ? Bitboards.RANK_8 >>> 8 : Bitboards.RANK_1 << 8);
+
+        if (stage == PROMOTIONS) {
+            count = pawnMoves(promoting, color, true, enemy, occupied, moves, count);
+            return pawnMoves(promoting, color, false, enemy, occupied, moves, count);
+        }
+        boolean captures = stage == CAPTURES;
+        count = pawnMoves(pawns & ~promoting, color, captures, enemy, occupied, moves, count);
+        return pieceMoves(board, side, captures ? enemy : ~occupied, occupied, moves, count);
+    }
+
+    // Knight, bishop, rook, queen and king moves onto target squares
+    private static int pieceMoves(ChessBoard board, ChessGame.TeamColor side, long targets, long occupied,
+                                  int[] moves, int count) {
+        for (long bits = board.pieces(side, ChessPiece.PieceType.KNIGHT); bits != 0; bits &= bits - 1) {
+            int from = Long.numberOfTrailingZeros(bits);
+            count = addAll(from, Bitboards.knightAttacks(from) & targets, moves, count);
+        }
+        for (long bits = board.pieces(side, ChessPiece.PieceType.BISHOP); bits != 0; bits &= bits - 1) {
+            int from = Long.numberOfTrailingZeros(bits);
+            count = addAll(from, Bitboards.bishopAttacks(from, occupied) & targets, moves, count);
+        }
+        for (long bits = board.pieces(side, ChessPiece.PieceType.ROOK); bits != 0; bits &= bits - 1) {
+            int from = Long.numberOfTrailingZeros(bits);
+            count = addAll(from, Bitboards.rookAttacks(from, occupied) & targets, moves, count);
+        }
+        for (long bits = board.pieces(side, ChessPiece.PieceType.QUEEN); bits != 0; bits &= bits - 1) {
+            int from = Long.numberOfTrailingZeros(bits);
+            count = addAll(from, Bitboards.queenAttacks(from, occupied) & targets, moves, count);
+        }
+        for (long bits = board.pieces(side, ChessPiece.PieceType.KING); bits != 0; bits &= bits - 1) {
+            int from = Long.numberOfTrailingZeros(bits);
+            count = addAll(from, Bitboards.kingAttacks(from) & targets, moves, count);
+        }
+        return count;
+    }
+
+    /**
+     * Writes all of one side's pseudo-legal moves, tactical ones first
+     */
+    static int generateAll(ChessBoard board, ChessGame.TeamColor side, int[] moves, int count) {
+        count = generate(board, side, true, moves, count);
+        return generate(board, side, false, moves, count);
+    }
+
+    private static int addAll(int from, long targets, int[] moves, int count) {
+        for (; targets != 0; targets &= targets - 1) {
+            moves[count++] = from | Long.numberOfTrailingZeros(targets) << 6;
+        }
+        return count;
+    }
+
+    private static int pawnMoves(long pawns, int color, boolean tactical, long enemy, long occupied,
+                                 int[] moves, int count) {
+        int forward = color == 0 ? 8 : -8;
+        int startRank = color == 0 ? 1 : 6;
+        int lastRank = color == 0 ? 7 : 0;
+        for (; pawns != 0; pawns &= pawns - 1) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            int push = from + forward;
+            if (push < 0 || push > 63) {
+                continue;
+            }
+            boolean pushFree = (occupied & 1L << push) == 0;
+            long captures = Bitboards.pawnAttacks(color, from) & enemy;
+
+            if (push >> 3 == lastRank) {
+                // Queen promotions count as tactical, the rest as quiet
+                if (tactical) {
+                    if (pushFree) {
+                        moves[count++] = move(from, push, QUEEN);
+                    }
+                    for (long bits = captures; bits != 0; bits &= bits - 1) {
+                        moves[count++] = move(from, Long.numberOfTrailingZeros(bits), QUEEN);
+                    }
+                } else {
+                    for (int promotion : UNDER_PROMOTIONS) {
+                        if (pushFree) {
+                            moves[count++] = move(from, push, promotion);
+                        }
+                        for (long bits = captures; bits != 0; bits &= bits - 1) {
+                            moves[count++] = move(from, Long.numberOfTrailingZeros(bits), promotion);
+                        }
+                    }
+                }
+            } else if (tactical) {
+                count = addAll(from, captures, moves, count);
+            } else if (pushFree) {
+                moves[count++] = move(from, push, 0);
+                int doublePush = push + forward;
+                if (from >> 3 == startRank && (occupied & 1L << doublePush) == 0) {
+                    moves[count++] = move(from, doublePush, 0);
+                }
+            }
+        }
+        return count;
+    }
+}
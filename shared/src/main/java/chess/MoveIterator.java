@@ -0,0 +1,137 @@
+package chess;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Steps through one side's legal moves lazily: captures first, then quiet moves,
+ * then promotions. Each stage is only generated once the one before it runs out,
+ * and each move is only checked for legality when it's reached, so a caller that
+ * stops early (such as one asking whether any legal move exists) skips the rest.
+ * <p>
+ * Legality comes from the pieces checking the mover's king, the pieces pinned
+ * to it and the enemy's attacks from AttackMaps.get(), worked out once when the
+ * first move is asked for, so the game's board is only read. The game must not be changed while an iterator is in use,
+ * but any number of threads may iterate the same game.
+ */
+public final class MoveIterator implements Iterator<ChessMove> {
+    private static final int DONE = MoveGenerator.PROMOTIONS + 1;
+
+    private final ChessGame game;
+    private final ChessGame.TeamColor side;
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+    private int stage = -1;
+    private int index;
+    private int count;
+    // The next legal move found by hasNext, or -1
+    private int pending = -1;
+
+    // The mover's king square (-1 if it has none), the enemy pieces checking it, our
+    // pieces pinned to it and the squares it can't step to, set up with the first stage
+    private int king;
+    private long checkers;
+    private long pinned;
+    private long kingDanger;
+
+    MoveIterator(ChessGame game, ChessGame.TeamColor side) {
+        this.game = game;
+        this.side = side;
+    }
+
+    /**
+     * @return the next legal move packed as by ChessMove.encode(), or -1 if there are no more
+     */
+    public int nextMove() {
+        if (pending >= 0) {
+            int move = pending;
+            pending = -1;
+            return move;
+        }
+        while (true) {
+            while (index < count) {
+                int move = moves[index++];
+                if (isLegal(move)) {
+                    return move;
+                }
+            }
+            if (stage == DONE || ++stage == DONE) {
+                return -1;
+            }
+            if (stage == 0) {
+                findCheckersAndPins();
+            }
+            count = MoveGenerator.generateStage(game.getBoard(), side, stage, moves, 0);
+            index = 0;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (pending < 0) {
+            pending = nextMove();
+        }
+        return pending >= 0;
+    }
+
+    @Override
+    public ChessMove next() {
+        int move = nextMove();
+        if (move < 0) {
+            throw new NoSuchElementException();
+        }
+        return ChessMove.decode(move);
+    }
+
+    private void findCheckersAndPins() {
+        ChessBoard board = game.getBoard();
+        long kingBit = board.pieces(side, ChessPiece.PieceType.KING);
+        king = kingBit == 0 ? -1 : Long.numberOfTrailingZeros(kingBit);
+        if (king < 0) {
+            return;
+        }
+        ChessGame.TeamColor enemy = ChessGame.opponent(side);
+        long occupied = board.occupied();
+        long queens = board.pieces(enemy, ChessPiece.PieceType.QUEEN);
+        long diagonal = board.pieces(enemy, ChessPiece.PieceType.BISHOP) | queens;
+        long straight = board.pieces(enemy, ChessPiece.PieceType.ROOK) | queens;
+        checkers = (Bitboards.pawnAttacks(Bitboards.colorIndex(side), king) & board.pieces(enemy, ChessPiece.PieceType.PAWN))
+                | (Bitboards.knightAttacks(king) & board.pieces(enemy, ChessPiece.PieceType.KNIGHT))
+                | (Bitboards.bishopAttacks(king, occupied) & diagonal)
+                | (Bitboards.rookAttacks(king, occupied) & straight);
+        kingDanger = AttackMaps.get().attacks(board, enemy, occupied & ~kingBit);
+
+        // Enemy sliders lined up on the king with exactly one of our pieces in the way
+        long snipers = (Bitboards.bishopAttacks(king, 0L) & diagonal) | (Bitboards.rookAttacks(king, 0L) & straight);
+        for (; snipers != 0; snipers &= snipers - 1) {
+            long blockers = Bitboards.between(king, Long.numberOfTrailingZeros(snipers)) & occupied;
+            if (blockers != 0 && (blockers & blockers - 1) == 0 && (blockers & board.occupied(side)) != 0) {
+                pinned |= blockers;
+            }
+        }
+    }
+
+    // Whether the move leaves the mover's king safe, without playing it. The king
+    // mustn't step onto an attacked square (looked at with it gone, so it can't hide
+    // behind itself on a slider's line); anything else must deal with a single
+    // check and stay on its pin line.
+    private boolean isLegal(int move) {
+        if (king < 0) {
+            return true;
+        }
+        int from = move & 63;
+        int to = move >>> 6 & 63;
+        if (from == king) {
+            return (kingDanger & 1L << to) == 0;
+        }
+        if (checkers != 0) {
+            if ((checkers & checkers - 1) != 0) {
+                return false;
+            }
+            long blocks = checkers | Bitboards.between(king, Long.numberOfTrailingZeros(checkers));
+            if ((blocks & 1L << to) == 0) {
+                return false;
+            }
+        }
+        return (pinned & 1L << from) == 0 || (Bitboards.line(king, from) & 1L << to) != 0;
+    }
+}
@@ -0,0 +1,100 @@
+package chess;
+
+/**
+ * Evaluates positions with a small quantized neural network (NNUE). It can be
+ * used anywhere ClassicEvaluator is, e.g. {@code new Engine(new NnueEvaluator(network), 16)}.
+ * <p>
+ * The first layer's sums are kept per board in an accumulator that listens for
+ * piece changes, so a move costs a few additions of one weight column rather
+ * than a pass over all 768 inputs. Evaluating is then one clipped dot product
+ * over the hidden layer with the int8 output weights. Both are int16 loops that
+ * NnueKernel runs on the Vector API when it can.
+ * <p>
+ * The accumulator becomes the board's listener, replacing any other one.
+ */
+public class NnueEvaluator implements Evaluator {
+    private final NnueNetwork network;
+    private final NnueKernel kernel;
+
+    public NnueEvaluator(NnueNetwork network) {
+        this(network, NnueKernel.get());
+    }
+
+    NnueEvaluator(NnueNetwork network, NnueKernel kernel) {
+        this.network = network;
+        this.kernel = kernel;
+    }
+
+    @Override
+    public int evaluate(ChessGame game) {
+        Accumulator accumulator = accumulatorFor(game.getBoard());
+        boolean whiteToMove = game.getTeamTurn() == ChessGame.TeamColor.WHITE;
+        short[] us = whiteToMove ? accumulator.white : accumulator.black;
+        short[] them = whiteToMove ? accumulator.black : accumulator.white;
+
+        int sum = kernel.clippedDot(us, network.outputWeightsWide, 0)
+                + kernel.clippedDot(them, network.outputWeightsWide, network.hidden);
+        return (int) ((long) (sum + network.outputBias) * NnueNetwork.OUTPUT_SCALE / (NnueNetwork.QA * NnueNetwork.QB));
+    }
+
+    // The board's accumulator for this network, built from scratch the first time
+    private Accumulator accumulatorFor(ChessBoard board) {
+        if (board.getListener() instanceof Accumulator existing && existing.network == network) {
+            return existing;
+        }
+        Accumulator accumulator = new Accumulator(network, kernel);
+        accumulator.boardReset(board);
+        board.setListener(accumulator);
+        return accumulator;
+    }
+
+    /**
+     * First layer sums from white's and black's side, kept in step with one board
+     */
+    static final class Accumulator implements BoardListener {
+        private final NnueNetwork network;
+        private final NnueKernel kernel;
+        final short[] white;
+        final short[] black;
+
+        Accumulator(NnueNetwork network, NnueKernel kernel) {
+            this.network = network;
+            this.kernel = kernel;
+            this.white = new short[network.hidden];
+            this.black = new short[network.hidden];
+        }
+
+        @Override
+        public void pieceChanged(int square, int oldCode, int newCode) {
+            if (oldCode != 0) {
+                subtract(white, NnueNetwork.feature(0, oldCode, square));
+                subtract(black, NnueNetwork.feature(1, oldCode, square));
+            }
+            if (newCode != 0) {
+                add(white, NnueNetwork.feature(0, newCode, square));
+                add(black, NnueNetwork.feature(1, newCode, square));
+            }
+        }
+
+        @Override
+        public void boardReset(ChessBoard board) {
+            System.arraycopy(network.featureBias, 0, white, 0, network.hidden);
+            System.arraycopy(network.featureBias, 0, black, 0, network.hidden);
+            for (int square = 0; square < 64; square++) {
+                int code = PositionCodec.pieceCode(board.getPiece(square));
+                if (code != 0) {
+                    add(white, NnueNetwork.feature(0, code, square));
+                    add(black, NnueNetwork.feature(1, code, square));
+                }
+            }
+        }
+
+        private void add(short[] sums, int feature) {
+            kernel.add(sums, network.featureWeights, feature * network.hidden);
+        }
+
+        private void subtract(short[] sums, int feature) {
+            kernel.subtract(sums, network.featureWeights, feature * network.hidden);
+        }
+    }
+}
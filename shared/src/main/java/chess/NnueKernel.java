@@ -0,0 +1,77 @@
+package chess;
+
+/**
+ * NnueEvaluator's inner loops: adding or subtracting one input's weights from
+ * the accumulator, and the output layer's dot product of the clipped hidden layer
+ * with the output weights. The JIT doesn't reliably vectorize these int16 loops on
+ * its own, so when the Vector API is available and the hardware has wide enough
+ * vectors (see AttackMaps) a version built on it is used instead; both give
+ * identical results.
+ */
+abstract class NnueKernel {
+    private static final NnueKernel BEST = load();
+
+    static NnueKernel get() {
+        return BEST;
+    }
+
+    static NnueKernel scalar() {
+        return Scalar.INSTANCE;
+    }
+
+    /**
+     * @return the sum over i of clip(sums[i], 0, QA) * weights[offset + i]
+     */
+    abstract int clippedDot(short[] sums, short[] weights, int offset);
+
+    /**
+     * Adds weights[offset + i] to each sums[i], wrapping like int16 arithmetic
+     */
+    abstract void add(short[] sums, short[] weights, int offset);
+
+    /**
+     * Subtracts weights[offset + i] from each sums[i], wrapping like int16 arithmetic
+     */
+    abstract void subtract(short[] sums, short[] weights, int offset);
+
+    private static NnueKernel load() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return scalar();
+        }
+        try {
+            if (VectorNnueKernel.isEfficient()) {
+                return new VectorNnueKernel();
+            }
+        } catch (LinkageError e) {
+            // Fall through to the scalar version
+        }
+        return scalar();
+    }
+
+    static final class Scalar extends NnueKernel {
+        static final Scalar INSTANCE = new Scalar();
+
+        @Override
+        int clippedDot(short[] sums, short[] weights, int offset) {
+            int total = 0;
+            for (int i = 0; i < sums.length; i++) {
+                total += Math.min(Math.max(sums[i], 0), NnueNetwork.QA) * weights[offset + i];
+            }
+            return total;
+        }
+
+        @Override
+        void add(short[] sums, short[] weights, int offset) {
+            for (int i = 0; i < sums.length; i++) {
+                sums[i] += weights[offset + i];
+            }
+        }
+
+        @Override
+        void subtract(short[] sums, short[] weights, int offset) {
+            for (int i = 0; i < sums.length; i++) {
+                sums[i] -= weights[offset + i];
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package chess;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Quantized weights for NnueEvaluator's network: 768 piece-square inputs seen
+ * from each side, a hidden layer of int16 neurons shared by both sides, and one
+ * output from int8 weights over both sides' clipped hidden layers, side to move first.
+ * <p>
+ * File format, little-endian: the magic number, the format version, the hidden
+ * layer size, then 768 * hidden int16 feature weights (all of one input's weights
+ * together), hidden int16 biases, 2 * hidden int8 output weights and an int32
+ * output bias. Activations are clipped to 0..QA and the output is scaled by
+ * OUTPUT_SCALE / (QA * QB) to get centipawns.
+ */
+public final class NnueNetwork {
+    static final int INPUTS = 768;
+    static final int QA = 127;
+    static final int QB = 64;
+    static final int OUTPUT_SCALE = 400;
+
+    private static final int MAGIC = 0x45554E4E;
+    private static final int VERSION = 1;
+
+    final int hidden;
+    final short[] featureWeights;
+    final short[] featureBias;
+    final byte[] outputWeights;
+    // The same weights widened to int16, the way the output layer multiplies them
+    final short[] outputWeightsWide;
+    final int outputBias;
+
+    NnueNetwork(int hidden, short[] featureWeights, short[] featureBias, byte[] outputWeights, int outputBias) {
+        if (hidden < 1 || featureWeights.length != INPUTS * hidden || featureBias.length != hidden
+                || outputWeights.length != 2 * hidden) {
+            throw new IllegalArgumentException("Weight arrays don't match a hidden layer of " + hidden);
+        }
+        this.hidden = hidden;
+        this.featureWeights = featureWeights;
+        this.featureBias = featureBias;
+        this.outputWeights = outputWeights;
+        this.outputWeightsWide = new short[outputWeights.length];
+        for (int i = 0; i < outputWeights.length; i++) {
+            outputWeightsWide[i] = outputWeights[i];
+        }
+        this.outputBias = outputBias;
+    }
+
+    /**
+     * Reads a network file
+     *
+     * @throws IOException if it can't be read or isn't a network file
+     */
+    public static NnueNetwork load(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return read(in);
+        }
+    }
+
+    public static NnueNetwork read(InputStream in) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(in.readAllBytes()).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not an NNUE network file");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported network version " + version);
+            }
+            int hidden = buffer.getInt();
+            if (hidden < 1 || (long) INPUTS * hidden * 2 > buffer.remaining()) {
+                throw new IOException("Bad hidden layer size " + hidden);
+            }
+            short[] featureWeights = new short[INPUTS * hidden];
+            buffer.asShortBuffer().get(featureWeights);
+            buffer.position(buffer.position() + featureWeights.length * 2);
+            short[] featureBias = new short[hidden];
+            buffer.asShortBuffer().get(featureBias);
+            buffer.position(buffer.position() + hidden * 2);
+            byte[] outputWeights = new byte[2 * hidden];
+            buffer.get(outputWeights);
+            int outputBias = buffer.getInt();
+            if (buffer.hasRemaining()) {
+                throw new IOException("Unexpected data after the network");
+            }
+            return new NnueNetwork(hidden, featureWeights, featureBias, outputWeights, outputBias);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Network file is truncated");
+        }
+    }
+
+    /**
+     * Writes the network in the format read by read
+     */
+    public void write(OutputStream out) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(12 + featureWeights.length * 2 + hidden * 2 + hidden * 2 + 4)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(hidden);
+        buffer.asShortBuffer().put(featureWeights);
+        buffer.position(buffer.position() + featureWeights.length * 2);
+        buffer.asShortBuffer().put(featureBias);
+        buffer.position(buffer.position() + hidden * 2);
+        buffer.put(outputWeights).putInt(outputBias);
+        out.write(buffer.array());
+    }
+
+    public int hiddenSize() {
+        return hidden;
+    }
+
+    /**
+     * @return the input a piece on a square is seen as from one side (0 = white):
+     * own pieces first, and from black's side the board is flipped
+     */
+    static int feature(int perspective, int pieceCode, int square) {
+        int color = pieceCode >> 3;
+        int type = (pieceCode & 7) - 1;
+        int relative = perspective == 0 ? square : square ^ 56;
+        return ((color ^ perspective) * 6 + type) * 64 + relative;
+    }
+}
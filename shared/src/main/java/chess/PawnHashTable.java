@@ -0,0 +1,92 @@
+package chess;
+
+/**
+ * Cache of pawn structure analysis, keyed by ChessBoard's pawn-only Zobrist key.
+ * Pawns move far less often than other pieces, so most positions in a search
+ * share their pawn structure with one already analysed.
+ * <p>
+ * Each entry holds the passed pawns of both colors, the doubled and isolated
+ * pawn score, and a shield score for a king of each color on each file. Entries
+ * live in parallel primitive arrays; a table belongs to one thread.
+ * <p>
+ * An unused slot reads as key 0 with empty data, which is also the correct
+ * analysis for a board with no pawns, so it needs no separate used flag.
+ */
+final class PawnHashTable {
+    private final long[] keys;
+    private final long[] passed;
+    private final int[] structure;
+    // 16 per entry: white king on files a-h, then black king on files a-h
+    private final short[] shields;
+    private final int mask;
+    private long probes;
+    private long hits;
+
+    /**
+     * @param entries how many structures to hold; rounded down to a power of two
+     */
+    PawnHashTable(int entries) {
+        int size = Integer.highestOneBit(Math.max(1, entries));
+        keys = new long[size];
+        passed = new long[size];
+        structure = new int[size];
+        shields = new short[size * 16];
+        mask = size - 1;
+    }
+
+    /**
+     * @return the slot for a key; check it with matches, and fill it with store on a miss
+     */
+    int index(long key) {
+        return (int) key & mask;
+    }
+
+    boolean matches(int index, long key) {
+        probes++;
+        if (keys[index] == key) {
+            hits++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param shieldScores 16 scores, white king on files a-h then black king on files a-h
+     */
+    void store(int index, long key, long passedPawns, int structureScore, int[] shieldScores) {
+        keys[index] = key;
+        passed[index] = passedPawns;
+        structure[index] = structureScore;
+        for (int i = 0; i < 16; i++) {
+            shields[index * 16 + i] = (short) shieldScores[i];
+        }
+    }
+
+    /**
+     * @return the passed pawns of both colors
+     */
+    long passed(int index) {
+        return passed[index];
+    }
+
+    /**
+     * @return the doubled and isolated pawn score, from white's point of view
+     */
+    int structure(int index) {
+        return structure[index];
+    }
+
+    /**
+     * @return the shield score for a king of one color (0 = white) on a file (0 = a)
+     */
+    int shield(int index, int color, int file) {
+        return shields[index * 16 + color * 8 + file];
+    }
+
+    /**
+     * @return the fraction of probes that found their structure, or 0 if there were none
+     */
+    double hitRate() {
+        return probes == 0 ? 0.0 : (double) hits / probes;
+    }
+}
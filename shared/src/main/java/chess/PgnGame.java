@@ -0,0 +1,22 @@
+package chess;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One game read from a PGN file
+ *
+ * @param tags   the tag pairs in the order they appeared
+ * @param moves  the moves of the main line, resolved against the position
+ * @param result the game termination marker ("1-0", "0-1", "1/2-1/2" or "*")
+ * @param game   the position after the last move
+ */
+public record PgnGame(Map<String, String> tags, List<ChessMove> moves, String result, ChessGame game) {
+
+    /**
+     * @return the value of a tag, or null if the game doesn't have it
+     */
+    public String tag(String name) {
+        return tags.get(name);
+    }
+}
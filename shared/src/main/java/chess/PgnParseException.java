@@ -0,0 +1,13 @@
+package chess;
+
+/**
+ * Indicates a PGN game could not be read
+ */
+public class PgnParseException extends Exception {
+
+    public PgnParseException() {}
+
+    public PgnParseException(String message) {
+        super(message);
+    }
+}
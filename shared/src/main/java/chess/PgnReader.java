@@ -0,0 +1,280 @@
+package chess;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads games one at a time from a PGN (Portable Game Notation) stream.
+ * <p>
+ * Input goes through a fixed size buffer, and comments, variations and NAGs are
+ * skipped without being stored, so memory use only depends on the longest game
+ * and not on the size of the file. Moves are resolved against the legal moves of
+ * the position as they are read.
+ */
+public class PgnReader implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_TOKEN = 1024;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final byte[] token = new byte[MAX_TOKEN];
+    private int tokenLength;
+    private boolean endOfInput;
+    private boolean atLineStart = true;
+    private int gameNumber;
+
+    public PgnReader(InputStream in) {
+        this(Channels.newChannel(in));
+    }
+
+    public PgnReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        buffer.flip();
+    }
+
+    /**
+     * Reads the next game from the stream.
+     * <p>
+     * If a game can't be read, the rest of it is skipped before the exception is
+     * thrown, so calling next() again continues with the following game.
+     *
+     * @return the next game, or null once the stream is exhausted
+     * @throws IOException       if the underlying stream fails
+     * @throws PgnParseException if the game is malformed or contains an illegal move
+     */
+    public PgnGame next() throws IOException, PgnParseException {
+        int c = skipWhitespace();
+        if (c < 0) {
+            return null;
+        }
+        gameNumber++;
+
+        String error = null;
+        Map<String, String> tags = new LinkedHashMap<>();
+        while (c == '[') {
+            read();
+            if (!readTag(tags) && error == null) {
+                error = "Malformed tag pair";
+            }
+            c = skipWhitespace();
+        }
+
+        ChessGame game = new ChessGame();
+        String fen = tags.get("FEN");
+        if (fen != null) {
+            try {
+                game = Fen.parse(fen);
+            } catch (IllegalArgumentException e) {
+                error = e.getMessage();
+            }
+        }
+
+        List<ChessMove> moves = new ArrayList<>();
+        String result = null;
+        while (result == null) {
+            c = skipWhitespace();
+            if (c < 0 || c == '[') {
+                break;
+            }
+            switch (c) {
+                case '{' -> skipPast('}');
+                case ';' -> skipPast('\n');
+                case '(' -> skipVariation();
+                case ')' -> read();
+                case '%' -> {
+                    if (atLineStart) {
+                        skipPast('\n');
+                    } else {
+                        read();
+                    }
+                }
+                default -> {
+                    readToken();
+                    String text = tokenText();
+                    if (isResult(text)) {
+                        result = text;
+                    } else if (error == null && !text.isEmpty()) {
+                        try {
+                            ChessMove move = SanNotation.decode(game, text);
+                            game.makeMove(move);
+                            moves.add(move);
+                        } catch (InvalidMoveException e) {
+                            error = e.getMessage() + " (" + text + ")";
+                        }
+                    }
+                }
+            }
+        }
+
+        if (error != null) {
+            throw new PgnParseException("Game " + gameNumber + ", ply " + (moves.size() + 1) + ": " + error);
+        }
+        return new PgnGame(tags, moves, result == null ? "*" : result, game);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Reads `Name "value"]` after the opening bracket
+    private boolean readTag(Map<String, String> tags) throws IOException {
+        int c = skipWhitespace();
+        tokenLength = 0;
+        while (c >= 0 && c != '"' && c != ']' && !isWhitespace(c)) {
+            appendToken(read());
+            c = peek();
+        }
+        String name = tokenText();
+
+        c = skipWhitespace();
+        if (c != '"' || name.isEmpty()) {
+            skipPast(']');
+            return false;
+        }
+        read();
+
+        tokenLength = 0;
+        while ((c = read()) >= 0 && c != '"') {
+            if (c == '\\') {
+                c = read();
+            }
+            if (c == '\n' || c < 0) {
+                return false;
+            }
+            appendToken(c);
+        }
+        String value = new String(token, 0, tokenLength, StandardCharsets.UTF_8);
+        skipPast(']');
+        tags.put(name, value);
+        return true;
+    }
+
+    // Move numbers like "12." or "12..." are dropped, leaving any move written against them
+    private void readToken() throws IOException {
+        tokenLength = 0;
+        int c = peek();
+        while (c >= 0 && !isWhitespace(c) && !isDelimiter(c)) {
+            appendToken(read());
+            c = peek();
+        }
+        if (tokenLength == 0) {
+            read();
+            return;
+        }
+
+        if (token[0] == '$') {
+            tokenLength = 0;
+            return;
+        }
+        int start = 0;
+        while (start < tokenLength && token[start] >= '0' && token[start] <= '9') {
+            start++;
+        }
+        if (start > 0 && start < tokenLength && token[start] == '.') {
+            while (start < tokenLength && token[start] == '.') {
+                start++;
+            }
+            System.arraycopy(token, start, token, 0, tokenLength - start);
+            tokenLength -= start;
+        }
+    }
+
+    private void skipVariation() throws IOException {
+        int depth = 0;
+        int c;
+        while ((c = read()) >= 0) {
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                if (--depth == 0) {
+                    return;
+                }
+            } else if (c == '{') {
+                skipPast('}');
+            } else if (c == ';') {
+                skipPast('\n');
+            }
+        }
+    }
+
+    private void skipPast(int end) throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c >= 0 && c != end);
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c = peek();
+        while (c >= 0 && isWhitespace(c)) {
+            read();
+            c = peek();
+        }
+        return c;
+    }
+
+    private void appendToken(int c) {
+        if (tokenLength < MAX_TOKEN) {
+            token[tokenLength++] = (byte) c;
+        }
+    }
+
+    private String tokenText() {
+        return new String(token, 0, tokenLength, StandardCharsets.ISO_8859_1);
+    }
+
+    private int peek() throws IOException {
+        if (!buffer.hasRemaining() && !fill()) {
+            return -1;
+        }
+        return buffer.get(buffer.position()) & 0xFF;
+    }
+
+    private int read() throws IOException {
+        if (!buffer.hasRemaining() && !fill()) {
+            return -1;
+        }
+        int c = buffer.get() & 0xFF;
+        atLineStart = c == '\n';
+        return c;
+    }
+
+    private boolean fill() throws IOException {
+        if (endOfInput) {
+            return false;
+        }
+        buffer.clear();
+        int n;
+        do {
+            n = channel.read(buffer);
+        } while (n == 0);
+        buffer.flip();
+        if (n < 0) {
+            endOfInput = true;
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f';
+    }
+
+    private static boolean isDelimiter(int c) {
+        return c == '{' || c == '}' || c == '(' || c == ')' || c == '[' || c == ']' || c == ';';
+    }
+
+    private static boolean isResult(String text) {
+        return text.equals("1-0") || text.equals("0-1") || text.equals("1/2-1/2") || text.equals("*");
+    }
+}
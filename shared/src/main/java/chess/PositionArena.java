@@ -0,0 +1,179 @@
+package chess;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * An append-only store of positions kept outside the Java heap, in the
+ * PositionCodec format (33 bytes each), read back by index.
+ * <p>
+ * Positions live in direct buffers of CHUNK_POSITIONS slots each, allocated as
+ * the arena fills, so the capacity isn't limited by the 2 GB cap on a single
+ * buffer and a large capacity costs nothing until it's used. The garbage
+ * collector only sees the handful of buffer objects, not one board per position.
+ * <p>
+ * Appends must come from one thread at a time. Reads of positions that were
+ * appended before the reader started are safe from any thread.
+ * <p>
+ * Direct buffers count against the JVM's direct memory limit, not the heap, and
+ * that limit defaults to the maximum heap size. An arena of more than a few
+ * million positions needs it raised, e.g. {@code -XX:MaxDirectMemorySize=8g},
+ * or adding fails with "OutOfMemoryError: Direct buffer memory". Closing the
+ * arena drops its buffers, and the memory is given back once the garbage
+ * collector finds them unreachable.
+ */
+public final class PositionArena implements AutoCloseable {
+    /**
+     * Positions per off-heap chunk (about 33 MB)
+     */
+    public static final int CHUNK_POSITIONS = 1 << 20;
+
+    private static final int SLOT = PositionCodec.ENCODED_LENGTH;
+
+    private final long capacity;
+    private final ByteBuffer[] chunks;
+    private final byte[] scratch = new byte[SLOT];
+    private volatile long size;
+    private volatile boolean closed;
+
+    /**
+     * @param capacity the most positions the arena can hold
+     */
+    public PositionArena(long capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative");
+        }
+        this.capacity = capacity;
+        this.chunks = new ByteBuffer[(int) ((capacity + CHUNK_POSITIONS - 1) / CHUNK_POSITIONS)];
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the off-heap bytes allocated so far
+     */
+    public long allocatedBytes() {
+        long bytes = 0;
+        for (ByteBuffer chunk : chunks) {
+            if (chunk != null) {
+                bytes += chunk.capacity();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Appends a game's current position
+     *
+     * @return the position's index
+     * @throws IllegalStateException if the arena is full
+     */
+    public long add(ChessGame game) {
+        return add(game.getBoard(), game.getTeamTurn());
+    }
+
+    public long add(ChessBoard board, ChessGame.TeamColor turn) {
+        PositionCodec.encode(board, turn, scratch, 0);
+        return add(scratch, 0);
+    }
+
+    /**
+     * Appends a position already encoded with PositionCodec
+     *
+     * @return the position's index
+     */
+    public long add(byte[] encoded, int offset) {
+        ensureOpen();
+        long index = size;
+        if (index == capacity) {
+            throw new IllegalStateException("Arena is full");
+        }
+        int chunk = (int) (index / CHUNK_POSITIONS);
+        if (chunks[chunk] == null) {
+            long remaining = Math.min(CHUNK_POSITIONS, capacity - (long) chunk * CHUNK_POSITIONS);
+            chunks[chunk] = ByteBuffer.allocateDirect((int) remaining * SLOT);
+        }
+        chunks[chunk].put(slot(index), encoded, offset, SLOT);
+        size = index + 1;
+        return index;
+    }
+
+    /**
+     * Copies a stored position into out, in the PositionCodec format
+     */
+    public void read(long index, byte[] out, int offset) {
+        chunk(index).get(slot(index), out, offset, SLOT);
+    }
+
+    /**
+     * @return the piece code on one square of a stored position, without copying it out
+     */
+    public int pieceCodeAt(long index, int square) {
+        int packed = chunk(index).get(slot(index) + (square >> 1));
+        return (square & 1) == 0 ? packed & 15 : (packed >> 4) & 15;
+    }
+
+    public ChessGame.TeamColor turn(long index) {
+        return chunk(index).get(slot(index) + SLOT - 1) == 0 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+    }
+
+    /**
+     * @return a new game with a stored position
+     */
+    public ChessGame toGame(long index) {
+        byte[] encoded = new byte[SLOT];
+        read(index, encoded, 0);
+        return PositionCodec.decode(encoded, 0);
+    }
+
+    /**
+     * @return a new board with a stored position
+     */
+    public ChessBoard toBoard(long index) {
+        byte[] encoded = new byte[SLOT];
+        read(index, encoded, 0);
+        return PositionCodec.decodeBoard(encoded, 0);
+    }
+
+    /**
+     * Forgets every position but keeps the allocated chunks for reuse
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Forgets every position and lets go of the chunks, so their off-heap memory
+     * can be reclaimed. The arena can't be used afterwards.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        size = 0;
+        Arrays.fill(chunks, null);
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Arena is closed");
+        }
+    }
+
+    private ByteBuffer chunk(long index) {
+        ensureOpen();
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Position " + index + " out of " + size);
+        }
+        return chunks[(int) (index / CHUNK_POSITIONS)];
+    }
+
+    private static int slot(long index) {
+        return (int) (index % CHUNK_POSITIONS) * SLOT;
+    }
+}
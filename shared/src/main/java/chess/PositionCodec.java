@@ -0,0 +1,146 @@
+package chess;
+
+/**
+ * Packs a position into a fixed 33 byte array: one 4-bit piece code per square
+ * (two squares per byte, a1 first) followed by a byte for the side to move.
+ * <p>
+ * Piece codes are 0 for an empty square, or the piece type's ordinal plus one,
+ * with 8 added for black pieces. Decoded pieces are shared instances, which is
+ * safe because ChessPiece is immutable.
+ */
+public final class PositionCodec {
+    /**
+     * Size in bytes of an encoded position
+     */
+    public static final int ENCODED_LENGTH = 33;
+
+    private static final int TURN_BYTE = 32;
+    private static final ChessPiece[] PIECES = new ChessPiece[16];
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+                ChessPiece piece = new ChessPiece(color, type);
+                PIECES[pieceCode(piece)] = piece;
+            }
+        }
+    }
+
+    private PositionCodec() {
+    }
+
+    /**
+     * @return the 4-bit code for a piece, or 0 for null
+     */
+    public static int pieceCode(ChessPiece piece) {
+        return piece == null ? 0 : pieceCode(piece.getTeamColor(), piece.getPieceType());
+    }
+
+    /**
+     * @return the 4-bit code for a piece of the given color and type
+     */
+    public static int pieceCode(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        int code = type.ordinal() + 1;
+        return color == ChessGame.TeamColor.BLACK ? code | 8 : code;
+    }
+
+    /**
+     * @return the shared piece instance for a code, or null for an empty square
+     */
+    public static ChessPiece piece(int code) {
+        return PIECES[code & 15];
+    }
+
+    /**
+     * Encodes a game's position into a new array
+     */
+    public static byte[] encode(ChessGame game) {
+        byte[] out = new byte[ENCODED_LENGTH];
+        encode(game.getBoard(), game.getTeamTurn(), out, 0);
+        return out;
+    }
+
+    /**
+     * Encodes a position into an existing array, so many positions can share one buffer
+     *
+     * @param board  the pieces to encode
+     * @param turn   the side to move
+     * @param out    where to write ENCODED_LENGTH bytes
+     * @param offset the index of the first byte to write
+     */
+    public static void encode(ChessBoard board, ChessGame.TeamColor turn, byte[] out, int offset) {
+        for (int square = 0; square < 64; square += 2) {
+            int low = pieceCode(board.getPiece(square));
+            int high = pieceCode(board.getPiece(square + 1));
+            out[offset + square / 2] = (byte) (low | high << 4);
+        }
+        out[offset + TURN_BYTE] = (byte) (turn == ChessGame.TeamColor.BLACK ? 1 : 0);
+    }
+
+    /**
+     * Builds a game from an encoded position
+     */
+    public static ChessGame decode(byte[] data, int offset) {
+        return new ChessGame(decodeBoard(data, offset), decodeTurn(data, offset));
+    }
+
+    public static ChessGame decode(byte[] data) {
+        return decode(data, 0);
+    }
+
+    /**
+     * Builds just the board from an encoded position
+     */
+    public static ChessBoard decodeBoard(byte[] data, int offset) {
+        ChessBoard board = new ChessBoard();
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = piece(pieceCodeAt(data, offset, square));
+            if (piece != null) {
+                board.setPiece(square, piece);
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Overwrites an existing board with an encoded position, so a loop over many
+     * positions can reuse one board instead of allocating one each
+     */
+    public static void decodeInto(byte[] data, int offset, ChessBoard board) {
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = piece(pieceCodeAt(data, offset, square));
+            if (board.getPiece(square) != piece) {
+                board.setPiece(square, piece);
+            }
+        }
+    }
+
+    /**
+     * @return the side to move stored in an encoded position
+     */
+    public static ChessGame.TeamColor decodeTurn(byte[] data, int offset) {
+        return data[offset + TURN_BYTE] == 0 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+    }
+
+    /**
+     * @return the piece code stored for one square (0 = a1, 63 = h8)
+     */
+    public static int pieceCodeAt(byte[] data, int offset, int square) {
+        int packed = data[offset + (square >> 1)];
+        return (square & 1) == 0 ? packed & 15 : (packed >> 4) & 15;
+    }
+
+    /**
+     * @return the square index (0 = a1, 63 = h8) for a position
+     */
+    public static int square(ChessPosition position) {
+        return (position.getRow() - 1) * 8 + position.getColumn() - 1;
+    }
+
+    /**
+     * @return the position for a square index (0 = a1, 63 = h8)
+     */
+    public static ChessPosition position(int square) {
+        return new ChessPosition(square / 8 + 1, square % 8 + 1);
+    }
+}
@@ -0,0 +1,84 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * An immutable copy of a game's position at one moment, stored in the
+ * PositionCodec format.
+ * <p>
+ * ChessGame publishes a new snapshot after every move, so spectators, list
+ * endpoints and persistence can read a consistent position without locking
+ * and without touching the board the mover is changing.
+ */
+public final class PositionSnapshot {
+    private final byte[] encoded;
+
+    private PositionSnapshot(byte[] encoded) {
+        this.encoded = encoded;
+    }
+
+    /**
+     * Takes a snapshot of a game's current position
+     */
+    public static PositionSnapshot of(ChessGame game) {
+        return new PositionSnapshot(PositionCodec.encode(game));
+    }
+
+    /**
+     * Wraps a position previously written by PositionCodec
+     */
+    public static PositionSnapshot fromBytes(byte[] data, int offset) {
+        return new PositionSnapshot(Arrays.copyOfRange(data, offset, offset + PositionCodec.ENCODED_LENGTH));
+    }
+
+    /**
+     * @return which team's turn it was
+     */
+    public ChessGame.TeamColor getTeamTurn() {
+        return PositionCodec.decodeTurn(encoded, 0);
+    }
+
+    /**
+     * @return the piece on a square, or null if it was empty
+     */
+    public ChessPiece getPiece(ChessPosition position) {
+        return PositionCodec.piece(PositionCodec.pieceCodeAt(encoded, 0, PositionCodec.square(position)));
+    }
+
+    /**
+     * @return a new mutable board with this position
+     */
+    public ChessBoard toBoard() {
+        return PositionCodec.decodeBoard(encoded, 0);
+    }
+
+    /**
+     * @return a new game starting from this position
+     */
+    public ChessGame toGame() {
+        return PositionCodec.decode(encoded, 0);
+    }
+
+    /**
+     * @return a copy of the encoded position
+     */
+    public byte[] toBytes() {
+        return encoded.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return Arrays.equals(encoded, ((PositionSnapshot) o).encoded);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(encoded);
+    }
+}
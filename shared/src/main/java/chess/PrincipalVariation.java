@@ -0,0 +1,39 @@
+package chess;
+
+import java.util.List;
+
+/**
+ * One line the engine expects to be played, starting with the move it is about
+ *
+ * @param moves the expected moves, starting from the searched position
+ * @param score centipawns from the point of view of the side to move, or a mate
+ *              score as described on Engine.MATE
+ */
+public record PrincipalVariation(List<ChessMove> moves, int score) {
+
+    /**
+     * @return the first move of the line
+     */
+    public ChessMove firstMove() {
+        return moves.get(0);
+    }
+
+    /**
+     * @return true if the score is a forced mate for either side
+     */
+    public boolean isMate() {
+        return Math.abs(score) > Engine.MATE - Searcher.MAX_PLY;
+    }
+
+    /**
+     * @return moves until mate, negative if the side to move is the one getting mated,
+     * or 0 if the score isn't a mate
+     */
+    public int mateIn() {
+        if (!isMate()) {
+            return 0;
+        }
+        int moves = (Engine.MATE - Math.abs(score) + 1) / 2;
+        return score > 0 ? moves : -moves;
+    }
+}
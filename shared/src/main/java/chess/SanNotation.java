@@ -0,0 +1,231 @@
+package chess;
+
+import java.util.Collection;
+
+/**
+ * Converts moves to and from Standard Algebraic Notation (SAN), like "Nbd7",
+ * "exd5", "e8=Q" or "Qxf7#".
+ * <p>
+ * Both directions work from the legal moves of the game's current position,
+ * which come from LegalMoveCache: the first lookup for a position generates all
+ * of the mover's legal moves, and later ones (from the pieces that could be
+ * confused with the moving piece, or a later move in the same position) reuse
+ * them. The check suffix comes from ChessGame.givesCheck; only a checking move is
+ * played, on a copy of the game, to tell check from mate. Neither direction
+ * changes the game.
+ */
+public final class SanNotation {
+
+    private SanNotation() {
+    }
+
+    /**
+     * Writes a move in SAN for the game's current position
+     *
+     * @param game the game the move is about to be played in
+     * @param move the move to describe
+     * @return the SAN text, including any check or mate suffix
+     * @throws InvalidMoveException if the move isn't legal in the position
+     */
+    public static String encode(ChessGame game, ChessMove move) throws InvalidMoveException {
+        ChessBoard board = game.getBoard();
+        ChessPosition start = move.getStartPosition();
+        ChessPosition end = move.getEndPosition();
+        ChessPiece piece = board.getPiece(start);
+        if (piece == null) {
+            throw new InvalidMoveException("No piece at start position");
+        }
+        if (!game.validMoves(start).contains(move)) {
+            throw new InvalidMoveException("Invalid move");
+        }
+
+        StringBuilder san = new StringBuilder(8);
+        boolean capture = board.getPiece(end) != null;
+        ChessPiece.PieceType type = piece.getPieceType();
+        if (type == ChessPiece.PieceType.PAWN) {
+            if (capture) {
+                san.append(file(start)).append('x');
+            }
+        } else {
+            san.append(letter(type));
+            appendDisambiguation(san, game, piece, start, end);
+            if (capture) {
+                san.append('x');
+            }
+        }
+        san.append(file(end)).append(end.getRow());
+        if (move.getPromotionPiece() != null) {
+            san.append('=').append(letter(move.getPromotionPiece()));
+        }
+        return san.append(checkSuffix(game, move, piece)).toString();
+    }
+
+    /**
+     * Finds the legal move a SAN string describes in the game's current position.
+     * Check and annotation suffixes ("+", "#", "!", "?") are ignored.
+     *
+     * @param game the game the move would be played in
+     * @param san  the SAN text
+     * @return the matching legal move
+     * @throws InvalidMoveException if the text doesn't describe exactly one legal move
+     */
+    public static ChessMove decode(ChessGame game, String san) throws InvalidMoveException {
+        int length = san.length();
+        while (length > 0 && "+#!?".indexOf(san.charAt(length - 1)) >= 0) {
+            length--;
+        }
+        String text = san.substring(0, length);
+        if (text.startsWith("O-O") || text.startsWith("0-0")) {
+            throw new InvalidMoveException("Castling is not supported");
+        }
+
+        ChessPiece.PieceType promotion = null;
+        int promotionAt = text.indexOf('=');
+        if (promotionAt < 0 && text.length() > 2 && "QRBN".indexOf(text.charAt(text.length() - 1)) >= 0
+                && Character.isLowerCase(text.charAt(0))) {
+            promotionAt = text.length() - 1;
+        }
+        if (promotionAt >= 0) {
+            if (promotionAt + 1 >= text.length()) {
+                throw new InvalidMoveException("Missing promotion piece");
+            }
+            promotion = pieceType(text.charAt(text.length() - 1));
+            text = text.substring(0, promotionAt);
+        }
+
+        ChessPiece.PieceType type = ChessPiece.PieceType.PAWN;
+        if (!text.isEmpty() && Character.isUpperCase(text.charAt(0))) {
+            type = pieceType(text.charAt(0));
+            text = text.substring(1);
+        }
+        text = text.replace("x", "").replace("-", "");
+        if (text.length() < 2) {
+            throw new InvalidMoveException("Missing destination square");
+        }
+        ChessPosition destination = square(text.charAt(text.length() - 2), text.charAt(text.length() - 1));
+        int fromCol = 0;
+        int fromRow = 0;
+        for (int i = 0; i < text.length() - 2; i++) {
+            char c = text.charAt(i);
+            if (c >= 'a' && c <= 'h') {
+                fromCol = c - 'a' + 1;
+            } else if (c >= '1' && c <= '8') {
+                fromRow = c - '0';
+            } else {
+                throw new InvalidMoveException("Unreadable move");
+            }
+        }
+
+        ChessBoard board = game.getBoard();
+        ChessMove found = null;
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                if ((fromRow != 0 && row != fromRow) || (fromCol != 0 && col != fromCol)) {
+                    continue;
+                }
+                ChessPosition start = new ChessPosition(row, col);
+                ChessPiece piece = board.getPiece(start);
+                if (piece == null || piece.getTeamColor() != game.getTeamTurn() || piece.getPieceType() != type) {
+                    continue;
+                }
+                ChessMove candidate = new ChessMove(start, destination, promotion);
+                if (game.validMoves(start).contains(candidate)) {
+                    if (found != null) {
+                        throw new InvalidMoveException("Ambiguous move");
+                    }
+                    found = candidate;
+                }
+            }
+        }
+        if (found == null) {
+            throw new InvalidMoveException("Illegal move");
+        }
+        return found;
+    }
+
+    // Adds the file, rank or both when another piece of the same kind could also move to end
+    private static void appendDisambiguation(StringBuilder san, ChessGame game, ChessPiece piece,
+                                             ChessPosition start, ChessPosition end) {
+        ChessBoard board = game.getBoard();
+        boolean ambiguous = false;
+        boolean sameFile = false;
+        boolean sameRank = false;
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                if (row == start.getRow() && col == start.getColumn()) {
+                    continue;
+                }
+                ChessPosition other = new ChessPosition(row, col);
+                if (!piece.equals(board.getPiece(other)) || !canReach(game.validMoves(other), end)) {
+                    continue;
+                }
+                ambiguous = true;
+                sameFile |= col == start.getColumn();
+                sameRank |= row == start.getRow();
+            }
+        }
+
+        if (!ambiguous) {
+            return;
+        }
+        if (!sameFile) {
+            san.append(file(start));
+        } else if (!sameRank) {
+            san.append(start.getRow());
+        } else {
+            san.append(file(start)).append(start.getRow());
+        }
+    }
+
+    private static boolean canReach(Collection<ChessMove> moves, ChessPosition end) {
+        for (ChessMove move : moves) {
+            if (move.getEndPosition().equals(end)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Only plays the move, on a copy so the game itself is never touched, when it gives check
+    private static String checkSuffix(ChessGame game, ChessMove move, ChessPiece piece) {
+        if (!game.givesCheck(move)) {
+            return "";
+        }
+        ChessGame after = Engine.copyOf(game);
+        after.play(move.encode());
+        return after.isInCheckmate(ChessGame.opponent(piece.getTeamColor())) ? "#" : "+";
+    }
+
+    private static char file(ChessPosition position) {
+        return (char) ('a' + position.getColumn() - 1);
+    }
+
+    private static char letter(ChessPiece.PieceType type) {
+        return switch (type) {
+            case KING -> 'K';
+            case QUEEN -> 'Q';
+            case BISHOP -> 'B';
+            case KNIGHT -> 'N';
+            case ROOK -> 'R';
+            case PAWN -> 'P';
+        };
+    }
+
+    private static ChessPiece.PieceType pieceType(char c) throws InvalidMoveException {
+        return switch (c) {
+            case 'K' -> ChessPiece.PieceType.KING;
+            case 'Q' -> ChessPiece.PieceType.QUEEN;
+            case 'R' -> ChessPiece.PieceType.ROOK;
+            case 'B' -> ChessPiece.PieceType.BISHOP;
+            case 'N' -> ChessPiece.PieceType.KNIGHT;
+            default -> throw new InvalidMoveException("Unknown piece " + c);
+        };
+    }
+
+    private static ChessPosition square(char file, char rank) throws InvalidMoveException {
+        if (file < 'a' || file > 'h' || rank < '1' || rank > '8') {
+            throw new InvalidMoveException("Bad square");
+        }
+        return new ChessPosition(rank - '0', file - 'a' + 1);
+    }
+}
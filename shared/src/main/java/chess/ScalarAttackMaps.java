@@ -0,0 +1,79 @@
+package chess;
+
+/**
+ * AttackMaps using plain long arithmetic. Sliding attacks are built with a
+ * Kogge-Stone fill, one direction at a time.
+ */
+final class ScalarAttackMaps extends AttackMaps {
+    static final ScalarAttackMaps INSTANCE = new ScalarAttackMaps();
+
+    private ScalarAttackMaps() {
+    }
+
+    @Override
+    public long attacks(ChessBoard board, ChessGame.TeamColor color, long occupied) {
+        int side = Bitboards.colorIndex(color);
+        long queens = board.pieces(color, ChessPiece.PieceType.QUEEN);
+        long straight = board.pieces(color, ChessPiece.PieceType.ROOK) | queens;
+        long diagonal = board.pieces(color, ChessPiece.PieceType.BISHOP) | queens;
+        long empty = ~occupied;
+
+        return Bitboards.pawnAttacksAll(side, board.pieces(color, ChessPiece.PieceType.PAWN))
+                | Bitboards.knightAttacksAll(board.pieces(color, ChessPiece.PieceType.KNIGHT))
+                | Bitboards.kingAttacksAll(board.pieces(color, ChessPiece.PieceType.KING))
+                | fillUp(straight, empty, 8, -1L)
+                | fillUp(straight, empty, 1, Bitboards.NOT_FILE_A)
+                | fillUp(diagonal, empty, 9, Bitboards.NOT_FILE_A)
+                | fillUp(diagonal, empty, 7, Bitboards.NOT_FILE_H)
+                | fillDown(straight, empty, 8, -1L)
+                | fillDown(straight, empty, 1, Bitboards.NOT_FILE_H)
+                | fillDown(diagonal, empty, 9, Bitboards.NOT_FILE_H)
+                | fillDown(diagonal, empty, 7, Bitboards.NOT_FILE_A);
+    }
+
+    @Override
+    public int mobility(ChessBoard board, ChessGame.TeamColor color) {
+        long notOwn = ~board.occupied(color);
+        long occupied = board.occupied();
+        int total = 0;
+
+        for (long bits = board.pieces(color, ChessPiece.PieceType.KNIGHT); bits != 0; bits &= bits - 1) {
+            total += Long.bitCount(Bitboards.knightAttacks(Long.numberOfTrailingZeros(bits)) & notOwn);
+        }
+        for (long bits = board.pieces(color, ChessPiece.PieceType.KING); bits != 0; bits &= bits - 1) {
+            total += Long.bitCount(Bitboards.kingAttacks(Long.numberOfTrailingZeros(bits)) & notOwn);
+        }
+        for (long bits = board.pieces(color, ChessPiece.PieceType.BISHOP); bits != 0; bits &= bits - 1) {
+            total += Long.bitCount(Bitboards.bishopAttacks(Long.numberOfTrailingZeros(bits), occupied) & notOwn);
+        }
+        for (long bits = board.pieces(color, ChessPiece.PieceType.ROOK); bits != 0; bits &= bits - 1) {
+            total += Long.bitCount(Bitboards.rookAttacks(Long.numberOfTrailingZeros(bits), occupied) & notOwn);
+        }
+        for (long bits = board.pieces(color, ChessPiece.PieceType.QUEEN); bits != 0; bits &= bits - 1) {
+            total += Long.bitCount(Bitboards.queenAttacks(Long.numberOfTrailingZeros(bits), occupied) & notOwn);
+        }
+        return total;
+    }
+
+    // Occluded fill towards higher squares, then one more step onto the blockers
+    static long fillUp(long sliders, long empty, int shift, long wrapMask) {
+        long open = empty & wrapMask;
+        sliders |= open & (sliders << shift);
+        open &= open << shift;
+        sliders |= open & (sliders << (shift * 2));
+        open &= open << (shift * 2);
+        sliders |= open & (sliders << (shift * 4));
+        return sliders << shift & wrapMask;
+    }
+
+    // Same as fillUp, towards lower squares
+    static long fillDown(long sliders, long empty, int shift, long wrapMask) {
+        long open = empty & wrapMask;
+        sliders |= open & (sliders >>> shift);
+        open &= open >>> shift;
+        sliders |= open & (sliders >>> (shift * 2));
+        open &= open >>> (shift * 2);
+        sliders |= open & (sliders >>> (shift * 4));
+        return sliders >>> shift & wrapMask;
+    }
+}
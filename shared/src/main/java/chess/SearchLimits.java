@@ -0,0 +1,38 @@
+package chess;
+
+/**
+ * When a search should stop, and how many lines it should report.
+ * Zero means no limit for depth, time and nodes.
+ *
+ * @param depth          the deepest iteration to search, in plies
+ * @param moveTimeMillis how long to search for
+ * @param nodes          how many positions to visit at most
+ * @param multiPv        how many of the best moves to report a line for
+ */
+public record SearchLimits(int depth, long moveTimeMillis, long nodes, int multiPv) {
+
+    public SearchLimits {
+        if (depth < 0 || moveTimeMillis < 0 || nodes < 0 || multiPv < 1) {
+            throw new IllegalArgumentException("Search limits must not be negative, and multiPv must be at least 1");
+        }
+    }
+
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, 0, 0, 1);
+    }
+
+    public static SearchLimits moveTime(long millis) {
+        return new SearchLimits(0, millis, 0, 1);
+    }
+
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(0, 0, nodes, 1);
+    }
+
+    /**
+     * @return the same limits, reporting the best lines for this many moves
+     */
+    public SearchLimits withMultiPv(int lines) {
+        return new SearchLimits(depth, moveTimeMillis, nodes, lines);
+    }
+}
@@ -0,0 +1,27 @@
+package chess;
+
+import java.util.List;
+
+/**
+ * Receives progress from an engine's searches, e.g. to log or graph them.
+ * Calls come from the searching thread, which is the ponder thread for ponder
+ * searches, so implementations should be quick and thread-safe.
+ */
+public interface SearchListener {
+
+    /**
+     * An iteration finished
+     *
+     * @param depth the depth just completed
+     * @param lines the best lines at that depth
+     * @param stats the search's counters so far
+     */
+    default void depthCompleted(int depth, List<PrincipalVariation> lines, SearchStats stats) {
+    }
+
+    /**
+     * A search returned its result
+     */
+    default void searchFinished(SearchResult result, SearchStats stats) {
+    }
+}
@@ -0,0 +1,34 @@
+package chess;
+
+import java.util.List;
+
+/**
+ * What a search found
+ *
+ * @param lines the best lines, best first; empty if the side to move has no legal moves
+ * @param depth the deepest iteration that finished
+ * @param nodes how many positions were visited
+ */
+public record SearchResult(List<PrincipalVariation> lines, int depth, long nodes) {
+
+    /**
+     * @return the move to play, or null if there are no legal moves
+     */
+    public ChessMove bestMove() {
+        return lines.isEmpty() ? null : lines.get(0).firstMove();
+    }
+
+    /**
+     * @return the reply the best line expects from the opponent, to ponder on, or null if it doesn't go that far
+     */
+    public ChessMove ponderMove() {
+        return lines.isEmpty() || lines.get(0).moves().size() < 2 ? null : lines.get(0).moves().get(1);
+    }
+
+    /**
+     * @return the best line's score, or 0 if there are no legal moves
+     */
+    public int score() {
+        return lines.isEmpty() ? 0 : lines.get(0).score();
+    }
+}
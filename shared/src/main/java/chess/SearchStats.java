@@ -0,0 +1,68 @@
+package chess;
+
+import java.util.List;
+
+/**
+ * Counters from one search, for tuning the engine's speed
+ *
+ * @param nodes            positions visited, including quiescence nodes
+ * @param quiescenceNodes  positions visited by the captures-only search at the leaves
+ * @param tableProbes      transposition table lookups
+ * @param tableHits        lookups that found an entry for the position
+ * @param tableCutoffs     hits whose stored score ended the node without a search
+ * @param cutoffs          nodes that failed high (beta cutoffs) in the main search
+ * @param firstMoveCutoffs cutoffs caused by the first move searched, a measure of move ordering
+ * @param nanos            how long the search ran, in nanoseconds
+ * @param depthNodes       total nodes once each iteration finished, shallowest first
+ * @param depthNanos       total time once each iteration finished, shallowest first
+ */
+public record SearchStats(long nodes, long quiescenceNodes, long tableProbes, long tableHits, long tableCutoffs,
+                          long cutoffs, long firstMoveCutoffs, long nanos,
+                          List<Long> depthNodes, List<Long> depthNanos) {
+
+    public SearchStats {
+        depthNodes = List.copyOf(depthNodes);
+        depthNanos = List.copyOf(depthNanos);
+    }
+
+    /**
+     * @return these counters with another search's added, such as a Lazy SMP helper's;
+     * the time and per-depth lists stay these
+     */
+    SearchStats plus(SearchStats other) {
+        return new SearchStats(nodes + other.nodes, quiescenceNodes + other.quiescenceNodes,
+                tableProbes + other.tableProbes, tableHits + other.tableHits, tableCutoffs + other.tableCutoffs,
+                cutoffs + other.cutoffs, firstMoveCutoffs + other.firstMoveCutoffs, nanos,
+                depthNodes, depthNanos);
+    }
+
+    public double nodesPerSecond() {
+        return nanos() == 0 ? 0 : nodes * 1e9 / nanos();
+    }
+
+    /**
+     * @return the share of table lookups that found an entry, from 0 to 1
+     */
+    public double tableHitRate() {
+        return tableProbes == 0 ? 0 : (double) tableHits / tableProbes;
+    }
+
+    /**
+     * @return the share of cutoffs made by the first move, from 0 to 1; above 0.9 is good ordering
+     */
+    public double firstMoveCutoffRate() {
+        return cutoffs == 0 ? 0 : (double) firstMoveCutoffs / cutoffs;
+    }
+
+    /**
+     * @return how many times more nodes the last iteration took than the one before,
+     * or 0 if fewer than two iterations finished
+     */
+    public double effectiveBranchingFactor() {
+        int depths = depthNodes.size();
+        if (depths < 2 || depthNodes.get(depths - 2) == 0) {
+            return 0;
+        }
+        return (double) depthNodes.get(depths - 1) / depthNodes.get(depths - 2);
+    }
+}
@@ -0,0 +1,586 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+
+/**
+ * One search's working state: a private copy of the game that moves are played
+ * on and taken back from, and preallocated arrays for moves, scores and lines at
+ * each ply, so the search itself doesn't allocate.
+ */
+final class Searcher {
+    static final int MAX_PLY = 64;
+
+    private static final int INFINITY = Engine.MATE + 1;
+    // Move ordering scores
+    private static final int HASH_MOVE = 1_000_000;
+    private static final int TACTICAL = 100_000;
+    private static final int KILLER = 90_000;
+    // Piece values for ordering captures, by PositionCodec code without color
+    private static final int[] VALUE = {0, 20_000, 900, 330, 320, 500, 100, 0};
+
+    private final Engine engine;
+    private final ChessGame game;
+    private final ChessBoard board;
+    // Limits can be swapped by another thread when a ponder search becomes a real one
+    private volatile SearchLimits limits;
+    private volatile boolean pondering;
+    private volatile long budgetStart;
+    private volatile long deadline;
+    private volatile long nodeLimit;
+    private volatile int completedDepth;
+    private volatile boolean aborted;
+    // A stop signal owned by whoever started this search; a ponder hit can swap it
+    private volatile BooleanSupplier stopToken = () -> false;
+    // 0 for the search whose result is used, 1 and up for Lazy SMP helpers
+    private final int helper;
+    // The main search's helpers, whose counters go into what it reports
+    private Searcher[] helpers = new Searcher[0];
+    // A helper's counters as of its last finished iteration, for the main search to read
+    private volatile SearchStats published;
+    private final CountDownLatch done = new CountDownLatch(1);
+    private final Evaluator evaluator;
+    private final TranspositionTable table;
+
+    private final int[][] moves = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+    private final int[][] orderScores = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+    private final int[][] pv = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+    private final int[][] killers = new int[MAX_PLY][2];
+    private final int[][] history = new int[2][64 * 64];
+    private final long[] keys = new long[MAX_PLY + 1];
+
+    private int[] rootMoves;
+    private int[] rootScores;
+    private long nodes;
+    private boolean stopped;
+
+    // Counters for SearchStats; plain fields, since only the searching thread touches them
+    private long startNanos;
+    private long quiescenceNodes;
+    private long tableProbes;
+    private long tableHits;
+    private long tableCutoffs;
+    private long cutoffs;
+    private long firstMoveCutoffs;
+    private final List<Long> depthNodes = new ArrayList<>();
+    private final List<Long> depthNanos = new ArrayList<>();
+
+    /**
+     * @param pondering if true, search without limits until ponderHit gives some
+     */
+    Searcher(Engine engine, ChessGame game, SearchLimits limits, boolean pondering) {
+        this(engine, game, limits, pondering, 0);
+    }
+
+    /**
+     * @param helper 0 for a normal search, or a helper's number: helpers search the
+     *               same position to fill the shared table, and report to no one
+     */
+    Searcher(Engine engine, ChessGame game, SearchLimits limits, boolean pondering, int helper) {
+        this.helper = helper;
+        this.engine = engine;
+        this.game = game;
+        this.board = game.getBoard();
+        this.limits = limits;
+        this.pondering = pondering;
+        this.deadline = Long.MAX_VALUE;
+        this.nodeLimit = Long.MAX_VALUE;
+        this.evaluator = engine.evaluator();
+        this.table = engine.table();
+    }
+
+    /**
+     * Also stops once the token is true, replacing any earlier token
+     */
+    void stopWhen(BooleanSupplier token) {
+        this.stopToken = token;
+    }
+
+    /**
+     * Lazy SMP helpers searching alongside this one; set before run. Their counters
+     * are added to the stats this search reports, and it waits for them to stop
+     * before reporting that it has finished.
+     */
+    void addHelpers(Searcher[] helpers) {
+        this.helpers = helpers;
+    }
+
+    /**
+     * Searches one iteration deeper at a time until a limit is hit, reporting the
+     * lines from the last iteration that finished
+     */
+    SearchResult run() {
+        try {
+            return search();
+        } finally {
+            if (helper != 0) {
+                published = stats();
+            }
+            done.countDown();
+        }
+    }
+
+    private SearchResult search() {
+        startNanos = System.nanoTime();
+        if (!pondering) {
+            applyLimits(limits);
+        }
+        findRootMoves();
+        if (rootMoves.length == 0) {
+            return finish(new SearchResult(List.of(), 0, 0));
+        }
+
+        int lineCount = Math.min(limits.multiPv(), rootMoves.length);
+        List<PrincipalVariation> completed = List.of();
+        // Odd helpers skip depth 1, so helpers and the main search spread over different depths
+        for (int depth = 1 + helper % 2; depth <= maxDepth(); depth++) {
+            // Each line searches only the root moves earlier lines haven't taken,
+            // and all of them share the transposition table
+            List<PrincipalVariation> lines = new ArrayList<>(lineCount);
+            for (int line = 0; line < lineCount && !stopped; line++) {
+                int score = searchRoot(depth, line);
+                if (!stopped) {
+                    lines.add(new PrincipalVariation(principalVariation(), score));
+                }
+            }
+            if (stopped) {
+                if (completed.isEmpty()) {
+                    completed = lines;
+                }
+                break;
+            }
+            completed = lines;
+            completedDepth = depth;
+            depthNodes.add(nodes);
+            depthNanos.add(System.nanoTime() - startNanos);
+            if (helper == 0) {
+                engine.depthCompleted(depth, lines, withHelpers(stats()));
+            } else {
+                published = stats();
+            }
+
+            // A mate found within the searched depth can't be improved on
+            if (lineCount == 1 && Engine.MATE - lines.get(0).score() <= depth) {
+                break;
+            }
+
+            // Another iteration would probably not finish in the time left
+            long start = budgetStart;
+            if (!pondering && deadline != Long.MAX_VALUE && System.nanoTime() - start > (deadline - start) / 2) {
+                break;
+            }
+        }
+        if (completed.isEmpty()) {
+            completed = List.of(new PrincipalVariation(List.of(ChessMove.decode(rootMoves[0])), 0));
+        }
+        return finish(new SearchResult(completed, completedDepth, nodes));
+    }
+
+    private SearchResult finish(SearchResult result) {
+        if (helper != 0) {
+            return result;
+        }
+        for (Searcher each : helpers) {
+            each.abort();
+        }
+        awaitHelpers();
+        SearchStats stats = withHelpers(stats());
+        result = new SearchResult(result.lines(), result.depth(), stats.nodes());
+        engine.searchFinished(result, stats);
+        return result;
+    }
+
+    // Adds in the helpers' latest counters; the time and per-depth lists stay this search's own
+    private SearchStats withHelpers(SearchStats stats) {
+        for (Searcher each : helpers) {
+            SearchStats theirs = each.published;
+            if (theirs != null) {
+                stats = stats.plus(theirs);
+            }
+        }
+        return stats;
+    }
+
+    // Waits for every helper to publish its final counters, even if interrupted
+    private void awaitHelpers() {
+        boolean interrupted = false;
+        for (Searcher each : helpers) {
+            while (true) {
+                try {
+                    each.done.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stops a helper once the main search is done
+     */
+    void abort() {
+        aborted = true;
+    }
+
+    private SearchStats stats() {
+        return new SearchStats(nodes, quiescenceNodes, tableProbes, tableHits, tableCutoffs, cutoffs,
+                firstMoveCutoffs, System.nanoTime() - startNanos, depthNodes, depthNanos);
+    }
+
+    /**
+     * Turns a ponder search into a normal one: the search keeps going with
+     * everything it has learned, but now stops at the given limits, counted from now
+     */
+    void ponderHit(SearchLimits newLimits) {
+        applyLimits(newLimits);
+        pondering = false;
+    }
+
+    private void applyLimits(SearchLimits newLimits) {
+        long now = System.nanoTime();
+        budgetStart = now;
+        deadline = newLimits.moveTimeMillis() == 0 ? Long.MAX_VALUE : now + newLimits.moveTimeMillis() * 1_000_000L;
+        nodeLimit = newLimits.nodes() == 0 ? Long.MAX_VALUE : nodes + newLimits.nodes();
+        limits = newLimits;
+    }
+
+    private int maxDepth() {
+        int depth = limits.depth();
+        return pondering || depth == 0 ? MAX_PLY - 1 : Math.min(depth, MAX_PLY - 1);
+    }
+
+    private void findRootMoves() {
+        int[] buffer = moves[0];
+        int count = MoveGenerator.generateAll(board, game.getTeamTurn(), buffer, 0);
+        ChessGame.TeamColor mover = game.getTeamTurn();
+        int legal = 0;
+        for (int i = 0; i < count; i++) {
+            int captured = game.play(buffer[i]);
+            boolean ok = !game.isKingAttacked(mover);
+            game.unplay(buffer[i], captured);
+            if (ok) {
+                buffer[legal++] = buffer[i];
+            }
+        }
+        rootMoves = Arrays.copyOf(buffer, legal);
+        rootScores = new int[legal];
+        keys[0] = game.positionKey();
+    }
+
+    // Searches the root moves from index first on, leaving the best one at first
+    private int searchRoot(int depth, int first) {
+        sortRootMoves(first);
+        int alpha = -INFINITY;
+        int beta = INFINITY;
+        int best = -INFINITY;
+        pvLength[0] = 0;
+        for (int i = first; i < rootMoves.length; i++) {
+            int move = rootMoves[i];
+            int captured = game.play(move);
+            keys[1] = game.positionKey();
+            int score;
+            if (i == first) {
+                score = -search(depth - 1, 1, -beta, -alpha);
+            } else {
+                score = -search(depth - 1, 1, -alpha - 1, -alpha);
+                if (score > alpha && !stopped) {
+                    score = -search(depth - 1, 1, -beta, -alpha);
+                }
+            }
+            game.unplay(move, captured);
+            if (stopped) {
+                break;
+            }
+            rootScores[i] = score;
+            if (score > best) {
+                best = score;
+                alpha = score;
+                updatePv(0, move);
+                // Keep the best move at the front of this line's moves
+                rootMoves[i] = rootMoves[first];
+                rootScores[i] = rootScores[first];
+                rootMoves[first] = move;
+                rootScores[first] = score;
+            }
+        }
+        if (first == 0 && !stopped) {
+            table.store(keys[0], rootMoves[0], toTable(best, 0), depth, TranspositionTable.EXACT);
+        }
+        return best;
+    }
+
+    // Best scores from the last iteration first; a stable insertion sort keeps ties in order
+    private void sortRootMoves(int first) {
+        for (int i = first + 1; i < rootMoves.length; i++) {
+            int move = rootMoves[i];
+            int score = rootScores[i];
+            int j = i - 1;
+            while (j >= first && rootScores[j] < score) {
+                rootMoves[j + 1] = rootMoves[j];
+                rootScores[j + 1] = rootScores[j];
+                j--;
+            }
+            rootMoves[j + 1] = move;
+            rootScores[j + 1] = score;
+        }
+    }
+
+    private int search(int depth, int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        if (isRepetition(ply)) {
+            return 0;
+        }
+        ChessGame.TeamColor mover = game.getTeamTurn();
+        boolean inCheck = game.isKingAttacked(mover);
+        if (inCheck) {
+            depth++;
+        }
+        if (depth <= 0) {
+            return quiesce(ply, alpha, beta);
+        }
+        if (countNode() || ply >= MAX_PLY - 1) {
+            return stopped ? 0 : evaluator.evaluate(game);
+        }
+
+        long key = keys[ply];
+        long entry = table.probe(key);
+        tableProbes++;
+        int hashMove = 0;
+        if (entry != 0) {
+            tableHits++;
+            hashMove = TranspositionTable.move(entry);
+            // Only trust stored bounds outside the principal variation, so lines stay complete
+            if (TranspositionTable.depth(entry) >= depth && beta - alpha == 1) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || bound == TranspositionTable.LOWER && score >= beta
+                        || bound == TranspositionTable.UPPER && score <= alpha) {
+                    tableCutoffs++;
+                    return score;
+                }
+            }
+        }
+
+        int[] list = moves[ply];
+        int count = MoveGenerator.generateAll(board, mover, list, 0);
+        scoreMoves(ply, count, hashMove, mover);
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = 0;
+        int legal = 0;
+        for (int i = 0; i < count; i++) {
+            int move = pickNext(ply, i, count);
+            int captured = game.play(move);
+            if (game.isKingAttacked(mover)) {
+                game.unplay(move, captured);
+                continue;
+            }
+            legal++;
+            keys[ply + 1] = game.positionKey();
+            int score;
+            if (legal == 1) {
+                score = -search(depth - 1, ply + 1, -beta, -alpha);
+            } else {
+                score = -search(depth - 1, ply + 1, -alpha - 1, -alpha);
+                if (score > alpha && score < beta && !stopped) {
+                    score = -search(depth - 1, ply + 1, -beta, -alpha);
+                }
+            }
+            game.unplay(move, captured);
+            if (stopped) {
+                return 0;
+            }
+
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (alpha >= beta) {
+                        cutoffs++;
+                        if (legal == 1) {
+                            firstMoveCutoffs++;
+                        }
+                        if (captured == 0 && MoveGenerator.promotion(move) == 0) {
+                            rememberQuietCutoff(ply, move, mover, depth);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (legal == 0) {
+            return inCheck ? -Engine.MATE + ply : 0;
+        }
+        int bound = best >= beta ? TranspositionTable.LOWER
+                : best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        table.store(key, bestMove, toTable(best, ply), depth, bound);
+        return best;
+    }
+
+    // Only captures and queen promotions, until the position is quiet
+    private int quiesce(int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        quiescenceNodes++;
+        if (countNode()) {
+            return 0;
+        }
+        int best = evaluator.evaluate(game);
+        if (best >= beta || ply >= MAX_PLY - 1) {
+            return best;
+        }
+        alpha = Math.max(alpha, best);
+
+        ChessGame.TeamColor mover = game.getTeamTurn();
+        int count = MoveGenerator.generate(board, mover, true, moves[ply], 0);
+        scoreMoves(ply, count, 0, mover);
+        for (int i = 0; i < count; i++) {
+            int move = pickNext(ply, i, count);
+            int captured = game.play(move);
+            if (game.isKingAttacked(mover)) {
+                game.unplay(move, captured);
+                continue;
+            }
+            int score = -quiesce(ply + 1, -beta, -alpha);
+            game.unplay(move, captured);
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    // Counts a node and checks the limits every so often; true once the search should stop
+    private boolean countNode() {
+        nodes++;
+        if (nodes >= nodeLimit) {
+            stopped = true;
+        } else if ((nodes & 1023) == 0) {
+            // A ponder hit can ask for less depth than has already been searched
+            stopped = aborted || stopToken.getAsBoolean()
+                    || System.nanoTime() > deadline || completedDepth >= maxDepth();
+        }
+        return stopped;
+    }
+
+    // Same position as an earlier one in this line with the same side to move
+    private boolean isRepetition(int ply) {
+        for (int earlier = ply - 2; earlier >= 0; earlier -= 2) {
+            if (keys[earlier] == keys[ply]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Hash move first, then captures by most valuable victim and least valuable attacker, then killers and history
+    private void scoreMoves(int ply, int count, int hashMove, ChessGame.TeamColor mover) {
+        int[] list = moves[ply];
+        int[] scores = orderScores[ply];
+        int[] moverHistory = history[Bitboards.colorIndex(mover)];
+        for (int i = 0; i < count; i++) {
+            int move = list[i];
+            int victim = PositionCodec.pieceCode(board.getPiece(MoveGenerator.to(move))) & 7;
+            int promotion = MoveGenerator.promotion(move);
+            if (move == hashMove) {
+                scores[i] = HASH_MOVE;
+            } else if (victim != 0 || promotion == ChessPiece.PieceType.QUEEN.ordinal() + 1) {
+                int attacker = PositionCodec.pieceCode(board.getPiece(MoveGenerator.from(move))) & 7;
+                scores[i] = TACTICAL + VALUE[victim] * 10 + VALUE[promotion] - VALUE[attacker] / 100;
+            } else if (move == killers[ply][0]) {
+                scores[i] = KILLER;
+            } else if (move == killers[ply][1]) {
+                scores[i] = KILLER - 1;
+            } else {
+                scores[i] = Math.min(moverHistory[move & 4095], KILLER - 2);
+            }
+        }
+    }
+
+    // Selection sort one step at a time, since a cutoff often comes before the list is used up
+    private int pickNext(int ply, int index, int count) {
+        int[] list = moves[ply];
+        int[] scores = orderScores[ply];
+        int best = index;
+        for (int i = index + 1; i < count; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        int move = list[best];
+        list[best] = list[index];
+        list[index] = move;
+        int score = scores[best];
+        scores[best] = scores[index];
+        scores[index] = score;
+        return move;
+    }
+
+    private void rememberQuietCutoff(int ply, int move, ChessGame.TeamColor mover, int depth) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        history[Bitboards.colorIndex(mover)][move & 4095] += depth * depth;
+    }
+
+    private void updatePv(int ply, int move) {
+        pv[ply][ply] = move;
+        int length = pvLength[ply + 1];
+        for (int i = ply + 1; i < length; i++) {
+            pv[ply][i] = pv[ply + 1][i];
+        }
+        pvLength[ply] = Math.max(length, ply + 1);
+    }
+
+    private List<ChessMove> principalVariation() {
+        List<ChessMove> line = new ArrayList<>(pvLength[0]);
+        for (int i = 0; i < pvLength[0]; i++) {
+            line.add(ChessMove.decode(pv[0][i]));
+        }
+        return line;
+    }
+
+    // Mate scores are stored relative to the position, not the root
+    private static int toTable(int score, int ply) {
+        if (score > Engine.MATE - MAX_PLY) {
+            return score + ply;
+        }
+        if (score < -Engine.MATE + MAX_PLY) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score > Engine.MATE - MAX_PLY) {
+            return score - ply;
+        }
+        if (score < -Engine.MATE + MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+}
@@ -0,0 +1,299 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Plays engine-vs-engine games between a candidate and a baseline evaluator to
+ * check that a change doesn't make the engine weaker, and to compare speed.
+ * <p>
+ * Each opening is played twice, once with each side as white. Games run in
+ * parallel, one per worker thread, and each worker keeps its own pair of engines
+ * so searches never wait on each other. A game is drawn by stalemate, threefold
+ * repetition, bare kings or reaching MAX_PLIES without a mate.
+ * <p>
+ * Usage: {@code SelfPlay <openings file> [games] [move time ms] [threads] [candidate]}.
+ * The openings file has one FEN per line; blank lines and lines starting with #
+ * are skipped. The candidate is a weights file written by TexelTuner, or a
+ * network ending in .nnue; without one both sides use the default weights, which
+ * measures the noise between identical engines.
+ */
+public class SelfPlay {
+    /**
+     * Games reaching this many plies after the opening are drawn
+     */
+    public static final int MAX_PLIES = 400;
+
+    private static final int HASH_MEGABYTES = 8;
+
+    private final List<ChessGame> openings;
+    private final Supplier<Evaluator> candidate;
+    private final Supplier<Evaluator> baseline;
+    private final SearchLimits limits;
+    private final int maxPlies;
+
+    /**
+     * @param openings  positions to start games from
+     * @param candidate makes the evaluator under test, once per worker
+     * @param baseline  makes the evaluator to compare against, once per worker
+     * @param limits    how long each move may be searched
+     */
+    public SelfPlay(List<ChessGame> openings, Supplier<Evaluator> candidate, Supplier<Evaluator> baseline,
+                    SearchLimits limits) {
+        this(openings, candidate, baseline, limits, MAX_PLIES);
+    }
+
+    /**
+     * @param maxPlies how many plies a game may last, for tests that need games cut short
+     */
+    SelfPlay(List<ChessGame> openings, Supplier<Evaluator> candidate, Supplier<Evaluator> baseline,
+             SearchLimits limits, int maxPlies) {
+        if (openings.isEmpty()) {
+            throw new IllegalArgumentException("Need at least one opening");
+        }
+        this.openings = openings;
+        this.candidate = candidate;
+        this.baseline = baseline;
+        this.limits = limits;
+        this.maxPlies = maxPlies;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: SelfPlay <openings file> [games] [move time ms] [threads] [candidate]");
+            return;
+        }
+        List<ChessGame> openings = readOpenings(Path.of(args[0]));
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 2 * openings.size();
+        long moveTime = args.length > 2 ? Long.parseLong(args[2]) : 100;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        Supplier<Evaluator> candidate = ClassicEvaluator::new;
+        if (args.length > 4) {
+            Path file = Path.of(args[4]);
+            if (file.toString().endsWith(".nnue")) {
+                NnueNetwork network = NnueNetwork.load(file);
+                candidate = () -> new NnueEvaluator(network);
+            } else {
+                int[] parameters = TexelTuner.readParameters(file);
+                candidate = () -> new ClassicEvaluator(parameters);
+            }
+        }
+
+        SelfPlay selfPlay = new SelfPlay(openings, candidate, ClassicEvaluator::new, SearchLimits.moveTime(moveTime));
+        long start = System.nanoTime();
+        Result result = selfPlay.run(games, threads);
+        System.out.printf("%d games in %d s on %d threads%n",
+                result.games(), (System.nanoTime() - start) / 1_000_000_000, threads);
+        System.out.println(result);
+    }
+
+    /**
+     * Reads one FEN per line, skipping blank lines and # comments
+     *
+     * @throws IllegalArgumentException if a line isn't a FEN
+     */
+    public static List<ChessGame> readOpenings(Path file) throws IOException {
+        List<ChessGame> openings = new ArrayList<>();
+        int lineNumber = 0;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            lineNumber++;
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            try {
+                openings.add(Fen.parse(line));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        return openings;
+    }
+
+    /**
+     * Plays a number of games, cycling through the openings
+     *
+     * @param games   how many games to play; odd counts leave the last opening unpaired
+     * @param threads how many games to play at once
+     */
+    public Result run(int games, int threads) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        ThreadLocal<Engine[]> engines = ThreadLocal.withInitial(() -> new Engine[]{
+                new Engine(candidate.get(), HASH_MEGABYTES), new Engine(baseline.get(), HASH_MEGABYTES)});
+        try {
+            List<Future<GameRecord>> futures = new ArrayList<>();
+            for (int i = 0; i < games; i++) {
+                ChessGame opening = openings.get(i / 2 % openings.size());
+                boolean candidateWhite = i % 2 == 0;
+                futures.add(pool.submit(() -> {
+                    Engine[] pair = engines.get();
+                    return play(opening, pair[0], pair[1], candidateWhite);
+                }));
+            }
+            Result total = new Result(0, 0, 0, new EngineStats(0, 0, 0), new EngineStats(0, 0, 0));
+            for (Future<GameRecord> future : futures) {
+                total = total.add(future.get());
+            }
+            return total;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A game failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Plays one game from an opening and scores it for the candidate
+    private GameRecord play(ChessGame opening, Engine candidateEngine, Engine baselineEngine, boolean candidateWhite)
+            throws InvalidMoveException {
+        candidateEngine.clearHash();
+        baselineEngine.clearHash();
+        ChessGame game = Engine.copyOf(opening);
+        ChessGame.TeamColor candidateColor = candidateWhite ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        long[] moves = new long[2];
+        long[] nanos = new long[2];
+        long[] nodes = new long[2];
+        Map<Long, Integer> seen = new HashMap<>();
+        int score = 1;
+
+        for (int ply = 0; ; ply++) {
+            int side = game.getTeamTurn() == candidateColor ? 0 : 1;
+            // Looked at before the ply limit, so a mate on the last ply still counts
+            if (!game.hasAnyLegalMove(game.getTeamTurn())) {
+                // Mate scores a win for the other side, stalemate stays a draw
+                if (game.isInCheck(game.getTeamTurn())) {
+                    score = side == 0 ? 0 : 2;
+                }
+                break;
+            }
+            if (ply == maxPlies || seen.merge(game.positionKey(), 1, Integer::sum) >= 3 || onlyKings(game.getBoard())) {
+                break;
+            }
+            long start = System.nanoTime();
+            SearchResult result = (side == 0 ? candidateEngine : baselineEngine).search(game, limits);
+            nanos[side] += System.nanoTime() - start;
+            nodes[side] += result.nodes();
+            moves[side]++;
+            game.makeMove(result.bestMove());
+        }
+        return new GameRecord(score, new EngineStats(moves[0], nanos[0], nodes[0]),
+                new EngineStats(moves[1], nanos[1], nodes[1]));
+    }
+
+    private static boolean onlyKings(ChessBoard board) {
+        return board.occupied() == (board.pieces(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING)
+                | board.pieces(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+    }
+
+    // One finished game: the candidate's score in half points, and each side's search totals
+    private record GameRecord(int score, EngineStats candidate, EngineStats baseline) {
+    }
+
+    /**
+     * Search totals for one side across games
+     *
+     * @param moves how many moves it searched
+     * @param nanos how long those searches took in total
+     * @param nodes how many positions they visited in total
+     */
+    public record EngineStats(long moves, long nanos, long nodes) {
+
+        public double millisPerMove() {
+            return moves == 0 ? 0 : nanos / 1e6 / moves;
+        }
+
+        public double nodesPerSecond() {
+            return nanos == 0 ? 0 : nodes * 1e9 / nanos;
+        }
+
+        EngineStats add(EngineStats other) {
+            return new EngineStats(moves + other.moves, nanos + other.nanos, nodes + other.nodes);
+        }
+    }
+
+    /**
+     * The outcome of a match, from the candidate's point of view
+     */
+    public record Result(int wins, int draws, int losses, EngineStats candidate, EngineStats baseline) {
+
+        public int games() {
+            return wins + draws + losses;
+        }
+
+        /**
+         * @return the candidate's average score per game, from 0 to 1
+         */
+        public double score() {
+            return games() == 0 ? 0.5 : (wins + draws / 2.0) / games();
+        }
+
+        /**
+         * @return how many Elo points stronger the candidate played, from its score
+         */
+        public double eloDifference() {
+            return elo(score());
+        }
+
+        /**
+         * @return whether every game went the candidate's way, or every game went
+         * against it, so the Elo difference and its error are unbounded
+         */
+        public boolean oneSided() {
+            return games() > 0 && (wins == games() || losses == games());
+        }
+
+        /**
+         * @return the half-width of the 95% confidence interval around eloDifference;
+         * infinite with fewer than two games or a oneSided result
+         */
+        public double eloError() {
+            int n = games();
+            if (n < 2 || oneSided()) {
+                return Double.POSITIVE_INFINITY;
+            }
+            double mean = score();
+            double variance = (wins * Math.pow(1 - mean, 2) + draws * Math.pow(0.5 - mean, 2)
+                    + losses * Math.pow(mean, 2)) / (n - 1);
+            double margin = 1.96 * Math.sqrt(variance / n);
+            return (elo(Math.min(mean + margin, 1)) - elo(Math.max(mean - margin, 0))) / 2;
+        }
+
+        private static double elo(double score) {
+            if (score <= 0) {
+                return Double.NEGATIVE_INFINITY;
+            }
+            if (score >= 1) {
+                return Double.POSITIVE_INFINITY;
+            }
+            return -400 * Math.log10(1 / score - 1);
+        }
+
+        Result add(GameRecord game) {
+            return new Result(wins + (game.score() == 2 ? 1 : 0), draws + (game.score() == 1 ? 1 : 0),
+                    losses + (game.score() == 0 ? 1 : 0), candidate.add(game.candidate()), baseline.add(game.baseline()));
+        }
+
+        @Override
+        public String toString() {
+            String elo = oneSided()
+                    ? String.format("Elo unbounded, every game %s", wins > 0 ? "won" : "lost")
+                    : String.format("Elo %+.1f +/- %.1f", eloDifference(), eloError());
+            return String.format("+%d =%d -%d, score %.1f%%, %s%n"
+                            + "candidate: %.1f ms/move, %.0f nps%n"
+                            + "baseline:  %.1f ms/move, %.0f nps",
+                    wins, draws, losses, 100 * score(), elo,
+                    candidate.millisPerMove(), candidate.nodesPerSecond(),
+                    baseline.millisPerMove(), baseline.nodesPerSecond());
+        }
+    }
+}
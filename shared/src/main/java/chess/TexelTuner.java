@@ -0,0 +1,270 @@
+package chess;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Tunes ClassicEvaluator's weights against positions labelled with the result of
+ * the game they came from (Texel's method): it looks for the weights whose
+ * scores, turned into an expected result, best predict the real results.
+ * <p>
+ * Positions are packed with PositionCodec into one byte array, and each pass over
+ * them is split across a ForkJoinPool with one reusable board per task, so a pass
+ * over millions of positions allocates almost nothing. The dataset should hold
+ * quiet positions, since they are scored without a search.
+ * <p>
+ * Usage: {@code TexelTuner <positions file> [output file] [iterations]}. Each line
+ * of the positions file is a FEN followed by a result, written as {@code [1.0]},
+ * {@code [0.5]}, {@code [0.0]} or {@code "1-0"}, {@code "1/2-1/2"}, {@code "0-1"}
+ * from white's point of view.
+ */
+public class TexelTuner {
+    // Positions per task before a pass stops splitting the work
+    private static final int CHUNK = 8192;
+
+    private final byte[] positions;
+    private final byte[] results;
+    private final int count;
+    private final ForkJoinPool pool;
+    private double scale = 1.0;
+
+    /**
+     * @param positions count positions packed with PositionCodec, one after another
+     * @param results   each position's result in half points for white: 0, 1 or 2
+     * @param count     how many positions there are
+     */
+    public TexelTuner(byte[] positions, byte[] results, int count, ForkJoinPool pool) {
+        this.positions = positions;
+        this.results = results;
+        this.count = count;
+        this.pool = pool;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: TexelTuner <positions file> [output file] [iterations]");
+            return;
+        }
+        Path output = Path.of(args.length > 1 ? args[1] : "tuned-parameters.txt");
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        long start = System.nanoTime();
+        TexelTuner tuner = load(Path.of(args[0]), ForkJoinPool.commonPool());
+        System.out.printf("Loaded %d positions in %d ms%n", tuner.count, (System.nanoTime() - start) / 1_000_000);
+
+        int[] parameters = ClassicEvaluator.defaultParameters();
+        tuner.fitScale(parameters);
+        System.out.printf("Scale %.3f, starting error %.6f%n", tuner.scale, tuner.error(parameters));
+        for (int i = 1; i <= iterations; i++) {
+            start = System.nanoTime();
+            int changed = tuner.tuneOnce(parameters);
+            writeParameters(output, parameters);
+            System.out.printf("Iteration %d: error %.6f, %d weights changed, %d ms%n",
+                    i, tuner.error(parameters), changed, (System.nanoTime() - start) / 1_000_000);
+            if (changed == 0) {
+                break;
+            }
+        }
+        System.out.println("Weights written to " + output);
+    }
+
+    /**
+     * Reads a positions file into packed arrays
+     *
+     * @throws IllegalArgumentException if a line can't be read
+     */
+    public static TexelTuner load(Path file, ForkJoinPool pool) throws IOException {
+        byte[] positions = new byte[PositionCodec.ENCODED_LENGTH * 1024];
+        byte[] results = new byte[1024];
+        int count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int result = parseResult(line);
+                if (result < 0) {
+                    throw new IllegalArgumentException("Line " + lineNumber + ": no result found");
+                }
+                if (count == results.length) {
+                    results = Arrays.copyOf(results, count * 2);
+                    positions = Arrays.copyOf(positions, count * 2 * PositionCodec.ENCODED_LENGTH);
+                }
+                ChessGame game = Fen.parse(fenPart(line));
+                PositionCodec.encode(game.getBoard(), game.getTeamTurn(), positions, count * PositionCodec.ENCODED_LENGTH);
+                results[count++] = (byte) result;
+            }
+        }
+        return new TexelTuner(positions, results, count, pool);
+    }
+
+    // Result in half points for white, or -1 if there isn't one
+    private static int parseResult(String line) {
+        if (line.contains("[1.0]") || line.contains("\"1-0\"")) {
+            return 2;
+        }
+        if (line.contains("[0.5]") || line.contains("\"1/2-1/2\"")) {
+            return 1;
+        }
+        if (line.contains("[0.0]") || line.contains("\"0-1\"")) {
+            return 0;
+        }
+        return -1;
+    }
+
+    // Just the placement and side to move; the other FEN fields and EPD operations don't matter here
+    private static String fenPart(String line) {
+        String[] fields = line.split("\\s+", 3);
+        if (fields.length < 2) {
+            throw new IllegalArgumentException("Not a FEN: " + line);
+        }
+        return fields[0] + " " + fields[1];
+    }
+
+    /**
+     * Picks the scale that turns scores into expected results, so the starting
+     * weights fit as well as they can before any of them change
+     */
+    public void fitScale(int[] parameters) {
+        double best = scale;
+        double bestError = error(parameters);
+        for (double step = 0.5; step > 0.001; step /= 2) {
+            boolean improved = true;
+            while (improved) {
+                improved = false;
+                for (double candidate : new double[]{best - step, best + step}) {
+                    if (candidate <= 0) {
+                        continue;
+                    }
+                    scale = candidate;
+                    double candidateError = error(parameters);
+                    if (candidateError < bestError) {
+                        best = candidate;
+                        bestError = candidateError;
+                        improved = true;
+                    }
+                }
+            }
+        }
+        scale = best;
+    }
+
+    /**
+     * Tries moving each weight up and down by one, keeping changes that lower the error
+     *
+     * @return how many weights changed
+     */
+    public int tuneOnce(int[] parameters) {
+        double bestError = error(parameters);
+        int changed = 0;
+        for (int i = 0; i < parameters.length; i++) {
+            if (!isTunable(i)) {
+                continue;
+            }
+            for (int step : new int[]{1, -1}) {
+                parameters[i] += step;
+                double candidate = error(parameters);
+                if (candidate < bestError) {
+                    bestError = candidate;
+                    changed++;
+                    break;
+                }
+                parameters[i] -= step;
+            }
+        }
+        return changed;
+    }
+
+    // Weights that can't affect any position's score aren't worth a pass each
+    private static boolean isTunable(int index) {
+        if (index == ClassicEvaluator.MATERIAL + ChessPiece.PieceType.KING.ordinal()) {
+            return false;
+        }
+        int pawnTable = ClassicEvaluator.PIECE_SQUARE + ChessPiece.PieceType.PAWN.ordinal() * 64;
+        if (index >= pawnTable && (index < pawnTable + 8 || index >= pawnTable + 56 && index < pawnTable + 64)) {
+            return false;
+        }
+        return index != ClassicEvaluator.PASSED_PAWN && index != ClassicEvaluator.PASSED_PAWN + 7;
+    }
+
+    /**
+     * @return the mean squared difference between each position's result and the
+     * result its score predicts
+     */
+    public double error(int[] parameters) {
+        // A fresh evaluator each pass, with no pawn cache, since the weights change between passes
+        ClassicEvaluator evaluator = new ClassicEvaluator(parameters, 1);
+        return pool.invoke(new ErrorTask(evaluator, 0, count)) / count;
+    }
+
+    /**
+     * @return the expected result for white, from 0 to 1, for a score from white's point of view
+     */
+    double expectedResult(int score) {
+        return 1.0 / (1.0 + Math.pow(10.0, -scale * score / 400.0));
+    }
+
+    private final class ErrorTask extends RecursiveTask<Double> {
+        private final ClassicEvaluator evaluator;
+        private final int from;
+        private final int to;
+
+        ErrorTask(ClassicEvaluator evaluator, int from, int to) {
+            this.evaluator = evaluator;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Double compute() {
+            if (to - from > CHUNK) {
+                int middle = (from + to) >>> 1;
+                ErrorTask left = new ErrorTask(evaluator, from, middle);
+                left.fork();
+                double right = new ErrorTask(evaluator, middle, to).compute();
+                return right + left.join();
+            }
+            ChessBoard board = new ChessBoard();
+            double sum = 0;
+            for (int i = from; i < to; i++) {
+                PositionCodec.decodeInto(positions, i * PositionCodec.ENCODED_LENGTH, board);
+                double difference = results[i] / 2.0 - expectedResult(evaluator.evaluateWhite(board));
+                sum += difference * difference;
+            }
+            return sum;
+        }
+    }
+
+    /**
+     * Writes weights as one comma separated line, readable by readParameters
+     */
+    public static void writeParameters(Path file, int[] parameters) throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < parameters.length; i++) {
+            text.append(i == 0 ? "" : ",").append(parameters[i]);
+        }
+        Files.writeString(file, text.append('\n'), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads weights written by writeParameters, for new ClassicEvaluator(weights)
+     */
+    public static int[] readParameters(Path file) throws IOException {
+        String[] fields = Files.readString(file, StandardCharsets.UTF_8).strip().split(",");
+        int[] parameters = new int[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            parameters[i] = Integer.parseInt(fields[i].strip());
+        }
+        return parameters;
+    }
+}
@@ -0,0 +1,127 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size hash table of search results, shared by every line and thread of a
+ * search and kept between searches.
+ * <p>
+ * Entries are two parallel long arrays, so the table is one allocation no matter
+ * how large. Each entry's key is stored XORed with its data: a reader that sees
+ * half of another thread's write gets a key that doesn't match and treats it as
+ * a miss, so no locking is needed.
+ * <p>
+ * Data layout: move in bits 0-15, score in 16-31, depth in 32-39, bound in 40-41,
+ * a used flag in 42 and the search generation in 43-50.
+ */
+public final class TranspositionTable {
+    /**
+     * Bound types: the score is exact, at least the stored score, or at most it
+     */
+    static final int EXACT = 0;
+    static final int LOWER = 1;
+    static final int UPPER = 2;
+
+    private static final long USED = 1L << 42;
+    private static final int ENTRY_BYTES = 16;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int mask;
+    private int generation;
+
+    /**
+     * @param megabytes roughly how much memory to use; rounded down to a power of two entries
+     */
+    public TranspositionTable(int megabytes) {
+        long wanted = Math.max(1L, (long) megabytes) * 1024 * 1024 / ENTRY_BYTES;
+        int entries = (int) Math.min(Long.highestOneBit(wanted), 1 << 30);
+        keys = new long[entries];
+        data = new long[entries];
+        mask = entries - 1;
+    }
+
+    /**
+     * @return the number of entries the table holds
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Marks the start of a new search, so older entries are replaced first
+     */
+    void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(data, 0L);
+    }
+
+    /**
+     * @return how full the table is with entries from the current search, in
+     * thousandths, estimated from the first thousand entries
+     */
+    public int usagePermille() {
+        int sample = Math.min(1000, data.length);
+        int used = 0;
+        for (int i = 0; i < sample; i++) {
+            if (data[i] != 0 && generation(data[i]) == generation) {
+                used++;
+            }
+        }
+        return used * 1000 / sample;
+    }
+
+    /**
+     * @return the entry's data for a key, or 0 if there is none
+     */
+    long probe(long key) {
+        int index = (int) key & mask;
+        long entry = data[index];
+        return (keys[index] ^ entry) == key && entry != 0 ? entry : 0L;
+    }
+
+    void store(long key, int move, int score, int depth, int bound) {
+        int index = (int) key & mask;
+        long old = data[index];
+        boolean sameKey = (keys[index] ^ old) == key;
+        // Keep deeper results for this search unless they're for another position
+        if (old != 0 && generation(old) == generation && depth(old) > depth + 2 && !sameKey) {
+            return;
+        }
+        if (move == 0 && sameKey) {
+            move = move(old);
+        }
+        long entry = (move & 0xFFFFL)
+                | (score & 0xFFFFL) << 16
+                | (long) (Math.max(0, Math.min(depth, 255))) << 32
+                | (long) bound << 40
+                | USED
+                | (long) generation << 43;
+        data[index] = entry;
+        keys[index] = key ^ entry;
+    }
+
+    static int move(long entry) {
+        return (int) (entry & 0xFFFF);
+    }
+
+    static int score(long entry) {
+        return (short) (entry >>> 16);
+    }
+
+    static int depth(long entry) {
+        return (int) (entry >>> 32 & 0xFF);
+    }
+
+    static int bound(long entry) {
+        return (int) (entry >>> 40 & 3);
+    }
+
+    private static int generation(long entry) {
+        return (int) (entry >>> 43 & 0xFF);
+    }
+}
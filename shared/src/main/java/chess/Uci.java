@@ -0,0 +1,310 @@
+package chess;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Universal Chess Interface front end for the engine, so it can be run from UCI
+ * GUIs, match runners and test suites. Commands are read from standard input and
+ * replies written to standard output.
+ * <p>
+ * Supported: uci, isready, ucinewgame, setoption (Hash, Threads, MultiPV),
+ * position startpos|fen ... [moves ...], go with depth, movetime, nodes, infinite
+ * or wtime/btime/winc/binc/movestogo, stop and quit. Moves use coordinate notation
+ * such as e2e4 and e7e8q. Castling and en passant moves are rejected, since
+ * ChessGame doesn't play them.
+ */
+public class Uci {
+    private static final int DEFAULT_HASH_MEGABYTES = 16;
+
+    private final BufferedReader in;
+    private final PrintStream out;
+    private final Engine engine = new Engine(new ClassicEvaluator(), DEFAULT_HASH_MEGABYTES);
+    private ChessGame game = new ChessGame();
+    private int multiPv = 1;
+    private Thread searchThread;
+    // Made before the search thread starts, so a stop that beats it there still counts
+    private AtomicBoolean searchStop;
+
+    public Uci(Reader in, PrintStream out) {
+        this.in = new BufferedReader(in);
+        this.out = out;
+        engine.addListener(new SearchListener() {
+            @Override
+            public void depthCompleted(int depth, List<PrincipalVariation> lines, SearchStats stats) {
+                reportDepth(depth, lines, stats);
+            }
+        });
+    }
+
+    public static void main(String[] args) throws IOException {
+        new Uci(new InputStreamReader(System.in, StandardCharsets.UTF_8), System.out).run();
+    }
+
+    /**
+     * Handles commands until quit or the end of input
+     */
+    public void run() throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (!handle(line)) {
+                break;
+            }
+        }
+        stopSearch();
+    }
+
+    /**
+     * Handles one command
+     *
+     * @return false if it was quit
+     */
+    boolean handle(String line) {
+        String[] words = line.strip().split("\\s+");
+        switch (words[0]) {
+            case "uci" -> {
+                send("id name BYU Chess");
+                send("id author CS240");
+                send("option name Hash type spin default " + DEFAULT_HASH_MEGABYTES + " min 1 max 4096");
+                send("option name Threads type spin default 1 min 1 max 256");
+                send("option name MultiPV type spin default 1 min 1 max 64");
+                send("uciok");
+            }
+            case "isready" -> send("readyok");
+            case "ucinewgame" -> {
+                stopSearch();
+                engine.clearHash();
+                game = new ChessGame();
+            }
+            case "setoption" -> setOption(words);
+            case "position" -> position(words);
+            case "go" -> go(words);
+            case "stop" -> stopSearch();
+            case "quit" -> {
+                return false;
+            }
+            default -> {
+                // Unknown commands are ignored, as the protocol asks
+            }
+        }
+        return true;
+    }
+
+    private void setOption(String[] words) {
+        int nameAt = indexOf(words, "name");
+        int valueAt = indexOf(words, "value");
+        if (nameAt < 0 || valueAt < 0) {
+            send("info string setoption needs a name and a value");
+            return;
+        }
+        String name = String.join(" ", Arrays.copyOfRange(words, nameAt + 1, valueAt));
+        try {
+            int value = Integer.parseInt(words[valueAt + 1]);
+            stopSearch();
+            switch (name.toLowerCase()) {
+                case "hash" -> engine.setHashSize(value);
+                case "threads" -> engine.setThreads(value);
+                case "multipv" -> multiPv = Math.max(1, value);
+                default -> send("info string Unknown option " + name);
+            }
+        } catch (RuntimeException e) {
+            send("info string Bad value for " + name);
+        }
+    }
+
+    private void position(String[] words) {
+        int movesAt = indexOf(words, "moves");
+        int end = movesAt < 0 ? words.length : movesAt;
+        try {
+            ChessGame position;
+            if (words.length > 1 && words[1].equals("startpos")) {
+                position = new ChessGame();
+            } else if (words.length > 2 && words[1].equals("fen")) {
+                position = Fen.parse(String.join(" ", Arrays.copyOfRange(words, 2, end)));
+            } else {
+                send("info string position needs startpos or fen");
+                return;
+            }
+            for (int i = end + 1; movesAt >= 0 && i < words.length; i++) {
+                position.makeMove(parseMove(words[i]));
+            }
+            game = position;
+        } catch (IllegalArgumentException | InvalidMoveException e) {
+            send("info string Bad position: " + e.getMessage());
+        }
+    }
+
+    private void go(String[] words) {
+        stopSearch();
+        int depth = 0;
+        long moveTime = 0;
+        long nodes = 0;
+        long time = 0;
+        long increment = 0;
+        int movesToGo = 30;
+        boolean white = game.getTeamTurn() == ChessGame.TeamColor.WHITE;
+        try {
+            for (int i = 1; i < words.length - 1; i++) {
+                switch (words[i]) {
+                    case "depth" -> depth = Integer.parseInt(words[++i]);
+                    case "movetime" -> moveTime = Long.parseLong(words[++i]);
+                    case "nodes" -> nodes = Long.parseLong(words[++i]);
+                    case "wtime" -> time = white ? Long.parseLong(words[++i]) : time;
+                    case "btime" -> time = white ? time : Long.parseLong(words[++i]);
+                    case "winc" -> increment = white ? Long.parseLong(words[++i]) : increment;
+                    case "binc" -> increment = white ? increment : Long.parseLong(words[++i]);
+                    case "movestogo" -> movesToGo = Math.max(1, Integer.parseInt(words[++i]));
+                    default -> {
+                    }
+                }
+            }
+        } catch (NumberFormatException e) {
+            send("info string Bad go command");
+            return;
+        }
+        if (moveTime == 0 && time > 0) {
+            // A share of the clock, never more than half of what's left
+            moveTime = Math.max(1, Math.min(time / movesToGo + increment / 2, time / 2));
+        }
+
+        SearchLimits limits = new SearchLimits(depth, moveTime, nodes, multiPv);
+        ChessGame position = Engine.copyOf(game);
+        AtomicBoolean stop = new AtomicBoolean();
+        searchStop = stop;
+        searchThread = new Thread(() -> {
+            SearchResult result = engine.search(position, limits, stop::get);
+            ChessMove best = result.bestMove();
+            ChessMove ponder = result.ponderMove();
+            send("bestmove " + (best == null ? "0000" : formatMove(best))
+                    + (ponder == null ? "" : " ponder " + formatMove(ponder)));
+        }, "uci-search");
+        searchThread.start();
+    }
+
+    /**
+     * Stops a running search, if any, and waits for its bestmove to be sent
+     */
+    void stopSearch() {
+        if (searchThread == null) {
+            return;
+        }
+        searchStop.set(true);
+        waitForSearch();
+    }
+
+    /**
+     * Waits for a running search to finish by itself
+     */
+    void waitForSearch() {
+        if (searchThread == null) {
+            return;
+        }
+        try {
+            searchThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        searchThread = null;
+    }
+
+    private void reportDepth(int depth, List<PrincipalVariation> lines, SearchStats stats) {
+        long millis = stats.nanos() / 1_000_000;
+        for (int i = 0; i < lines.size(); i++) {
+            PrincipalVariation line = lines.get(i);
+            StringBuilder info = new StringBuilder("info depth ").append(depth)
+                    .append(" multipv ").append(i + 1)
+                    .append(" score ").append(formatScore(line.score()))
+                    .append(" nodes ").append(stats.nodes())
+                    .append(" nps ").append((long) stats.nodesPerSecond())
+                    .append(" time ").append(millis)
+                    .append(" hashfull ").append(engine.table().usagePermille())
+                    .append(" pv");
+            for (ChessMove move : line.moves()) {
+                info.append(' ').append(formatMove(move));
+            }
+            send(info.toString());
+        }
+    }
+
+    // Centipawns, or moves to mate (negative when being mated)
+    private static String formatScore(int score) {
+        if (score > Engine.MATE - Searcher.MAX_PLY) {
+            return "mate " + (Engine.MATE - score + 1) / 2;
+        }
+        if (score < -Engine.MATE + Searcher.MAX_PLY) {
+            return "mate " + -(Engine.MATE + score) / 2;
+        }
+        return "cp " + score;
+    }
+
+    /**
+     * @return a move in UCI coordinate notation, such as e2e4 or e7e8q
+     */
+    public static String formatMove(ChessMove move) {
+        StringBuilder text = new StringBuilder(5)
+                .append(square(move.getStartPosition()))
+                .append(square(move.getEndPosition()));
+        if (move.getPromotionPiece() != null) {
+            // Black's FEN letters are the lower case ones UCI wants
+            text.append(Fen.symbol(new ChessPiece(ChessGame.TeamColor.BLACK, move.getPromotionPiece())));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Reads a move in UCI coordinate notation
+     *
+     * @throws IllegalArgumentException if it isn't one
+     */
+    public static ChessMove parseMove(String text) {
+        if (text.length() < 4 || text.length() > 5) {
+            throw new IllegalArgumentException("Not a move: " + text);
+        }
+        ChessPiece.PieceType promotion = null;
+        if (text.length() == 5) {
+            ChessPiece piece = Fen.pieceFor(text.charAt(4));
+            if (piece == null || piece.getPieceType() == ChessPiece.PieceType.PAWN
+                    || piece.getPieceType() == ChessPiece.PieceType.KING) {
+                throw new IllegalArgumentException("Bad promotion in move: " + text);
+            }
+            promotion = piece.getPieceType();
+        }
+        return new ChessMove(position(text, 0), position(text, 2), promotion);
+    }
+
+    private static String square(ChessPosition position) {
+        return "" + (char) ('a' + position.getColumn() - 1) + position.getRow();
+    }
+
+    private static ChessPosition position(String text, int at) {
+        char file = text.charAt(at);
+        char rank = text.charAt(at + 1);
+        if (file < 'a' || file > 'h' || rank < '1' || rank > '8') {
+            throw new IllegalArgumentException("Not a move: " + text);
+        }
+        return new ChessPosition(rank - '0', file - 'a' + 1);
+    }
+
+    private static int indexOf(String[] words, String word) {
+        for (int i = 0; i < words.length; i++) {
+            if (words[i].equals(word)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void send(String line) {
+        synchronized (out) {
+            out.println(line);
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package chess;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * AttackMaps using the Vector API. The Kogge-Stone fill for sliding pieces runs
+ * four directions at once, one per 64-bit lane: north, east, north-east and
+ * north-west with left shifts, then their opposites with right shifts.
+ * <p>
+ * Only load this class after checking the jdk.incubator.vector module is present.
+ */
+final class VectorAttackMaps extends AttackMaps {
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_256;
+
+    // Lanes are {straight, straight, diagonal, diagonal}
+    private static final LongVector SHIFT_1 = LongVector.fromArray(SPECIES, new long[]{8, 1, 9, 7}, 0);
+    private static final LongVector SHIFT_2 = SHIFT_1.mul(2);
+    private static final LongVector SHIFT_4 = SHIFT_1.mul(4);
+    private static final LongVector UP_MASKS = LongVector.fromArray(SPECIES,
+            new long[]{-1L, Bitboards.NOT_FILE_A, Bitboards.NOT_FILE_A, Bitboards.NOT_FILE_H}, 0);
+    private static final LongVector DOWN_MASKS = LongVector.fromArray(SPECIES,
+            new long[]{-1L, Bitboards.NOT_FILE_H, Bitboards.NOT_FILE_H, Bitboards.NOT_FILE_A}, 0);
+    private static final VectorMask<Long> DIAGONAL_LANES = VectorMask.fromArray(SPECIES,
+            new boolean[]{false, false, true, true}, 0);
+
+    /**
+     * @return true if the hardware runs 256-bit long vectors natively
+     */
+    static boolean isEfficient() {
+        return LongVector.SPECIES_PREFERRED.vectorBitSize() >= SPECIES.vectorBitSize();
+    }
+
+    @Override
+    public long attacks(ChessBoard board, ChessGame.TeamColor color, long occupied) {
+        int side = Bitboards.colorIndex(color);
+        long queens = board.pieces(color, ChessPiece.PieceType.QUEEN);
+        long straight = board.pieces(color, ChessPiece.PieceType.ROOK) | queens;
+        long diagonal = board.pieces(color, ChessPiece.PieceType.BISHOP) | queens;
+
+        return Bitboards.pawnAttacksAll(side, board.pieces(color, ChessPiece.PieceType.PAWN))
+                | Bitboards.knightAttacksAll(board.pieces(color, ChessPiece.PieceType.KNIGHT))
+                | Bitboards.kingAttacksAll(board.pieces(color, ChessPiece.PieceType.KING))
+                | slide(straight, diagonal, ~occupied);
+    }
+
+    // Per piece ray look-ups beat filling a handful of single-piece lanes, so mobility stays scalar
+    @Override
+    public int mobility(ChessBoard board, ChessGame.TeamColor color) {
+        return ScalarAttackMaps.INSTANCE.mobility(board, color);
+    }
+
+    @Override
+    public boolean isVectorized() {
+        return true;
+    }
+
+    // All eight sliding directions: four lanes shifting up, then four shifting down
+    private static long slide(long straight, long diagonal, long empty) {
+        LongVector sliders = LongVector.broadcast(SPECIES, straight).blend(diagonal, DIAGONAL_LANES);
+        LongVector open = LongVector.broadcast(SPECIES, empty);
+        return fillUp(sliders, open.and(UP_MASKS)).or(fillDown(sliders, open.and(DOWN_MASKS)))
+                .reduceLanes(VectorOperators.OR);
+    }
+
+    // The shift operators have to be constants for the JIT to turn them into vector instructions
+    private static LongVector fillUp(LongVector sliders, LongVector open) {
+        sliders = sliders.or(open.and(sliders.lanewise(VectorOperators.LSHL, SHIFT_1)));
+        open = open.and(open.lanewise(VectorOperators.LSHL, SHIFT_1));
+        sliders = sliders.or(open.and(sliders.lanewise(VectorOperators.LSHL, SHIFT_2)));
+        open = open.and(open.lanewise(VectorOperators.LSHL, SHIFT_2));
+        sliders = sliders.or(open.and(sliders.lanewise(VectorOperators.LSHL, SHIFT_4)));
+        return sliders.lanewise(VectorOperators.LSHL, SHIFT_1).and(UP_MASKS);
+    }
+
+    private static LongVector fillDown(LongVector sliders, LongVector open) {
+        sliders = sliders.or(open.and(sliders.lanewise(VectorOperators.LSHR, SHIFT_1)));
+        open = open.and(open.lanewise(VectorOperators.LSHR, SHIFT_1));
+        sliders = sliders.or(open.and(sliders.lanewise(VectorOperators.LSHR, SHIFT_2)));
+        open = open.and(open.lanewise(VectorOperators.LSHR, SHIFT_2));
+        sliders = sliders.or(open.and(sliders.lanewise(VectorOperators.LSHR, SHIFT_4)));
+        return sliders.lanewise(VectorOperators.LSHR, SHIFT_1).and(DOWN_MASKS);
+    }
+}
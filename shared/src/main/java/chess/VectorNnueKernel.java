@@ -0,0 +1,70 @@
+package chess;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * NnueKernel using the Vector API. Accumulator updates are plain int16 lane adds.
+ * The dot product clips and multiplies a whole vector of int16 lanes at a time
+ * (the products fit in 16 bits since both sides are at most 127), then widens
+ * them into int32 lanes to add up.
+ * <p>
+ * Only load this class after checking the jdk.incubator.vector module is present.
+ */
+final class VectorNnueKernel extends NnueKernel {
+    private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+
+    /**
+     * @return true if the hardware runs 256-bit vectors natively; narrower ones
+     * (or the Vector API's software fallback) lose to the scalar loops
+     */
+    static boolean isEfficient() {
+        return SHORTS.vectorBitSize() >= 256;
+    }
+
+    @Override
+    int clippedDot(short[] sums, short[] weights, int offset) {
+        IntVector total = IntVector.zero(INTS);
+        int i = 0;
+        for (int bound = SHORTS.loopBound(sums.length); i < bound; i += SHORTS.length()) {
+            ShortVector products = ShortVector.fromArray(SHORTS, sums, i)
+                    .max((short) 0)
+                    .min((short) NnueNetwork.QA)
+                    .mul(ShortVector.fromArray(SHORTS, weights, offset + i));
+            total = total.add(products.convertShape(VectorOperators.S2I, INTS, 0).reinterpretAsInts())
+                    .add(products.convertShape(VectorOperators.S2I, INTS, 1).reinterpretAsInts());
+        }
+        int result = total.reduceLanes(VectorOperators.ADD);
+        for (; i < sums.length; i++) {
+            result += Math.min(Math.max(sums[i], 0), NnueNetwork.QA) * weights[offset + i];
+        }
+        return result;
+    }
+
+    @Override
+    void add(short[] sums, short[] weights, int offset) {
+        int i = 0;
+        for (int bound = SHORTS.loopBound(sums.length); i < bound; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, sums, i).add(ShortVector.fromArray(SHORTS, weights, offset + i))
+                    .intoArray(sums, i);
+        }
+        for (; i < sums.length; i++) {
+            sums[i] += weights[offset + i];
+        }
+    }
+
+    @Override
+    void subtract(short[] sums, short[] weights, int offset) {
+        int i = 0;
+        for (int bound = SHORTS.loopBound(sums.length); i < bound; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, sums, i).sub(ShortVector.fromArray(SHORTS, weights, offset + i))
+                    .intoArray(sums, i);
+        }
+        for (; i < sums.length; i++) {
+            sums[i] -= weights[offset + i];
+        }
+    }
+}
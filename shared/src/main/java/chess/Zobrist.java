@@ -0,0 +1,29 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random 64-bit keys for hashing positions. A position's key is the XOR of the
+ * key for every piece on its square, plus BLACK_TO_MOVE when it is black's turn,
+ * so it can be updated one piece at a time as moves are made.
+ * <p>
+ * The seed is fixed, so keys are the same in every run and can be stored.
+ */
+final class Zobrist {
+    // Indexed by PositionCodec piece code and square
+    static final long[][] PIECES = new long[16][64];
+    static final long BLACK_TO_MOVE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED_C240L);
+        for (int code = 0; code < 16; code++) {
+            for (int square = 0; square < 64; square++) {
+                PIECES[code][square] = code == 0 ? 0L : random.nextLong();
+            }
+        }
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+}
@@ -0,0 +1,164 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AttackMapsTest {
+    private static final String[] POSITIONS = {
+        Fen.START_POSITION,
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - - 0 1",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+        "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w - - 0 1",
+        "r1bq1rk1/pp2nppp/2n1p3/3pP3/1b1P4/2NB1N2/PP3PPP/R1BQK2R w KQ - 0 1",
+    };
+
+    @Test
+    public void attacksMatchSquareScanPositive() {
+        // Every square in the map should agree with the one-square attack check
+        for (String fen : POSITIONS) {
+            ChessGame game = Fen.parse(fen);
+            for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+                long attacks = AttackMaps.scalar().attacks(game.getBoard(), color);
+                for (int square = 0; square < 64; square++) {
+                    assertEquals(game.isSquareAttacked(square, color), (attacks >>> square & 1) == 1,
+                            "Square " + square + " disagrees in " + fen);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void mobilityMatchesPieceMovesPositive() {
+        // Mobility is the number of moves for everything except pawns
+        for (String fen : POSITIONS) {
+            ChessBoard board = Fen.parseBoard(fen.split(" ")[0]);
+            for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+                int expected = 0;
+                for (int square = 0; square < 64; square++) {
+                    ChessPosition position = PositionCodec.position(square);
+                    ChessPiece piece = board.getPiece(position);
+                    if (piece != null && piece.getTeamColor() == color
+                            && piece.getPieceType() != ChessPiece.PieceType.PAWN) {
+                        expected += piece.pieceMoves(board, position).size();
+                    }
+                }
+                assertEquals(expected, AttackMaps.scalar().mobility(board, color), "Mobility wrong in " + fen);
+            }
+        }
+    }
+
+    @Test
+    public void vectorMatchesScalarPositive() {
+        // Whichever implementation this JVM picked has to agree with the scalar one
+        AttackMaps best = AttackMaps.get();
+        for (String fen : POSITIONS) {
+            ChessBoard board = Fen.parseBoard(fen.split(" ")[0]);
+            for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+                assertEquals(AttackMaps.scalar().attacks(board, color), best.attacks(board, color));
+                assertEquals(AttackMaps.scalar().mobility(board, color), best.mobility(board, color));
+                long withoutKing = board.occupied() & ~board.pieces(color, ChessPiece.PieceType.KING);
+                assertEquals(AttackMaps.scalar().attacks(board, color, withoutKing), best.attacks(board, color, withoutKing));
+            }
+        }
+    }
+
+    @Test
+    public void countsMatchPieceMovesPositive() {
+        // Put an enemy piece on each square in turn and see which pieces could take it
+        for (String fen : POSITIONS) {
+            ChessBoard board = Fen.parseBoard(fen.split(" ")[0]);
+            for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+                AttackMaps.Counts counts = AttackMaps.scalar().counts(board, color);
+                for (int target = 0; target < 64; target++) {
+                    ChessBoard probe = board.copyBoard();
+                    probe.setPiece(target, new ChessPiece(ChessGame.opponent(color), ChessPiece.PieceType.QUEEN));
+                    ChessPosition targetPosition = PositionCodec.position(target);
+                    int count = 0;
+                    ChessPiece.PieceType cheapest = null;
+                    for (int square = 0; square < 64; square++) {
+                        ChessPiece piece = probe.getPiece(square);
+                        if (piece == null || piece.getTeamColor() != color) {
+                            continue;
+                        }
+                        boolean hits = piece.pieceMoves(probe, PositionCodec.position(square)).stream()
+                                .anyMatch(move -> move.getEndPosition().equals(targetPosition));
+                        if (hits) {
+                            count++;
+                            if (cheapest == null || value(piece.getPieceType()) < value(cheapest)) {
+                                cheapest = piece.getPieceType();
+                            }
+                        }
+                    }
+                    assertEquals(count, counts.count(targetPosition), "Square " + target + " in " + fen);
+                    assertEquals(value(cheapest), value(counts.leastValuableAttacker(targetPosition)),
+                            "Square " + target + " in " + fen);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void countsMatchAttacksPositive() {
+        for (String fen : POSITIONS) {
+            ChessGame game = Fen.parse(fen);
+            for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+                assertEquals(AttackMaps.scalar().attacks(game.getBoard(), color), game.attackMap(color).attacked());
+            }
+        }
+    }
+
+    @Test
+    public void countWithoutMapPositive() {
+        // Counting straight from the pieces agrees with the map, for every king zone
+        for (String fen : POSITIONS) {
+            ChessBoard board = Fen.parseBoard(fen.split(" ")[0]);
+            for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+                AttackMaps.Counts counts = AttackMaps.scalar().counts(board, color);
+                for (int square = 0; square < 64; square++) {
+                    long zone = 1L << square | Bitboards.kingAttacks(square);
+                    assertEquals(counts.count(zone), AttackMaps.scalar().attackCount(board, color, zone), "Square " + square + " in " + fen);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void pilesUpPositive() {
+        // Both knights and the queen hit d5; the queen and king hit d2, and the queen is cheaper
+        ChessGame game = Fen.parse("4k3/8/8/8/8/2N1N3/8/R2QK3 w - - 0 1");
+        AttackMaps.Counts counts = game.attackMap(ChessGame.TeamColor.WHITE);
+        ChessPosition d5 = new ChessPosition(5, 4);
+        assertEquals(3, counts.count(d5));
+        assertEquals(ChessPiece.PieceType.KNIGHT, counts.leastValuableAttacker(d5));
+        ChessPosition d2 = new ChessPosition(2, 4);
+        assertEquals(2, counts.count(d2));
+        assertEquals(ChessPiece.PieceType.QUEEN, counts.leastValuableAttacker(d2));
+    }
+
+    @Test
+    public void emptySquareNegative() {
+        // Nothing reaches the far corner, and a side with no pieces attacks nothing
+        ChessGame game = Fen.parse("4k3/8/8/8/8/8/8/4K3 w - - 0 1");
+        AttackMaps.Counts counts = game.attackMap(ChessGame.TeamColor.WHITE);
+        assertEquals(0, counts.count(new ChessPosition(8, 1)));
+        assertNull(counts.leastValuableAttacker(new ChessPosition(8, 1)));
+        assertFalse(counts.isAttacked(new ChessPosition(8, 1)));
+        assertEquals(0L, AttackMaps.scalar().counts(new ChessBoard(), ChessGame.TeamColor.BLACK).attacked());
+    }
+
+    // Orders types the way Counts does, with knights below bishops; -1 for none
+    private static int value(ChessPiece.PieceType type) {
+        if (type == null) {
+            return -1;
+        }
+        return switch (type) {
+            case PAWN -> 0;
+            case KNIGHT -> 1;
+            case BISHOP -> 2;
+            case ROOK -> 3;
+            case QUEEN -> 4;
+            case KING -> 5;
+        };
+    }
+}
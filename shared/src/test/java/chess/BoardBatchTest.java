@@ -0,0 +1,84 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoardBatchTest {
+
+    private static List<ChessMove> legalMoves(ChessGame game) {
+        List<ChessMove> legal = new ArrayList<>();
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = game.getBoard().getPiece(PositionCodec.position(square));
+            if (piece != null && piece.getTeamColor() == game.getTeamTurn()) {
+                legal.addAll(game.validMoves(PositionCodec.position(square)));
+            }
+        }
+        return legal;
+    }
+
+    @Test
+    public void matchesChessGamePositive() throws Exception {
+        // Random games, checked position by position against ChessGame
+        Random random = new Random(37);
+        BoardBatch batch = new BoardBatch(4000);
+        List<ChessGame> games = new ArrayList<>();
+        while (batch.size() < batch.capacity()) {
+            ChessGame game = new ChessGame();
+            for (int ply = 0; ply < 150 && batch.size() < batch.capacity(); ply++) {
+                ChessGame copy = Fen.parse(Fen.format(game));
+                games.add(copy);
+                // Alternate between the two ways of adding a position
+                if (batch.size() % 2 == 0) {
+                    batch.add(copy);
+                } else {
+                    batch.add(PositionCodec.encode(copy), 0);
+                }
+                List<ChessMove> legal = legalMoves(game);
+                if (legal.isEmpty()) {
+                    break;
+                }
+                game.makeMove(legal.get(random.nextInt(legal.size())));
+            }
+        }
+
+        batch.analyze();
+        for (int i = 0; i < batch.size(); i++) {
+            ChessGame game = games.get(i);
+            ChessGame.TeamColor turn = game.getTeamTurn();
+            String fen = Fen.format(game);
+            assertEquals(legalMoves(game).size(), batch.legalMoveCount(i), fen);
+            assertEquals(game.isInCheck(turn), batch.isInCheck(i), fen);
+            byte expected = game.isInCheckmate(turn) ? BoardBatch.CHECKMATE
+                    : game.isInStalemate(turn) ? BoardBatch.STALEMATE : BoardBatch.ONGOING;
+            assertEquals(expected, batch.status(i), fen);
+        }
+    }
+
+    @Test
+    public void gameOverPositive() {
+        BoardBatch batch = new BoardBatch(3);
+        batch.add(Fen.parse("R5k1/5ppp/8/8/8/8/8/6K1 b - - 0 1"));
+        batch.add(Fen.parse("k7/8/1Q6/8/8/8/8/7K b - - 0 1"));
+        batch.add(new ChessGame());
+        batch.analyze();
+
+        assertEquals(BoardBatch.CHECKMATE, batch.status(0));
+        assertEquals(BoardBatch.STALEMATE, batch.status(1));
+        assertEquals(BoardBatch.ONGOING, batch.status(2));
+        assertEquals(20, batch.legalMoveCount(2));
+    }
+
+    @Test
+    public void fullBatchNegative() {
+        BoardBatch batch = new BoardBatch(1);
+        batch.add(new ChessGame());
+        assertThrows(IllegalStateException.class, () -> batch.add(new ChessGame()));
+        batch.clear();
+        assertEquals(0, batch.size());
+    }
+}
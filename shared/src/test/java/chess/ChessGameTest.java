@@ -0,0 +1,257 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChessGameTest {
+
+    private static ChessMove move(int fromRow, int fromCol, int toRow, int toCol) {
+        return new ChessMove(new ChessPosition(fromRow, fromCol), new ChessPosition(toRow, toCol), null);
+    }
+
+    @Test
+    public void applyAllPositive() throws Exception {
+        // Scholar's mate, played both ways
+        List<ChessMove> moves = List.of(move(2, 5, 4, 5), move(7, 5, 5, 5), move(1, 6, 4, 3),
+                move(8, 2, 6, 3), move(1, 4, 5, 8), move(8, 7, 6, 6), move(5, 8, 7, 6));
+        ChessGame batch = new ChessGame();
+        assertEquals(-1, batch.applyAll(moves));
+
+        ChessGame oneByOne = new ChessGame();
+        for (ChessMove move : moves) {
+            oneByOne.makeMove(move);
+        }
+        assertEquals(oneByOne, batch);
+        assertTrue(batch.isInCheckmate(ChessGame.TeamColor.BLACK));
+        assertEquals(oneByOne.snapshot(), batch.snapshot());
+    }
+
+    @Test
+    public void applyAllEncodedPositive() {
+        // Packed moves round trip and play the same as the objects
+        ChessMove promotion = new ChessMove(new ChessPosition(7, 2), new ChessPosition(8, 2), ChessPiece.PieceType.KNIGHT);
+        assertEquals(promotion, ChessMove.decode(promotion.encode()));
+
+        ChessGame game = Fen.parse("4k3/1P6/8/8/8/8/8/4K3 w - - 0 1");
+        assertEquals(-1, game.applyAll(new int[]{promotion.encode(), move(8, 5, 7, 5).encode()}));
+        assertEquals(new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT),
+                game.getBoard().getPiece(new ChessPosition(8, 2)));
+    }
+
+    @Test
+    public void applyAllNegative() {
+        // Bb4+ checks the white king, so pushing the d pawn again is illegal
+        List<ChessMove> moves = List.of(move(2, 4, 3, 4), move(7, 5, 6, 5), move(2, 6, 3, 6),
+                move(8, 6, 4, 2), move(3, 4, 4, 4));
+        ChessGame game = new ChessGame();
+        assertEquals(4, game.applyAll(moves));
+        ChessGame expected = Fen.parse(Fen.format(game));
+        assertEquals(0, game.applyAll(List.of(move(3, 4, 4, 4))));
+        assertEquals(expected, game, "A failed move must not change the board");
+
+        // Wrong side to move, and a pawn on the last rank without a promotion
+        assertEquals(1, new ChessGame().applyAll(List.of(move(2, 5, 4, 5), move(2, 4, 4, 4))));
+        ChessGame promotion = Fen.parse("4k3/1P6/8/8/8/8/8/4K3 w - - 0 1");
+        assertEquals(0, promotion.applyAll(List.of(move(7, 2, 8, 2))));
+    }
+
+    @Test
+    public void makeMoveMatchesValidMovesPositive() {
+        // Random games: every move makeMove accepts must be exactly the ones validMoves lists
+        Random random = new Random(240);
+        for (int gameNumber = 0; gameNumber < 5; gameNumber++) {
+            ChessGame game = new ChessGame();
+            for (int ply = 0; ply < 60; ply++) {
+                String fen = Fen.format(game);
+                List<ChessMove> legal = new ArrayList<>();
+                for (int from = 0; from < 64; from++) {
+                    ChessPiece piece = game.getBoard().getPiece(PositionCodec.position(from));
+                    if (piece != null && piece.getTeamColor() == game.getTeamTurn()) {
+                        legal.addAll(game.validMoves(PositionCodec.position(from)));
+                    }
+                }
+                for (int from = 0; from < 64; from++) {
+                    for (int to = 0; to < 64; to++) {
+                        for (int promotion = 0; promotion <= 6; promotion += (to >> 3) % 7 == 0 ? 1 : 7) {
+                            ChessMove candidate = ChessMove.decode(from | to << 6 | promotion << 12);
+                            boolean accepted = game.applyAll(List.of(candidate)) == -1;
+                            assertEquals(legal.contains(candidate), accepted, "Disagreement on " + candidate);
+                            if (accepted) {
+                                game = Fen.parse(fen);
+                            }
+                        }
+                    }
+                }
+                if (legal.isEmpty()) {
+                    break;
+                }
+                game.applyAll(List.of(legal.get(random.nextInt(legal.size()))));
+            }
+        }
+    }
+
+    @Test
+    public void givesCheckPositive() {
+        // Direct check, discovered check, and a rook backing away from the king along its file
+        ChessGame game = Fen.parse("4k3/8/8/8/4N3/8/8/R3R1K1 w - - 0 1");
+        assertTrue(game.givesCheck(move(4, 5, 6, 4)), "Knight uncovers the e1 rook");
+        assertTrue(game.givesCheck(move(1, 1, 8, 1)), "Rook checks along the back rank");
+        assertFalse(game.givesCheck(move(1, 1, 2, 1)));
+
+        ChessGame backing = Fen.parse("4k3/8/8/8/4R3/8/8/6K1 w - - 0 1");
+        assertTrue(backing.givesCheck(move(4, 5, 2, 5)));
+        assertFalse(backing.givesCheck(move(4, 5, 4, 1)));
+
+        // Promotion checks with the new piece
+        ChessGame promotion = Fen.parse("1k6/P7/8/8/8/8/8/4K3 w - - 0 1");
+        assertTrue(promotion.givesCheck(new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 1),
+                ChessPiece.PieceType.QUEEN)));
+        assertFalse(promotion.givesCheck(new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 1),
+                ChessPiece.PieceType.BISHOP)));
+    }
+
+    @Test
+    public void givesCheckMatchesPlayingPositive() throws Exception {
+        // Random games: givesCheck must agree with playing the move and asking isInCheck
+        Random random = new Random(7);
+        for (int gameNumber = 0; gameNumber < 30; gameNumber++) {
+            ChessGame game = new ChessGame();
+            for (int ply = 0; ply < 100; ply++) {
+                List<ChessMove> legal = new ArrayList<>();
+                for (int from = 0; from < 64; from++) {
+                    ChessPiece piece = game.getBoard().getPiece(PositionCodec.position(from));
+                    if (piece != null && piece.getTeamColor() == game.getTeamTurn()) {
+                        legal.addAll(game.validMoves(PositionCodec.position(from)));
+                    }
+                }
+                if (legal.isEmpty()) {
+                    break;
+                }
+                for (ChessMove candidate : legal) {
+                    ChessGame copy = Fen.parse(Fen.format(game));
+                    copy.makeMove(candidate);
+                    assertEquals(copy.isInCheck(copy.getTeamTurn()), game.givesCheck(candidate),
+                            "Disagreement on " + candidate + " in " + Fen.format(game));
+                }
+                game.makeMove(legal.get(random.nextInt(legal.size())));
+            }
+        }
+    }
+
+    @Test
+    public void legalMovesMatchValidMovesPositive() throws Exception {
+        // Random games: the lazy iterator gives exactly validMoves' moves, for both sides
+        Random random = new Random(43);
+        for (int gameNumber = 0; gameNumber < 15; gameNumber++) {
+            ChessGame game = new ChessGame();
+            for (int ply = 0; ply < 100; ply++) {
+                for (ChessGame.TeamColor side : ChessGame.TeamColor.values()) {
+                    Set<ChessMove> expected = new HashSet<>();
+                    for (int from = 0; from < 64; from++) {
+                        ChessPiece piece = game.getBoard().getPiece(PositionCodec.position(from));
+                        if (piece != null && piece.getTeamColor() == side) {
+                            expected.addAll(game.validMoves(PositionCodec.position(from)));
+                        }
+                    }
+                    Set<ChessMove> actual = new HashSet<>();
+                    game.legalMoves(side).forEachRemaining(actual::add);
+                    assertEquals(expected, actual, Fen.format(game));
+                    assertEquals(!expected.isEmpty(), game.hasAnyLegalMove(side));
+                }
+                List<ChessMove> legal = new ArrayList<>();
+                game.legalMoves(game.getTeamTurn()).forEachRemaining(legal::add);
+                if (legal.isEmpty()) {
+                    break;
+                }
+                game.makeMove(legal.get(random.nextInt(legal.size())));
+            }
+        }
+    }
+
+    @Test
+    public void legalMovesMatchPlayingPositive() throws Exception {
+        // Check and pin masks agree with playing each pseudo-legal move on a copy,
+        // and asking never touches the game's board
+        Random random = new Random(44);
+        int[] buffer = new int[MoveGenerator.MAX_MOVES];
+        for (int gameNumber = 0; gameNumber < 15; gameNumber++) {
+            ChessGame game = new ChessGame();
+            for (int ply = 0; ply < 100; ply++) {
+                for (ChessGame.TeamColor side : ChessGame.TeamColor.values()) {
+                    ChessGame copy = Engine.copyOf(game);
+                    Set<Integer> expected = new HashSet<>();
+                    int count = MoveGenerator.generateAll(copy.getBoard(), side, buffer, 0);
+                    for (int i = 0; i < count; i++) {
+                        int captured = copy.play(buffer[i]);
+                        if (!copy.isKingAttacked(side)) {
+                            expected.add(buffer[i]);
+                        }
+                        copy.unplay(buffer[i], captured);
+                    }
+
+                    int modCount = game.getBoard().modCount();
+                    Set<Integer> actual = new HashSet<>();
+                    MoveIterator iterator = game.legalMoves(side);
+                    for (int move = iterator.nextMove(); move >= 0; move = iterator.nextMove()) {
+                        actual.add(move);
+                    }
+                    game.hasAnyLegalMove(side);
+                    game.isInCheckmate(side);
+                    assertEquals(expected, actual, Fen.format(game));
+                    assertEquals(modCount, game.getBoard().modCount(), "Queries must not change the board");
+                }
+                List<ChessMove> legal = new ArrayList<>();
+                game.legalMoves(game.getTeamTurn()).forEachRemaining(legal::add);
+                if (legal.isEmpty()) {
+                    break;
+                }
+                game.makeMove(legal.get(random.nextInt(legal.size())));
+            }
+        }
+    }
+
+    @Test
+    public void pinsAndDoubleCheckPositive() {
+        // The pinned knight can't move at all, and in double check only the king can
+        ChessGame pinned = Fen.parse("4k3/8/8/8/4r3/8/4N3/4K3 w - - 0 1");
+        ChessGame doubleCheck = Fen.parse("4k3/8/8/8/4r3/8/6n1/3QK3 w - - 0 1");
+        assertTrue(pinned.validMoves(new ChessPosition(2, 5)).isEmpty());
+        assertTrue(doubleCheck.validMoves(new ChessPosition(1, 4)).isEmpty());
+        assertFalse(doubleCheck.validMoves(new ChessPosition(1, 5)).isEmpty());
+    }
+
+    @Test
+    public void legalMovesStagedPositive() {
+        // Capture, then quiet moves, then the promotions
+        ChessGame game = Fen.parse("4k3/1P6/8/8/8/8/2p5/2R1K3 w - - 0 1");
+        List<ChessMove> moves = new ArrayList<>();
+        game.legalMoves(ChessGame.TeamColor.WHITE).forEachRemaining(moves::add);
+
+        assertEquals(new ChessPosition(2, 3), moves.get(0).getEndPosition(), "Rxc2 first");
+        assertNull(moves.get(2).getPromotionPiece());
+        assertEquals(ChessPiece.PieceType.QUEEN, moves.get(moves.size() - 4).getPromotionPiece());
+        for (ChessMove move : moves.subList(moves.size() - 4, moves.size())) {
+            assertNotNull(move.getPromotionPiece());
+        }
+    }
+
+    @Test
+    public void hasAnyLegalMoveNegative() {
+        // Mated and stalemated sides have none
+        ChessGame mate = Fen.parse("R5k1/5ppp/8/8/8/8/8/6K1 b - - 0 1");
+        ChessGame stalemate = Fen.parse("k7/8/1Q6/8/8/8/8/7K b - - 0 1");
+        assertFalse(mate.hasAnyLegalMove(ChessGame.TeamColor.BLACK));
+        assertFalse(stalemate.hasAnyLegalMove(ChessGame.TeamColor.BLACK));
+        assertThrows(NoSuchElementException.class, () -> mate.legalMoves(ChessGame.TeamColor.BLACK).next());
+        assertTrue(mate.isInCheckmate(ChessGame.TeamColor.BLACK));
+        assertTrue(stalemate.isInStalemate(ChessGame.TeamColor.BLACK));
+    }
+}
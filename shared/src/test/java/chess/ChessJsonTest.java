@@ -0,0 +1,67 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import model.GameData;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChessJsonTest {
+    private static final String MIDDLEGAME = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R b - - 0 1";
+
+    @Test
+    public void roundTripPositive() {
+        Gson gson = ChessJson.gson();
+        ChessGame game = Fen.parse(MIDDLEGAME);
+        String json = gson.toJson(game);
+        assertEquals('"' + MIDDLEGAME + '"', json);
+        ChessGame back = gson.fromJson(json, ChessGame.class);
+        assertEquals(game.getBoard(), back.getBoard());
+        assertEquals(game.getTeamTurn(), back.getTeamTurn());
+
+        ChessMove promotion = new ChessMove(new ChessPosition(7, 5), new ChessPosition(8, 5), ChessPiece.PieceType.QUEEN);
+        assertEquals("\"e7e8q\"", gson.toJson(promotion));
+        assertEquals(promotion, gson.fromJson(gson.toJson(promotion), ChessMove.class));
+
+        ChessPiece knight = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
+        assertEquals("\"n\"", gson.toJson(knight));
+        assertEquals(knight, gson.fromJson("\"n\"", ChessPiece.class));
+    }
+
+    @Test
+    public void nestedInRecordPositive() {
+        // GameData is what the server actually stores and sends
+        Gson gson = ChessJson.gson();
+        GameData data = new GameData(7, "alice", null, "Friday game", new ChessGame());
+        String json = gson.toJson(data);
+        assertTrue(json.contains("\"game\":\"" + Fen.START_POSITION + "\""), json);
+        assertEquals(data.game().getBoard(), gson.fromJson(json, GameData.class).game().getBoard());
+        assertNull(gson.fromJson("{\"gameID\":1,\"game\":null}", GameData.class).game());
+    }
+
+    @Test
+    public void readsReflectiveJsonPositive() {
+        // What plain Gson wrote before the adapters existed has to keep loading
+        Gson plain = new Gson();
+        ChessGame game = Fen.parse(MIDDLEGAME);
+        String legacy = plain.toJson(game);
+        ChessGame back = ChessJson.gson().fromJson(legacy, ChessGame.class);
+        assertEquals(game.getBoard(), back.getBoard());
+        assertEquals(ChessGame.TeamColor.BLACK, back.getTeamTurn());
+        assertTrue(ChessJson.gson().toJson(game).length() * 10 < legacy.length());
+
+        ChessMove move = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        assertEquals(move, ChessJson.gson().fromJson(plain.toJson(move), ChessMove.class));
+    }
+
+    @Test
+    public void badJsonNegative() {
+        Gson gson = ChessJson.gson();
+        assertThrows(JsonParseException.class, () -> gson.fromJson("\"not a fen\"", ChessGame.class));
+        assertThrows(JsonParseException.class, () -> gson.fromJson("\"x\"", ChessPiece.class));
+        assertThrows(JsonParseException.class, () -> gson.fromJson("\"e9e10\"", ChessMove.class));
+        assertThrows(JsonParseException.class, () -> gson.fromJson("{\"teamTurn\":\"PURPLE\"}", ChessGame.class));
+        assertThrows(JsonParseException.class, () -> gson.fromJson("{\"pieceColor\":\"WHITE\"}", ChessPiece.class));
+    }
+}
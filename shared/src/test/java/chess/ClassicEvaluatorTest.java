@@ -0,0 +1,78 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClassicEvaluatorTest {
+
+    @Test
+    public void symmetricPositive() {
+        // The start position is even, and mirrored positions score the same for the side to move
+        ClassicEvaluator evaluator = new ClassicEvaluator();
+        assertEquals(0, evaluator.evaluate(new ChessGame()));
+
+        ChessGame white = Fen.parse("4k3/pp6/8/3P4/8/8/5PPP/6K1 w - - 0 1");
+        ChessGame black = Fen.parse("6k1/5ppp/8/8/3p4/8/PP6/4K3 b - - 0 1");
+        assertEquals(evaluator.evaluate(white), evaluator.evaluate(black));
+    }
+
+    @Test
+    public void pawnStructurePositive() {
+        // A passed pawn beats a blocked one, and doubled isolated pawns are worse than healthy ones
+        ClassicEvaluator evaluator = new ClassicEvaluator();
+        int passed = evaluator.evaluateWhite(Fen.parseBoard("4k3/8/8/3P4/8/8/8/4K3"));
+        int blocked = evaluator.evaluateWhite(Fen.parseBoard("4k3/3p4/8/3P4/8/8/8/4K3"));
+        assertTrue(passed > blocked + 100);
+
+        int healthy = evaluator.evaluateWhite(Fen.parseBoard("4k3/8/8/8/8/8/2PP4/4K3"));
+        int doubled = evaluator.evaluateWhite(Fen.parseBoard("4k3/8/8/8/8/2P5/2P5/4K3"));
+        assertTrue(healthy > doubled);
+    }
+
+    @Test
+    public void pawnKeyPositive() throws Exception {
+        // Piece moves leave the pawn key alone, pawn moves change it, and it matches a fresh board
+        ChessGame game = new ChessGame();
+        long start = game.getBoard().pawnKey();
+        game.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+        assertEquals(start, game.getBoard().pawnKey());
+        game.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+        assertNotEquals(start, game.getBoard().pawnKey());
+        assertEquals(Fen.parse(Fen.format(game)).getBoard().pawnKey(), game.getBoard().pawnKey());
+        assertEquals(Fen.parse(Fen.format(game)).positionKey(), game.positionKey());
+    }
+
+    @Test
+    public void pawnCacheHitsPositive() {
+        // A search keeps coming back to the same few pawn structures
+        ClassicEvaluator evaluator = new ClassicEvaluator();
+        Engine engine = new Engine(evaluator, 4);
+        engine.search(Fen.parse("r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w - - 0 1"),
+                SearchLimits.depth(5));
+        assertTrue(evaluator.pawnHitRate() > 0.8, "Hit rate was " + evaluator.pawnHitRate());
+    }
+
+    @Test
+    public void kingSafetyPositive() {
+        // A queen and knight piling onto black's king are worth more than their squares alone
+        int[] parameters = ClassicEvaluator.defaultParameters();
+        Arrays.fill(parameters, ClassicEvaluator.KING_ATTACK, ClassicEvaluator.PARAMETER_COUNT, 0);
+        ClassicEvaluator without = new ClassicEvaluator(parameters);
+        ClassicEvaluator evaluator = new ClassicEvaluator();
+        ChessBoard attacked = Fen.parseBoard("6k1/5ppp/8/6NQ/8/8/5PPP/6K1");
+        assertTrue(evaluator.evaluateWhite(attacked) > without.evaluateWhite(attacked));
+    }
+
+    @Test
+    public void kingSafetyNegative() {
+        // Nothing near either king, so the term adds nothing
+        int[] parameters = ClassicEvaluator.defaultParameters();
+        Arrays.fill(parameters, ClassicEvaluator.KING_ATTACK, ClassicEvaluator.PARAMETER_COUNT, 0);
+        ClassicEvaluator without = new ClassicEvaluator(parameters);
+        ChessBoard quiet = Fen.parseBoard("6k1/5ppp/8/8/8/2N5/Q4PPP/6K1");
+        assertEquals(without.evaluateWhite(quiet), new ClassicEvaluator().evaluateWhite(quiet));
+    }
+}
@@ -0,0 +1,99 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentChessGameTest {
+
+    @Test
+    public void statusPositive() throws Exception {
+        // Fool's mate
+        ConcurrentChessGame game = new ConcurrentChessGame();
+        assertEquals(ConcurrentChessGame.Status.ONGOING, game.status());
+        assertEquals(-1, game.applyAll(List.of(
+                new ChessMove(new ChessPosition(2, 6), new ChessPosition(3, 6), null),
+                new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null),
+                new ChessMove(new ChessPosition(2, 7), new ChessPosition(4, 7), null))));
+        game.makeMove(new ChessMove(new ChessPosition(8, 4), new ChessPosition(4, 8), null));
+
+        assertEquals(ConcurrentChessGame.Status.CHECKMATE, game.status());
+        assertEquals(4, game.view().moveCount());
+        assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+
+        game.reset(Fen.parse("k7/8/1Q6/8/8/8/8/7K b - - 0 1"));
+        assertEquals(ConcurrentChessGame.Status.STALEMATE, game.status());
+        assertEquals(0, game.view().moveCount());
+    }
+
+    @Test
+    public void readersDuringMovesPositive() throws Exception {
+        // A mover plays random games while readers check every view they get is a real position
+        ConcurrentChessGame game = new ConcurrentChessGame();
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    while (!done.get()) {
+                        ConcurrentChessGame.View view = game.view();
+                        ChessGame copy = view.position().toGame();
+                        // Even moves leave white to move, and both kings are always there
+                        assertEquals(view.moveCount() % 2 == 0, copy.getTeamTurn() == ChessGame.TeamColor.WHITE);
+                        assertNotEquals(0, copy.getBoard().pieces(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+                        assertNotEquals(0, copy.getBoard().pieces(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+                        game.status();
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+
+        Random random = new Random(45);
+        for (int ply = 0; ply < 2000 && failure.get() == null; ply++) {
+            if (game.status() == ConcurrentChessGame.Status.CHECKMATE
+                    || game.status() == ConcurrentChessGame.Status.STALEMATE) {
+                game.reset(new ChessGame());
+                continue;
+            }
+            List<ChessMove> legal = new ArrayList<>();
+            game.copy().legalMoves(game.getTeamTurn()).forEachRemaining(legal::add);
+            game.makeMove(legal.get(random.nextInt(legal.size())));
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertNull(failure.get());
+    }
+
+    @Test
+    public void editedBoardPositive() {
+        // A game set up by hand through its board is what the first view shows
+        ChessGame setUp = new ChessGame();
+        setUp.getBoard().removePiece(new ChessPosition(1, 4));
+        ConcurrentChessGame game = new ConcurrentChessGame(setUp);
+        assertNull(game.view().position().getPiece(new ChessPosition(1, 4)));
+        assertEquals(PositionSnapshot.of(setUp), game.snapshot());
+    }
+
+    @Test
+    public void illegalMoveNegative() {
+        ConcurrentChessGame game = new ConcurrentChessGame();
+        assertThrows(InvalidMoveException.class,
+                () -> game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(5, 5), null)));
+        assertEquals(0, game.view().moveCount());
+        assertEquals(new ChessGame(), game.copy());
+        assertNull(game.validMoves(new ChessPosition(4, 4)));
+    }
+}
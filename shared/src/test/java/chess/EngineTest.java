@@ -0,0 +1,231 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EngineTest {
+
+    // Counts the leaf positions a number of plies deep, to check the move generator
+    private static long perft(ChessGame game, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        ChessGame.TeamColor mover = game.getTeamTurn();
+        int count = MoveGenerator.generateAll(game.getBoard(), mover, moves, 0);
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            int captured = game.play(moves[i]);
+            if (!game.isKingAttacked(mover)) {
+                total += perft(game, depth - 1);
+            }
+            game.unplay(moves[i], captured);
+        }
+        return total;
+    }
+
+    @Test
+    public void perftPositive() {
+        // Known counts from the start position; castling and en passant don't show up this shallow
+        ChessGame game = new ChessGame();
+        assertEquals(20, perft(game, 1));
+        assertEquals(8902, perft(game, 3));
+        assertEquals(197281, perft(game, 4));
+        assertEquals(new ChessGame(), game, "Play and unplay must leave the game as it was");
+    }
+
+    @Test
+    public void findsMatePositive() {
+        // Back rank mate in one
+        ChessGame game = Fen.parse("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        SearchResult result = new Engine().search(game, SearchLimits.depth(4));
+
+        assertEquals(new ChessMove(new ChessPosition(1, 1), new ChessPosition(8, 1), null), result.bestMove());
+        assertTrue(result.lines().get(0).isMate());
+        assertEquals(1, result.lines().get(0).mateIn());
+        assertEquals(Fen.parse("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1"), game, "Searching must not change the game");
+    }
+
+    @Test
+    public void takesHangingQueenPositive() {
+        ChessGame game = Fen.parse("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1");
+        SearchResult result = new Engine().search(game, SearchLimits.depth(3));
+        assertEquals(new ChessMove(new ChessPosition(2, 4), new ChessPosition(5, 4), null), result.bestMove());
+        assertTrue(result.score() > 300);
+    }
+
+    @Test
+    public void multiPvPositive() {
+        // Three different first moves, best first
+        Engine engine = new Engine();
+        SearchResult result = engine.search(new ChessGame(), SearchLimits.depth(4).withMultiPv(3));
+
+        List<PrincipalVariation> lines = result.lines();
+        assertEquals(3, lines.size());
+        Set<ChessMove> firstMoves = new HashSet<>();
+        for (int i = 0; i < lines.size(); i++) {
+            assertFalse(lines.get(i).moves().isEmpty());
+            assertTrue(firstMoves.add(lines.get(i).firstMove()), "Lines must start with different moves");
+            if (i > 0) {
+                assertTrue(lines.get(i).score() <= lines.get(i - 1).score(), "Lines must be best first");
+            }
+        }
+        assertEquals(4, result.depth());
+    }
+
+    @Test
+    public void multiPvNegative() {
+        // Asking for more lines than there are moves gives one per move, and no moves gives none
+        SearchResult result = new Engine().search(Fen.parse("k7/8/8/8/8/8/8/7K w - - 0 1"),
+                SearchLimits.depth(2).withMultiPv(10));
+        assertEquals(3, result.lines().size());
+
+        ChessGame stalemate = Fen.parse("k7/8/1Q6/8/8/8/8/7K b - - 0 1");
+        assertNull(new Engine().search(stalemate, SearchLimits.depth(2)).bestMove());
+        assertThrows(IllegalArgumentException.class, () -> SearchLimits.depth(2).withMultiPv(0));
+    }
+
+    @Test
+    public void ponderHitPositive() throws Exception {
+        // Ponder on black's expected reply, then have black play it
+        Engine engine = new Engine();
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        ChessMove reply = new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null);
+        engine.ponder(game, reply, 1);
+        assertTrue(engine.isPondering());
+        Thread.sleep(300);
+
+        // Searching the predicted position picks up the ponder search instead of starting over
+        game.makeMove(reply);
+        SearchResult result = engine.search(game, SearchLimits.depth(3));
+        assertFalse(engine.isPondering());
+        assertTrue(result.depth() >= 3);
+        assertTrue(game.validMoves(result.bestMove().getStartPosition()).contains(result.bestMove()));
+    }
+
+    @Test
+    public void ponderMissNegative() throws Exception {
+        // The opponent plays something else, so the ponder result is thrown away
+        Engine engine = new Engine();
+        ChessGame game = new ChessGame();
+        engine.ponder(game, new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null), 1);
+        game.makeMove(new ChessMove(new ChessPosition(2, 4), new ChessPosition(4, 4), null));
+        SearchResult result = engine.search(game, SearchLimits.depth(2));
+
+        assertFalse(engine.isPondering());
+        assertEquals(ChessGame.TeamColor.BLACK, game.getBoard().getPiece(result.bestMove().getStartPosition()).getTeamColor());
+        assertThrows(IllegalStateException.class, () -> engine.ponderHit(SearchLimits.depth(1)));
+        assertThrows(InvalidMoveException.class, () -> engine.ponder(game,
+                new ChessMove(new ChessPosition(2, 1), new ChessPosition(3, 1), null), 1), "It's black's move");
+    }
+
+    @Test
+    public void stopBeforeSearchPositive() {
+        // A stop sent before the search starts still stops it, and only that one search
+        Engine engine = new Engine();
+        engine.stop();
+        SearchResult stopped = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> engine.search(new ChessGame(), new SearchLimits(0, 0, 0, 1)));
+        assertFalse(stopped.lines().isEmpty());
+
+        SearchResult next = engine.search(new ChessGame(), SearchLimits.depth(3));
+        assertEquals(3, next.depth());
+    }
+
+    @Test
+    public void ponderHitStopTokenPositive() throws Exception {
+        // Picking up a ponder search with no limits still listens to the caller's token
+        Engine engine = new Engine();
+        ChessGame game = new ChessGame();
+        ChessMove reply = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        engine.ponder(game, reply, 1);
+        game.makeMove(reply);
+
+        SearchResult result = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> engine.search(game, new SearchLimits(0, 0, 0, 1), () -> true));
+        assertFalse(engine.isPondering());
+        assertFalse(result.lines().isEmpty());
+    }
+
+    @Test
+    public void helperStatisticsPositive() {
+        // With Lazy SMP the reported counters include the helpers' work, as the node count does
+        Engine engine = new Engine();
+        engine.setThreads(3);
+        List<SearchStats> finished = new ArrayList<>();
+        engine.addListener(new SearchListener() {
+            @Override
+            public void searchFinished(SearchResult result, SearchStats stats) {
+                finished.add(stats);
+            }
+        });
+        SearchResult result = engine.search(new ChessGame(), SearchLimits.depth(5));
+
+        assertEquals(1, finished.size());
+        assertEquals(result.nodes(), finished.get(0).nodes());
+        assertEquals(result.nodes(), engine.statistics().getNodes());
+    }
+
+    @Test
+    public void statisticsPositive() {
+        // The listener hears every depth, and the counters add up
+        Engine engine = new Engine();
+        List<Integer> depths = new ArrayList<>();
+        List<SearchStats> finished = new ArrayList<>();
+        engine.addListener(new SearchListener() {
+            @Override
+            public void depthCompleted(int depth, List<PrincipalVariation> lines, SearchStats stats) {
+                depths.add(depth);
+            }
+
+            @Override
+            public void searchFinished(SearchResult result, SearchStats stats) {
+                finished.add(stats);
+            }
+        });
+        SearchResult result = engine.search(new ChessGame(), SearchLimits.depth(5));
+
+        assertEquals(List.of(1, 2, 3, 4, 5), depths);
+        assertEquals(1, finished.size());
+        SearchStats stats = finished.get(0);
+        assertEquals(result.nodes(), stats.nodes());
+        assertTrue(stats.quiescenceNodes() > 0 && stats.quiescenceNodes() < stats.nodes());
+        assertTrue(stats.tableHits() > 0 && stats.tableHits() <= stats.tableProbes());
+        assertTrue(stats.tableCutoffs() <= stats.tableHits());
+        assertTrue(stats.firstMoveCutoffRate() > 0.5, "Move ordering should mostly cut off on the first move");
+        assertTrue(stats.effectiveBranchingFactor() > 1);
+        assertEquals(5, stats.depthNanos().size());
+        assertEquals(stats.nodes(), engine.statistics().getNodes());
+    }
+
+    @Test
+    public void mbeanPositive() throws Exception {
+        Engine engine = new Engine();
+        String engineName = "test-" + System.nanoTime();
+        ObjectName name = engine.registerMBean(engineName);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            engine.search(new ChessGame(), SearchLimits.depth(3));
+            engine.search(new ChessGame(), SearchLimits.depth(3));
+            assertEquals(2L, server.getAttribute(name, "Searches"));
+            assertTrue((Double) server.getAttribute(name, "TableHitRate") > 0);
+
+            server.invoke(name, "reset", null, null);
+            assertEquals(0L, engine.statistics().getNodes());
+            assertThrows(IllegalStateException.class, () -> engine.registerMBean(engineName), "Name is taken");
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+}
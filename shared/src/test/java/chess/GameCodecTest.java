@@ -0,0 +1,70 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameCodecTest {
+
+    @Test
+    public void roundTripPositive() {
+        ChessGame game = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R b - - 0 1");
+        byte[] data = GameCodec.encode(game);
+        assertTrue(GameCodec.isCurrent(data));
+        assertEquals(2 + PositionCodec.ENCODED_LENGTH, data.length);
+        ChessGame back = GameCodec.decode(data);
+        assertEquals(game.getBoard(), back.getBoard());
+        assertEquals(ChessGame.TeamColor.BLACK, back.getTeamTurn());
+    }
+
+    @Test
+    public void movesReplayedPositive() throws InvalidMoveException {
+        // The moves after the starting position are played back on load, promotions included
+        ChessGame start = Fen.parse("4k3/1P6/8/8/8/8/8/4K3 w - - 0 1");
+        ChessMove promote = new ChessMove(new ChessPosition(7, 2), new ChessPosition(8, 2), ChessPiece.PieceType.KNIGHT);
+        ChessMove reply = new ChessMove(new ChessPosition(8, 5), new ChessPosition(7, 5), null);
+        byte[] data = GameCodec.encode(start, new int[]{promote.encode(), reply.encode()});
+        assertArrayEquals(new int[]{promote.encode(), reply.encode()}, GameCodec.moves(data));
+
+        ChessGame expected = Fen.parse(Fen.format(start));
+        expected.makeMove(promote);
+        expected.makeMove(reply);
+        ChessGame back = GameCodec.decode(data);
+        assertEquals(expected.getBoard(), back.getBoard());
+        assertEquals(ChessGame.TeamColor.WHITE, back.getTeamTurn());
+    }
+
+    @Test
+    public void readsJsonPositive() {
+        // Rows written before the binary form, by plain Gson or by ChessJson
+        ChessGame game = Fen.parse("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 b - - 0 1");
+        byte[] reflective = new Gson().toJson(game).getBytes(StandardCharsets.UTF_8);
+        byte[] fen = ChessJson.gson().toJson(game).getBytes(StandardCharsets.UTF_8);
+        assertFalse(GameCodec.isCurrent(reflective));
+        assertFalse(GameCodec.isCurrent(fen));
+        assertEquals(game.getBoard(), GameCodec.decode(reflective).getBoard());
+        assertEquals(ChessGame.TeamColor.BLACK, GameCodec.decode(fen).getTeamTurn());
+        assertTrue(GameCodec.encode(game).length * 10 < reflective.length);
+    }
+
+    @Test
+    public void badDataNegative() {
+        byte[] data = GameCodec.encode(new ChessGame());
+        data[1] = 9;
+        assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(data));
+        assertFalse(GameCodec.isCurrent(data));
+
+        assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(new byte[]{0, 1, 5}));
+        assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(new byte[0]));
+        assertThrows(IllegalArgumentException.class,
+                () -> GameCodec.decode("{\"board\":".getBytes(StandardCharsets.UTF_8)));
+
+        // e2e5 isn't a legal first move
+        int illegal = new ChessMove(new ChessPosition(2, 5), new ChessPosition(5, 5), null).encode();
+        assertThrows(IllegalArgumentException.class,
+                () -> GameCodec.decode(GameCodec.encode(new ChessGame(), new int[]{illegal})));
+    }
+}
@@ -0,0 +1,144 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LegalMoveCacheTest {
+
+    private static Set<Integer> uncached(ChessGame game, ChessGame.TeamColor side) {
+        Set<Integer> moves = new HashSet<>();
+        MoveIterator iterator = game.legalMoves(side);
+        for (int move = iterator.nextMove(); move >= 0; move = iterator.nextMove()) {
+            moves.add(move);
+        }
+        return moves;
+    }
+
+    private static Set<Integer> asSet(short[] moves) {
+        Set<Integer> set = new HashSet<>();
+        for (short move : moves) {
+            set.add((int) move);
+        }
+        return set;
+    }
+
+    @Test
+    public void hitPositive() {
+        LegalMoveCache cache = new LegalMoveCache(64);
+        ChessGame game = new ChessGame();
+        short[] first = cache.get(game, ChessGame.TeamColor.WHITE);
+        short[] second = cache.get(new ChessGame(), ChessGame.TeamColor.WHITE);
+
+        assertEquals(20, first.length);
+        assertSame(first, second, "Same position in another game is a hit");
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+        // Black's moves in the same position are a different entry
+        assertEquals(20, cache.get(game, ChessGame.TeamColor.BLACK).length);
+        assertEquals(2, cache.misses());
+    }
+
+    @Test
+    public void clockKeepsUsedEntriesPositive() {
+        // One set: filling it and then adding one more evicts an unused entry, not the used one
+        LegalMoveCache cache = new LegalMoveCache(LegalMoveCache.WAYS);
+        assertEquals(LegalMoveCache.WAYS, cache.capacity());
+        List<ChessGame> games = new ArrayList<>();
+        for (int i = 0; i <= LegalMoveCache.WAYS; i++) {
+            ChessGame game = new ChessGame();
+            game.getBoard().addPiece(PositionCodec.position(16 + i), new ChessPiece(ChessGame.TeamColor.WHITE,
+                    ChessPiece.PieceType.KNIGHT));
+            games.add(game);
+        }
+        for (int i = 0; i < LegalMoveCache.WAYS; i++) {
+            cache.get(games.get(i), ChessGame.TeamColor.WHITE);
+        }
+        cache.get(games.get(0), ChessGame.TeamColor.WHITE);
+        cache.get(games.get(LegalMoveCache.WAYS), ChessGame.TeamColor.WHITE);
+
+        assertNotNull(cache.peek(games.get(0), ChessGame.TeamColor.WHITE));
+        assertNotNull(cache.peek(games.get(LegalMoveCache.WAYS), ChessGame.TeamColor.WHITE));
+        int kept = 0;
+        for (ChessGame game : games) {
+            kept += cache.peek(game, ChessGame.TeamColor.WHITE) != null ? 1 : 0;
+        }
+        assertEquals(LegalMoveCache.WAYS, kept);
+    }
+
+    @Test
+    public void concurrentPositive() throws Exception {
+        // Threads playing random games through a small cache always get the right moves
+        LegalMoveCache cache = new LegalMoveCache(256);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                long seed = thread % 2;
+                futures.add(pool.submit(() -> {
+                    Random random = new Random(seed);
+                    for (int gameNumber = 0; gameNumber < 20; gameNumber++) {
+                        ChessGame game = new ChessGame();
+                        for (int ply = 0; ply < 60; ply++) {
+                            short[] moves = cache.get(game, game.getTeamTurn());
+                            assertEquals(uncached(game, game.getTeamTurn()), asSet(moves));
+                            if (moves.length == 0) {
+                                break;
+                            }
+                            game.makeMove(ChessMove.decode(moves[random.nextInt(moves.length)]));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertTrue(cache.hits() > 0, "Threads with the same seed share positions");
+    }
+
+    @Test
+    public void clearPositive() {
+        // After a clear the cache behaves like a new one, clock hand included
+        LegalMoveCache cache = new LegalMoveCache(LegalMoveCache.WAYS);
+        List<ChessGame> games = new ArrayList<>();
+        for (int i = 0; i <= LegalMoveCache.WAYS; i++) {
+            ChessGame game = new ChessGame();
+            game.getBoard().addPiece(PositionCodec.position(16 + i), new ChessPiece(ChessGame.TeamColor.WHITE,
+                    ChessPiece.PieceType.KNIGHT));
+            games.add(game);
+        }
+        for (int round = 0; round < 2; round++) {
+            for (ChessGame game : games) {
+                cache.get(game, ChessGame.TeamColor.WHITE);
+            }
+            // Nothing was used, so the hand evicted the first entry to make room for the last
+            assertEquals(LegalMoveCache.WAYS + 1, cache.misses());
+            assertNull(cache.peek(games.get(0), ChessGame.TeamColor.WHITE));
+            assertNotNull(cache.peek(games.get(1), ChessGame.TeamColor.WHITE));
+            cache.clear();
+            assertEquals(0, cache.hits());
+            assertEquals(0, cache.misses());
+        }
+    }
+
+    @Test
+    public void missNegative() {
+        LegalMoveCache cache = new LegalMoveCache(64);
+        assertNull(cache.peek(new ChessGame(), ChessGame.TeamColor.WHITE));
+        assertEquals(1, cache.misses());
+        assertEquals(0, cache.hitRate());
+    }
+}
@@ -0,0 +1,84 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MateSolverTest {
+
+    @Test
+    public void mateInOnePositive() {
+        ChessGame game = Fen.parse("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        MateSolver.Result result = new MateSolver(16).solve(game, 1);
+
+        assertEquals(MateSolver.Outcome.MATE, result.outcome());
+        assertEquals(new ChessMove(new ChessPosition(1, 1), new ChessPosition(8, 1), null), result.firstMove());
+        assertEquals(Fen.parse("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1"), game, "Solving must not change the game");
+    }
+
+    @Test
+    public void mateInTwoPositive() throws Exception {
+        // Ladder mate: Ra7 keeps the king on the back rank, then Rb8
+        ChessGame game = Fen.parse("2k5/8/8/8/8/8/R7/1R5K w - - 0 1");
+        MateSolver solver = new MateSolver(16);
+        assertEquals(MateSolver.Outcome.NO_MATE, solver.solve(game, 1).outcome());
+
+        MateSolver.Result result = solver.solve(game, 2);
+        assertEquals(MateSolver.Outcome.MATE, result.outcome());
+        assertEquals(3, result.line().size());
+
+        // Playing the line out really is mate
+        for (ChessMove move : result.line()) {
+            game.makeMove(move);
+        }
+        assertTrue(game.isInCheckmate(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    public void agreesWithEnginePositive() {
+        // Mate in three from a known puzzle, which the engine needs depth 5 for
+        ChessGame game = Fen.parse("r5rk/5p1p/5R2/4B3/8/8/7P/7K w - - 0 1");
+        MateSolver.Result result = new MateSolver(64).solve(game, 3);
+        assertEquals(MateSolver.Outcome.MATE, result.outcome());
+
+        SearchResult search = new Engine().search(game, SearchLimits.depth(5));
+        assertEquals(Engine.MATE - 5, search.score());
+    }
+
+    @Test
+    public void manyMatesPositive() throws Exception {
+        // Three queens leave a pile of mates at ply 2 and ply 4, and each one is worth an
+        // infinite disproof number, which mustn't wrap around when they're added up
+        for (String fen : new String[]{"4k3/8/8/8/8/8/8/QQQ1K3 w - - 0 1", "8/8/8/4k3/8/8/8/QQQ1K3 w - - 0 1"}) {
+            MateSolver solver = new MateSolver(16);
+            for (int moves = 2; moves <= 3; moves++) {
+                ChessGame game = Fen.parse(fen);
+                MateSolver.Result result = solver.solve(game, moves);
+                assertEquals(MateSolver.Outcome.MATE, result.outcome(), fen);
+                for (ChessMove move : result.line()) {
+                    game.makeMove(move);
+                }
+                assertTrue(game.isInCheckmate(ChessGame.TeamColor.BLACK), fen);
+            }
+        }
+    }
+
+    @Test
+    public void stalemateNegative() {
+        // Stalemating isn't mating
+        ChessGame game = Fen.parse("k7/8/2Q5/8/8/8/8/7K w - - 0 1");
+        assertEquals(MateSolver.Outcome.NO_MATE, new MateSolver(16).solve(game, 1).outcome());
+    }
+
+    @Test
+    public void nodeLimitNegative() {
+        // Too small a tree to settle a mate in three
+        ChessGame game = Fen.parse("r5rk/5p1p/5R2/4B3/8/8/7P/7K w - - 0 1");
+        MateSolver solver = new MateSolver(100L * MateSolver.NODE_BYTES);
+        MateSolver.Result result = solver.solve(game, 3);
+
+        assertEquals(100, solver.nodeLimit());
+        assertEquals(MateSolver.Outcome.UNKNOWN, result.outcome());
+        assertNull(result.firstMove());
+    }
+}
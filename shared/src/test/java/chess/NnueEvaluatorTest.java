@@ -0,0 +1,103 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NnueEvaluatorTest {
+
+    private static NnueNetwork randomNetwork(int hidden, long seed) {
+        Random random = new Random(seed);
+        short[] featureWeights = new short[NnueNetwork.INPUTS * hidden];
+        for (int i = 0; i < featureWeights.length; i++) {
+            featureWeights[i] = (short) (random.nextInt(41) - 20);
+        }
+        short[] featureBias = new short[hidden];
+        for (int i = 0; i < hidden; i++) {
+            featureBias[i] = (short) random.nextInt(60);
+        }
+        byte[] outputWeights = new byte[2 * hidden];
+        random.nextBytes(outputWeights);
+        return new NnueNetwork(hidden, featureWeights, featureBias, outputWeights, random.nextInt(1000));
+    }
+
+    @Test
+    public void incrementalMatchesFreshPositive() {
+        // Play a random game on one board; its running accumulator must match one built from scratch
+        NnueEvaluator evaluator = new NnueEvaluator(randomNetwork(64, 1));
+        Random random = new Random(2);
+        ChessGame game = new ChessGame();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (int ply = 0; ply < 120; ply++) {
+            int evaluated = evaluator.evaluate(game);
+            assertEquals(evaluator.evaluate(Fen.parse(Fen.format(game))), evaluated, "Ply " + ply);
+
+            ChessGame.TeamColor mover = game.getTeamTurn();
+            int count = MoveGenerator.generateAll(game.getBoard(), mover, moves, 0);
+            int legal = 0;
+            for (int i = 0; i < count; i++) {
+                int captured = game.play(moves[i]);
+                if (!game.isKingAttacked(mover)) {
+                    moves[legal++] = moves[i];
+                }
+                game.unplay(moves[i], captured);
+            }
+            if (legal == 0) {
+                break;
+            }
+            game.play(moves[random.nextInt(legal)]);
+        }
+
+        // A reset board is picked up too
+        game.getBoard().resetBoard();
+        game.setTeamTurn(ChessGame.TeamColor.WHITE);
+        assertEquals(evaluator.evaluate(new ChessGame()), evaluator.evaluate(game));
+    }
+
+    @Test
+    public void kernelsAgreePositive() {
+        // The vector and scalar output layers must give the same score, including for odd sizes
+        for (int hidden : new int[]{1, 37, 256}) {
+            NnueNetwork network = randomNetwork(hidden, hidden);
+            ChessGame game = Fen.parse("r1bqkb1r/pppp1ppp/2n2n2/4p2Q/2B1P3/8/PPPP1PPP/RNB1K1NR b - - 0 1");
+            assertEquals(new NnueEvaluator(network, NnueKernel.scalar()).evaluate(game),
+                    new NnueEvaluator(network, NnueKernel.get()).evaluate(game));
+        }
+    }
+
+    @Test
+    public void searchesWithNetworkPositive() {
+        // Drop-in for the classic evaluation
+        Engine engine = new Engine(new NnueEvaluator(randomNetwork(32, 3)), 1);
+        SearchResult result = engine.search(new ChessGame(), SearchLimits.depth(3));
+        assertNotNull(result.bestMove());
+    }
+
+    @Test
+    public void fileRoundTripPositive() throws IOException {
+        NnueNetwork network = randomNetwork(16, 4);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        network.write(out);
+        NnueNetwork loaded = NnueNetwork.read(new ByteArrayInputStream(out.toByteArray()));
+
+        ChessGame game = Fen.parse("r1bqkb1r/pppp1ppp/2n2n2/4p2Q/2B1P3/8/PPPP1PPP/RNB1K1NR b - - 0 1");
+        assertEquals(16, loaded.hiddenSize());
+        assertEquals(new NnueEvaluator(network).evaluate(game), new NnueEvaluator(loaded).evaluate(Fen.parse(Fen.format(game))));
+    }
+
+    @Test
+    public void badFileNegative() {
+        assertThrows(IOException.class, () -> NnueNetwork.read(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5})));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertDoesNotThrow(() -> randomNetwork(8, 5).write(out));
+        byte[] truncated = Arrays.copyOf(out.toByteArray(), out.size() - 10);
+        assertThrows(IOException.class, () -> NnueNetwork.read(new ByteArrayInputStream(truncated)));
+    }
+}
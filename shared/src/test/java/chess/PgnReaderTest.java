@@ -0,0 +1,94 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PgnReaderTest {
+
+    private static PgnReader readerFor(String pgn) {
+        return new PgnReader(new ByteArrayInputStream(pgn.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void readGamesPositive() throws Exception {
+        // Two games back to back, with the usual PGN clutter mixed in
+        String pgn = """
+                [Event "Club Night"]
+                [White "Fool"]
+                [Black "Master"]
+                [Result "0-1"]
+
+                1. f3 e5 2. g4 {what is this?} Qh4# 0-1
+
+                [Event "Scholar"]
+                [Result "1-0"]
+
+                1. e4 e5 2. Bc4 (2. Nf3 Nc6) Nc6 3. Qh5 $2 Nf6?? 4. Qxf7# 1-0
+                """;
+
+        try (PgnReader reader = readerFor(pgn)) {
+            PgnGame first = reader.next();
+            assertNotNull(first, "Should read the first game");
+            assertEquals("Club Night", first.tag("Event"));
+            assertEquals("0-1", first.result());
+            assertEquals(4, first.moves().size(), "Fool's mate is four plies");
+            assertTrue(first.game().isInCheckmate(ChessGame.TeamColor.WHITE), "White should be mated");
+
+            PgnGame second = reader.next();
+            assertNotNull(second, "Should read the second game");
+            assertEquals(7, second.moves().size(), "Variation moves shouldn't be played");
+            assertEquals(new ChessMove(new ChessPosition(5, 8), new ChessPosition(7, 6), null),
+                    second.moves().get(6));
+            assertTrue(second.game().isInCheckmate(ChessGame.TeamColor.BLACK), "Black should be mated");
+
+            assertNull(reader.next(), "No games left");
+        }
+    }
+
+    @Test
+    public void readFenSetupPositive() throws Exception {
+        // Promotion from a set-up position
+        String pgn = """
+                [SetUp "1"]
+                [FEN "8/4P3/8/8/8/8/k7/4K3 w - - 0 1"]
+
+                1. e8=Q *
+                """;
+
+        try (PgnReader reader = readerFor(pgn)) {
+            PgnGame game = reader.next();
+            assertEquals("*", game.result());
+            assertEquals(ChessPiece.PieceType.QUEEN, game.moves().get(0).getPromotionPiece());
+            assertEquals(ChessGame.TeamColor.BLACK, game.game().getTeamTurn());
+        }
+    }
+
+    @Test
+    public void readIllegalMoveNegative() throws Exception {
+        // The first game has an impossible move, the second one is fine
+        String pgn = """
+                [Event "Broken"]
+
+                1. e4 e5 2. Ke3 Nc6 1-0
+
+                [Event "Fine"]
+
+                1. d4 d5 1/2-1/2
+                """;
+
+        try (PgnReader reader = readerFor(pgn)) {
+            PgnParseException exception = assertThrows(PgnParseException.class, reader::next);
+            assertTrue(exception.getMessage().contains("ply 3"),
+                    "Error should point at the bad ply, but was: " + exception.getMessage());
+
+            PgnGame next = reader.next();
+            assertNotNull(next, "Reader should recover for the next game");
+            assertEquals("Fine", next.tag("Event"));
+            assertEquals(2, next.moves().size());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PositionArenaTest {
+
+    @Test
+    public void roundTripPositive() {
+        PositionArena arena = new PositionArena(3);
+        ChessGame start = new ChessGame();
+        ChessGame middle = Fen.parse("r1bqkb1r/pppp1ppp/2n2n2/4p2Q/2B1P3/8/PPPP1PPP/RNB1K1NR b - - 0 1");
+
+        assertEquals(0, arena.add(start));
+        assertEquals(1, arena.add(middle));
+        assertEquals(2, arena.add(PositionCodec.encode(middle), 0));
+
+        assertEquals(start, arena.toGame(0));
+        assertEquals(middle, arena.toGame(1));
+        assertEquals(middle.getBoard(), arena.toBoard(2));
+        assertEquals(ChessGame.TeamColor.BLACK, arena.turn(1));
+        // Queen on h5
+        assertEquals(PositionCodec.pieceCode(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN),
+                arena.pieceCodeAt(1, PositionCodec.square(new ChessPosition(5, 8))));
+    }
+
+    @Test
+    public void allocatesLazilyPositive() {
+        // A huge capacity only costs memory once positions go in
+        try (PositionArena arena = new PositionArena(100_000_000L)) {
+            assertEquals(0, arena.allocatedBytes());
+            arena.add(new ChessGame());
+            assertEquals((long) PositionArena.CHUNK_POSITIONS * PositionCodec.ENCODED_LENGTH, arena.allocatedBytes());
+        }
+    }
+
+    @Test
+    public void closeNegative() {
+        // Closing lets go of the off-heap chunks, and the arena can't be used after
+        PositionArena arena = new PositionArena(10);
+        arena.add(new ChessGame());
+        arena.close();
+        assertEquals(0, arena.allocatedBytes());
+        assertEquals(0, arena.size());
+        assertThrows(IllegalStateException.class, () -> arena.add(new ChessGame()));
+        assertThrows(IllegalStateException.class, () -> arena.toGame(0));
+    }
+
+    @Test
+    public void boundsNegative() {
+        PositionArena arena = new PositionArena(1);
+        assertThrows(IndexOutOfBoundsException.class, () -> arena.toGame(0));
+        arena.add(new ChessGame());
+        assertThrows(IllegalStateException.class, () -> arena.add(new ChessGame()));
+        assertThrows(IndexOutOfBoundsException.class, () -> arena.turn(1));
+    }
+}
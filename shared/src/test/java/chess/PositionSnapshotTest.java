@@ -0,0 +1,82 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PositionSnapshotTest {
+
+    @Test
+    public void snapshotFollowsMovesPositive() throws Exception {
+        ChessGame game = new ChessGame();
+        PositionSnapshot before = game.snapshot();
+
+        // Push the e pawn
+        ChessPosition e2 = new ChessPosition(2, 5);
+        ChessPosition e4 = new ChessPosition(4, 5);
+        game.makeMove(new ChessMove(e2, e4, null));
+        PositionSnapshot after = game.snapshot();
+
+        // The new snapshot has the move, the old one doesn't
+        assertEquals(ChessGame.TeamColor.BLACK, after.getTeamTurn());
+        assertNull(after.getPiece(e2));
+        assertEquals(new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN), after.getPiece(e4));
+        assertEquals(ChessGame.TeamColor.WHITE, before.getTeamTurn());
+        assertNull(before.getPiece(e4), "Old snapshots must not change");
+
+        // And it converts back to the same game
+        assertEquals(game, after.toGame());
+    }
+
+    @Test
+    public void codecRoundTripPositive() {
+        ChessGame game = Fen.parse("r1bqkb1r/pppp1ppp/2n2n2/4p2Q/2B1P3/8/PPPP1PPP/RNB1K1NR b - - 0 1");
+        byte[] encoded = PositionCodec.encode(game);
+
+        assertEquals(PositionCodec.ENCODED_LENGTH, encoded.length);
+        assertEquals(game, PositionCodec.decode(encoded));
+        assertEquals(PositionSnapshot.of(game), PositionSnapshot.fromBytes(encoded, 0));
+    }
+
+    @Test
+    public void snapshotPublishedUpFrontPositive() {
+        // Readers only ever read the field, so a new or loaded game must already have one
+        assertEquals(PositionSnapshot.of(new ChessGame()), new ChessGame().snapshot());
+        ChessGame loaded = ChessJson.gson().fromJson("\"4k3/8/8/8/8/8/8/4K3 b - - 0 1\"", ChessGame.class);
+        assertEquals(ChessGame.TeamColor.BLACK, loaded.snapshot().getTeamTurn());
+        assertNull(loaded.snapshot().getPiece(new ChessPosition(1, 1)));
+    }
+
+    @Test
+    public void reflectiveGsonPositive() {
+        // Plain Gson fills in the fields of a game the constructor already set up
+        String json = new Gson().toJson(Fen.parse("4k3/8/8/8/8/8/8/4K3 b - - 0 1"));
+        ChessGame loaded = new Gson().fromJson(json, ChessGame.class);
+        assertEquals(ChessGame.TeamColor.BLACK, loaded.snapshot().getTeamTurn());
+        assertNull(loaded.snapshot().getPiece(new ChessPosition(1, 1)));
+        assertEquals(PositionSnapshot.of(loaded), loaded.snapshot());
+    }
+
+    @Test
+    public void decodedPositive() {
+        // A decoded game's snapshot is the position it was decoded from
+        ChessGame game = Fen.parse("4k3/8/8/8/8/8/8/4K3 b - - 0 1");
+        byte[] data = PositionCodec.encode(game);
+        ChessGame back = PositionCodec.decode(data);
+        assertEquals(PositionSnapshot.fromBytes(data, 0), back.snapshot());
+        assertEquals(game.snapshot(), back.snapshot());
+    }
+
+    @Test
+    public void snapshotAfterSetBoardPositive() {
+        // Replacing the board publishes a fresh snapshot
+        ChessGame game = new ChessGame();
+        game.snapshot();
+        game.setBoard(Fen.parseBoard("4k3/8/8/8/8/8/8/4K3"));
+
+        assertNull(game.snapshot().getPiece(new ChessPosition(1, 1)));
+        assertEquals(new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING),
+                game.snapshot().getPiece(new ChessPosition(8, 5)));
+    }
+}
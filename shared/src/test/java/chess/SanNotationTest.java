@@ -0,0 +1,81 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SanNotationTest {
+
+    private static ChessMove move(int fromRow, int fromCol, int toRow, int toCol, ChessPiece.PieceType promotion) {
+        return new ChessMove(new ChessPosition(fromRow, fromCol), new ChessPosition(toRow, toCol), promotion);
+    }
+
+    @Test
+    public void encodePositive() throws Exception {
+        // Opening moves from the start position
+        ChessGame game = new ChessGame();
+        assertEquals("e4", SanNotation.encode(game, move(2, 5, 4, 5, null)));
+        assertEquals("Nf3", SanNotation.encode(game, move(1, 7, 3, 6, null)));
+    }
+
+    @Test
+    public void encodeDisambiguationPositive() throws Exception {
+        // Two knights and two rooks that can reach the same squares
+        ChessGame game = Fen.parse("3k4/8/8/8/8/8/8/R1N1N2R w - - 0 1");
+        assertEquals("Ncd3", SanNotation.encode(game, move(1, 3, 3, 4, null)));
+        assertEquals("Rf1", SanNotation.encode(game, move(1, 8, 1, 6, null)), "Knights block the other rook");
+
+        ChessGame stacked = Fen.parse("7k/8/8/R7/8/8/8/R6K w - - 0 1");
+        assertEquals("R5a3", SanNotation.encode(stacked, move(5, 1, 3, 1, null)));
+    }
+
+    @Test
+    public void encodeSuffixesPositive() throws Exception {
+        // Promotion with check, and a back rank mate
+        ChessGame promotion = Fen.parse("4k3/1P6/8/8/8/8/8/4K3 w - - 0 1");
+        assertEquals("b8=Q+", SanNotation.encode(promotion, move(7, 2, 8, 2, ChessPiece.PieceType.QUEEN)));
+
+        ChessGame mate = Fen.parse("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        int modCount = mate.getBoard().modCount();
+        assertEquals("Ra8#", SanNotation.encode(mate, move(1, 1, 8, 1, null)));
+
+        // Encoding must not touch the board at all, not even to put it back
+        assertEquals(Fen.parse("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1"), mate);
+        assertEquals(modCount, mate.getBoard().modCount());
+    }
+
+    @Test
+    public void decodePositive() throws Exception {
+        ChessGame game = Fen.parse("3k4/8/8/8/8/8/8/R1N1N2R w - - 0 1");
+        assertEquals(move(1, 5, 3, 4, null), SanNotation.decode(game, "Ned3"));
+        assertEquals(move(1, 8, 5, 8, null), SanNotation.decode(game, "Rh5!"));
+    }
+
+    @Test
+    public void decodeAmbiguousNegative() {
+        // Both knights can go to d3, so the move needs a file
+        ChessGame game = Fen.parse("3k4/8/8/8/8/8/8/R1N1N2R w - - 0 1");
+        InvalidMoveException exception = assertThrows(InvalidMoveException.class,
+                () -> SanNotation.decode(game, "Nd3"));
+        assertTrue(exception.getMessage().contains("Ambiguous"));
+    }
+
+    @Test
+    public void roundTripPositive() throws Exception {
+        // Every legal move should decode back to itself
+        ChessGame game = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - - 0 1");
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition start = new ChessPosition(row, col);
+                ChessPiece piece = game.getBoard().getPiece(start);
+                if (piece == null || piece.getTeamColor() != game.getTeamTurn()) {
+                    continue;
+                }
+                for (ChessMove legal : game.validMoves(start)) {
+                    String san = SanNotation.encode(game, legal);
+                    assertEquals(legal, SanNotation.decode(game, san), "Round trip failed for " + san);
+                }
+            }
+        }
+    }
+}
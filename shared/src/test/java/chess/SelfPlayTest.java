@@ -0,0 +1,91 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SelfPlayTest {
+
+    @Test
+    public void playsBothColorsPositive() throws Exception {
+        // White mates in one, so whoever gets white wins
+        ChessGame mateInOne = Fen.parse("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        SelfPlay selfPlay = new SelfPlay(List.of(mateInOne), ClassicEvaluator::new, ClassicEvaluator::new,
+                SearchLimits.depth(2));
+        SelfPlay.Result result = selfPlay.run(4, 2);
+
+        assertEquals(2, result.wins());
+        assertEquals(2, result.losses());
+        assertEquals(0.0, result.eloDifference(), 1e-9);
+        assertEquals(2, result.candidate().moves());
+        assertTrue(result.candidate().nodesPerSecond() > 0);
+    }
+
+    @Test
+    public void drawsPositive() throws Exception {
+        // Bare kings are drawn before anyone moves
+        SelfPlay selfPlay = new SelfPlay(List.of(Fen.parse("4k3/8/8/8/8/8/8/4K3 w - - 0 1")),
+                ClassicEvaluator::new, ClassicEvaluator::new, SearchLimits.depth(1));
+        SelfPlay.Result result = selfPlay.run(2, 1);
+
+        assertEquals(2, result.draws());
+        assertEquals(0, result.candidate().moves());
+    }
+
+    @Test
+    public void mateOnLastPlyPositive() throws Exception {
+        // With a one ply limit the mate in one is the last move, and still wins rather than draws
+        ChessGame mateInOne = Fen.parse("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        SelfPlay selfPlay = new SelfPlay(List.of(mateInOne), ClassicEvaluator::new, ClassicEvaluator::new,
+                SearchLimits.depth(2), 1);
+        SelfPlay.Result result = selfPlay.run(2, 1);
+
+        assertEquals(1, result.wins());
+        assertEquals(1, result.losses());
+        assertEquals(0, result.draws());
+    }
+
+    @Test
+    public void eloPositive() {
+        // 75% is about +191, and more games shrink the error bars
+        SelfPlay.EngineStats none = new SelfPlay.EngineStats(0, 0, 0);
+        SelfPlay.Result few = new SelfPlay.Result(6, 6, 0, none, none);
+        SelfPlay.Result many = new SelfPlay.Result(600, 600, 0, none, none);
+
+        assertEquals(190.8, few.eloDifference(), 0.1);
+        assertTrue(many.eloError() < few.eloError());
+        assertTrue(many.eloError() > 0);
+    }
+
+    @Test
+    public void oneSidedNegative() {
+        // All wins or all losses has no finite Elo, and says so instead of printing NaN
+        SelfPlay.EngineStats none = new SelfPlay.EngineStats(0, 0, 0);
+        SelfPlay.Result allWins = new SelfPlay.Result(10, 0, 0, none, none);
+        SelfPlay.Result allLosses = new SelfPlay.Result(0, 0, 10, none, none);
+
+        assertTrue(allWins.oneSided());
+        assertEquals(Double.POSITIVE_INFINITY, allWins.eloError());
+        assertEquals(Double.POSITIVE_INFINITY, allLosses.eloError());
+        assertTrue(allWins.toString().contains("Elo unbounded, every game won"));
+        assertTrue(allLosses.toString().contains("every game lost"));
+        assertFalse(new SelfPlay.Result(9, 1, 0, none, none).oneSided());
+    }
+
+    @Test
+    public void readOpeningsNegative() throws Exception {
+        Path file = Files.createTempFile("openings", ".txt");
+        try {
+            Files.writeString(file, "# comment\n" + Fen.START_POSITION + "\n\nnot a fen\n");
+            IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                    () -> SelfPlay.readOpenings(file));
+            assertTrue(exception.getMessage().startsWith("Line 4"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
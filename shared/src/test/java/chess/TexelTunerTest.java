@@ -0,0 +1,56 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TexelTunerTest {
+
+    @TempDir
+    Path folder;
+
+    @Test
+    public void tuningLowersErrorPositive() throws Exception {
+        // White wins the games with an extra queen, and an extra pawn only sometimes wins
+        Path dataset = folder.resolve("positions.epd");
+        Files.writeString(dataset, String.join("\n",
+                "# comments and blank lines are skipped",
+                "4k3/8/8/8/8/8/8/3QK3 w - - 0 1 [1.0]",
+                "4k3/8/8/8/8/8/8/Q3K3 b - - c9 \"1-0\";",
+                "4k3/3q4/8/8/8/8/8/4K3 w - - 0 1 [0.0]",
+                "",
+                "4k3/pp6/8/8/8/8/PP6/4K3 w - - 0 1 [0.5]",
+                "4k3/8/8/8/8/8/8/4K3 b - - 0 1 \"1/2-1/2\"",
+                "4k3/8/8/8/8/8/P7/4K3 w - - 0 1 [0.5]",
+                "4k3/8/8/8/8/8/1P6/4K3 w - - 0 1 [1.0]",
+                "4k3/8/8/8/8/8/3P4/4K3 b - - 0 1 [0.5]"));
+        TexelTuner tuner = TexelTuner.load(dataset, ForkJoinPool.commonPool());
+
+        int[] parameters = ClassicEvaluator.defaultParameters();
+        tuner.fitScale(parameters);
+        double before = tuner.error(parameters);
+        int changed = tuner.tuneOnce(parameters);
+        assertTrue(changed > 0);
+        assertTrue(tuner.error(parameters) < before);
+
+        // Weights survive a round trip through a file
+        Path output = folder.resolve("tuned.txt");
+        TexelTuner.writeParameters(output, parameters);
+        assertArrayEquals(parameters, TexelTuner.readParameters(output));
+        assertNotNull(new ClassicEvaluator(TexelTuner.readParameters(output)));
+    }
+
+    @Test
+    public void missingResultNegative() throws Exception {
+        Path dataset = folder.resolve("bad.epd");
+        Files.writeString(dataset, "4k3/8/8/8/8/8/8/3QK3 w - - 0 1\n");
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> TexelTuner.load(dataset, ForkJoinPool.commonPool()));
+        assertTrue(exception.getMessage().contains("Line 1"));
+    }
+}
@@ -0,0 +1,80 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UciTest {
+
+    private static String run(String commands) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Uci uci = new Uci(new StringReader(""), new PrintStream(bytes, true, StandardCharsets.UTF_8));
+        for (String command : commands.split("\n")) {
+            uci.handle(command);
+            uci.waitForSearch();
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void handshakePositive() throws Exception {
+        String output = run("uci\nisready");
+        assertTrue(output.contains("option name Threads"));
+        assertTrue(output.contains("uciok"));
+        assertTrue(output.endsWith("readyok" + System.lineSeparator()));
+    }
+
+    @Test
+    public void findsMatePositive() throws Exception {
+        String output = run("setoption name Threads value 2\n"
+                + "position fen 6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1\ngo depth 3");
+        assertTrue(output.contains("score mate 1"));
+        assertTrue(output.contains("bestmove a1a8"));
+    }
+
+    @Test
+    public void positionMovesPositive() throws Exception {
+        // After 1. e4 e5 2. Qh5 Nc6 3. Bc4 Nf6, Qxf7 is mate
+        String output = run("position startpos moves e2e4 e7e5 d1h5 b8c6 f1c4 g8f6\ngo nodes 20000");
+        assertTrue(output.contains("bestmove h5f7"), output);
+    }
+
+    @Test
+    public void immediateStopPositive() {
+        // GUIs send stop straight after go infinite; a stop that beats the search thread must still end it
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            Uci uci = new Uci(new StringReader(""), new PrintStream(bytes, true, StandardCharsets.UTF_8));
+            for (int i = 0; i < 200; i++) {
+                uci.handle("go infinite");
+                uci.handle("stop");
+            }
+            String output = bytes.toString(StandardCharsets.UTF_8);
+            assertEquals(200, output.lines().filter(line -> line.startsWith("bestmove")).count());
+        });
+    }
+
+    @Test
+    public void moveNotationPositive() {
+        ChessMove promotion = new ChessMove(new ChessPosition(7, 5), new ChessPosition(8, 5), ChessPiece.PieceType.KNIGHT);
+        assertEquals("e7e8n", Uci.formatMove(promotion));
+        assertEquals(promotion, Uci.parseMove("e7e8n"));
+    }
+
+    @Test
+    public void badInputNegative() throws Exception {
+        assertThrows(IllegalArgumentException.class, () -> Uci.parseMove("e2e9"));
+        assertThrows(IllegalArgumentException.class, () -> Uci.parseMove("e7e8k"));
+
+        // An illegal move is reported and leaves the position alone
+        String output = run("position startpos moves e2e5\ngo depth 1");
+        assertTrue(output.contains("info string Bad position"));
+        assertTrue(output.contains("bestmove"));
+    }
+}